@@ -0,0 +1,61 @@
+@echo off
+REM Build a self-contained, fast-starting Memory Game under dist\:
+REM   dist\runtime         jlink image with only the JDK and JavaFX modules the game uses
+REM   dist\app             memorygame.jar, the MySQL connector and the AppCDS archive
+REM   dist\memorygame.bat  launcher
+REM
+REM Needs a JDK 24+ (JavaFX 25) in JAVA_HOME and the JavaFX jmods: the SDK jars in lib carry no
+REM native libraries, so jlink cannot build a working image from them. Download
+REM javafx-jmods-25.0.1 from gluonhq.com into lib or set JAVAFX_JMODS.
+REM
+REM The AppCDS archive comes from a training run that starts the game to the main menu and exits
+REM (--startupProbe=true), so the DB settings in memorygame.properties should reach a database.
+REM Compare startup with: java -cp out\classes StartupBenchmark dist\memorygame.bat
+setlocal
+cd /d "%~dp0"
+
+if "%JAVA_HOME%"=="" (
+    echo Set JAVA_HOME to a JDK 24 or newer
+    exit /b 1
+)
+if "%JAVAFX_LIB%"=="" set JAVAFX_LIB=lib\javafx-sdk-25.0.1\lib
+if "%JAVAFX_JMODS%"=="" set JAVAFX_JMODS=lib\javafx-jmods-25.0.1
+set MYSQL_CONNECTOR=lib\mysql-connector-j-9.5.0.jar
+set OUT=out
+set DIST=dist
+
+REM From jdeps over the app and the connector, plus jdk.crypto.ec for TLS, which is loaded as a
+REM service and so invisible to jdeps
+set MODULES=java.sql,java.naming,java.management,java.security.sasl,jdk.jfr,jdk.crypto.ec,javafx.controls,javafx.media
+
+if not exist %JAVAFX_JMODS% (
+    echo JavaFX jmods not found in %JAVAFX_JMODS%
+    exit /b 1
+)
+
+echo Compiling...
+if exist %OUT% rmdir /s /q %OUT%
+if exist %DIST% rmdir /s /q %DIST%
+mkdir %OUT%\classes
+mkdir %DIST%\app
+"%JAVA_HOME%\bin\javac" --module-path %JAVAFX_LIB% --add-modules javafx.controls,javafx.media -cp "%MYSQL_CONNECTOR%" -d %OUT%\classes src\*.java
+if %ERRORLEVEL% NEQ 0 exit /b 1
+"%JAVA_HOME%\bin\jar" --create --file %DIST%\app\memorygame.jar --main-class MemoryGameApp -C %OUT%\classes .
+if %ERRORLEVEL% NEQ 0 exit /b 1
+copy /y %MYSQL_CONNECTOR% %DIST%\app\mysql-connector-j.jar >nul
+
+echo Linking runtime...
+"%JAVA_HOME%\bin\jlink" --module-path %JAVAFX_JMODS% --add-modules %MODULES% --strip-debug --no-header-files --no-man-pages --compress zip-6 --generate-cds-archive --output %DIST%\runtime
+if %ERRORLEVEL% NEQ 0 exit /b 1
+
+REM AutoCreateSharedArchive rebuilds the archive if it is missing or stale (e.g. dist was moved)
+(
+    echo @echo off
+    echo "%%~dp0runtime\bin\java" -XX:SharedArchiveFile="%%~dp0app\memorygame.jsa" -XX:+AutoCreateSharedArchive -Xlog:cds=off -Xlog:cds+dynamic=off -cp "%%~dp0app\memorygame.jar;%%~dp0app\mysql-connector-j.jar" MemoryGameApp %%*
+) > %DIST%\memorygame.bat
+
+echo Training AppCDS archive...
+call %DIST%\memorygame.bat --startupProbe=true
+
+echo Done: %DIST%\memorygame.bat
+endlocal
@@ -0,0 +1,59 @@
+#!/bin/sh
+# Build a self-contained, fast-starting Memory Game under dist/:
+#   dist/runtime       jlink image with only the JDK and JavaFX modules the game uses
+#   dist/app           memorygame.jar, the MySQL connector and the AppCDS archive
+#   dist/memorygame    launcher
+#
+# Needs a JDK 24+ (JavaFX 25) in JAVA_HOME and the JavaFX jmods: the SDK jars in lib/ carry no
+# native libraries, so jlink cannot build a working image from them. Download javafx-jmods-25.0.1
+# from gluonhq.com into lib/ or point JAVAFX_JMODS at it.
+#
+# The AppCDS archive comes from a training run that starts the game to the main menu and exits
+# (--startupProbe=true), so the DB settings in memorygame.properties should reach a database.
+# Compare startup with: java -cp out/classes StartupBenchmark dist/memorygame
+set -e
+cd "$(dirname "$0")"
+
+JAVA_HOME=${JAVA_HOME:?set JAVA_HOME to a JDK 24 or newer}
+JAVAFX_LIB=${JAVAFX_LIB:-lib/javafx-sdk-25.0.1/lib}
+JAVAFX_JMODS=${JAVAFX_JMODS:-lib/javafx-jmods-25.0.1}
+MYSQL_CONNECTOR=lib/mysql-connector-j-9.5.0.jar
+OUT=out
+DIST=dist
+
+# From jdeps over the app and the connector, plus jdk.crypto.ec for TLS, which is loaded as a
+# service and so invisible to jdeps
+MODULES=java.sql,java.naming,java.management,java.security.sasl,jdk.jfr,jdk.crypto.ec,javafx.controls,javafx.media
+
+if [ ! -d "$JAVAFX_JMODS" ]; then
+    echo "JavaFX jmods not found in $JAVAFX_JMODS" >&2
+    exit 1
+fi
+
+echo "Compiling..."
+rm -rf "$OUT" "$DIST"
+mkdir -p "$OUT/classes" "$DIST/app"
+"$JAVA_HOME/bin/javac" --module-path "$JAVAFX_LIB" --add-modules javafx.controls,javafx.media \
+    -cp "$MYSQL_CONNECTOR" -d "$OUT/classes" src/*.java
+"$JAVA_HOME/bin/jar" --create --file "$DIST/app/memorygame.jar" --main-class MemoryGameApp -C "$OUT/classes" .
+cp "$MYSQL_CONNECTOR" "$DIST/app/mysql-connector-j.jar"
+
+echo "Linking runtime..."
+"$JAVA_HOME/bin/jlink" --module-path "$JAVAFX_JMODS" --add-modules "$MODULES" \
+    --strip-debug --no-header-files --no-man-pages --compress zip-6 \
+    --generate-cds-archive --output "$DIST/runtime"
+
+cat > "$DIST/memorygame" <<'EOF'
+#!/bin/sh
+# AutoCreateSharedArchive rebuilds the archive if it is missing or stale (e.g. dist/ was moved)
+DIR=$(cd "$(dirname "$0")" && pwd)
+exec "$DIR/runtime/bin/java" -XX:SharedArchiveFile="$DIR/app/memorygame.jsa" -XX:+AutoCreateSharedArchive \
+    -Xlog:cds=off -Xlog:cds+dynamic=off \
+    -cp "$DIR/app/memorygame.jar:$DIR/app/mysql-connector-j.jar" MemoryGameApp "$@"
+EOF
+chmod +x "$DIST/memorygame"
+
+echo "Training AppCDS archive..."
+"$DIST/memorygame" --startupProbe=true
+
+echo "Done: $DIST/memorygame ($(du -sh "$DIST" | cut -f1))"
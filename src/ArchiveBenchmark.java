@@ -0,0 +1,180 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Insert and query cost of a score store before and after archiving cold months.
+ *
+ * Loads ROWS sessions spread evenly over MONTHS months ending now, measures insert throughput
+ * and query latency with the whole history hot, archives all but the newest HOT months with
+ * SessionArchiver, then measures again. Also reports archive size and scan speed.
+ *
+ * Usage: java ArchiveBenchmark [embedded|mysql] [rows] [months] [hot]
+ * Defaults: embedded, 50,000,000 rows, 24 months, 3 hot months. The embedded store keeps every
+ * hot session in memory (about 250 bytes each), so size -Xmx for the row count. MySQL runs use
+ * -Dmemorygame.dbName (default memorygame_archive_bench).
+ */
+public class ArchiveBenchmark {
+    private static final PrintStream OUT = System.out;
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+    private static final int CHUNK = 10_000;
+    private static final int PROBE_ROWS = 50_000;
+    private static final int QUERIES = 200;
+    private static final String[] DIFFICULTIES = {"EASY", "MEDIUM", "HARD"};
+
+    private final ScoreStore store;
+    private final Random random = new Random(7);
+    private int[] players;
+
+    private ArchiveBenchmark(ScoreStore store) {
+        this.store = store;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String kind = args.length > 0 ? args[0] : "embedded";
+        long rows = args.length > 1 ? Long.parseLong(args[1]) : 50_000_000L;
+        int months = args.length > 2 ? Integer.parseInt(args[2]) : 24;
+        int hot = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        ScoreStore store;
+        if (kind.equals("mysql")) {
+            if (System.getProperty("memorygame.dbName") == null) {
+                System.setProperty("memorygame.dbName", "memorygame_archive_bench");
+            }
+            store = DatabaseHelper.createStore("mysql");
+        } else {
+            store = new EmbeddedScoreStore(Files.createTempDirectory("archive-bench"), false, Integer.MAX_VALUE);
+        }
+        Path archiveDir = Files.createTempDirectory("archive-bench-files");
+
+        OUT.printf("%s: %,d sessions over %d months, %d hot%n", store.getName(), rows, months, hot);
+        System.setOut(DISCARD);
+        try {
+            store.initialize();
+            ArchiveBenchmark bench = new ArchiveBenchmark(store);
+            bench.load(rows, months);
+            bench.measure("before");
+
+            long start = System.nanoTime();
+            SessionArchiver archiver = new SessionArchiver(store, archiveDir);
+            long archived = archiver.archive(hot);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long bytes = 0;
+            for (YearMonth month : archiver.months()) {
+                bytes += Files.size(SessionArchiver.fileFor(archiveDir, month));
+            }
+            OUT.printf("  archive: %,d sessions in %.1f s (%,.0f rows/s), %,d bytes (%.2f bytes/session)%n",
+                archived, seconds, archived / seconds, bytes, (double) bytes / Math.max(1, archived));
+
+            bench.measure("after");
+            bench.scan(archiver);
+        } finally {
+            System.setOut(OUT);
+            store.close();
+        }
+    }
+
+    private void load(long rows, int months) {
+        int playerCount = (int) Math.max(1, Math.min(rows / 100, 1_000_000));
+        List<String> names = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            names.add("bench-" + i);
+        }
+        players = new int[playerCount];
+        for (int start = 0; start < playerCount; start += CHUNK) {
+            int[] ids = store.createPlayers(names.subList(start, Math.min(playerCount, start + CHUNK)));
+            System.arraycopy(ids, 0, players, start, ids.length);
+        }
+
+        long now = System.currentTimeMillis();
+        long span = months * 30L * 24 * 3600 * 1000;
+        long begin = System.nanoTime();
+        long loaded = 0;
+        List<ScoreStore.SessionRecord> chunk = new ArrayList<>(CHUNK);
+        while (loaded < rows) {
+            chunk.clear();
+            for (int i = 0; i < CHUNK && loaded + i < rows; i++) {
+                chunk.add(session(now - (long) (random.nextDouble() * span)));
+            }
+            store.saveGameSessions(chunk);
+            loaded += chunk.size();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        OUT.printf("  load: %,d sessions in %.1f s (%,.0f rows/s)%n", loaded, seconds, loaded / seconds);
+    }
+
+    private ScoreStore.SessionRecord session(long playedAt) {
+        return new ScoreStore.SessionRecord(players[random.nextInt(players.length)], null, random.nextInt(2000),
+            10 + random.nextInt(300), 8 + random.nextInt(60), DIFFICULTIES[random.nextInt(3)], playedAt);
+    }
+
+    private void measure(String label) {
+        long begin = System.nanoTime();
+        List<ScoreStore.SessionRecord> chunk = new ArrayList<>(CHUNK);
+        for (int done = 0; done < PROBE_ROWS; done += CHUNK) {
+            chunk.clear();
+            for (int i = 0; i < CHUNK; i++) {
+                chunk.add(session(System.currentTimeMillis()));
+            }
+            store.saveGameSessions(chunk);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        OUT.printf("  %s: insert %,.0f rows/s%n", label, PROBE_ROWS / seconds);
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        OUT.printf("  %s: heap used %,d MB%n", label, (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+
+        report(label, "session leaderboard", i -> store.getLeaderboard(DIFFICULTIES[i % 3], 10));
+        report(label, "best per player", i -> store.getBestPerPlayerLeaderboard(DIFFICULTIES[i % 3], 10));
+        report(label, "weekly board", i -> store.getPeriodLeaderboard(LeaderboardPeriod.WEEKLY, DIFFICULTIES[i % 3], 10));
+        report(label, "player best score",
+            i -> store.getPlayerBestScore(players[random.nextInt(players.length)], DIFFICULTIES[i % 3]));
+    }
+
+    private interface Query {
+        void run(int i);
+    }
+
+    private void report(String label, String name, Query query) {
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long t = System.nanoTime();
+            query.run(i);
+            latencies[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(latencies);
+        OUT.printf("  %s: %-20s p50 %8.3f ms  p99 %8.3f ms%n", label, name,
+            latencies[QUERIES / 2] / 1e6, latencies[QUERIES * 99 / 100] / 1e6);
+    }
+
+    private void scan(SessionArchiver archiver) throws IOException {
+        List<YearMonth> months = archiver.months();
+        if (months.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long[] total = new long[1];
+        long rows = archiver.forEachArchived(months.get(0), months.get(months.size() - 1), r -> total[0] += r.score);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        OUT.printf("  archive scan, all columns: %,.0f rows/s%n", rows / seconds);
+
+        // Columnar: a score histogram only needs to inflate the score column
+        start = System.nanoTime();
+        rows = 0;
+        for (YearMonth month : months) {
+            Path file = SessionArchiver.fileFor(archiver.getDirectory(), month);
+            SessionArchive.Reader reader = new SessionArchive.Reader(file);
+            long[] scores = reader.column(SessionArchive.SCORE);
+            rows += scores.length;
+        }
+        seconds = (System.nanoTime() - start) / 1e9;
+        OUT.printf("  archive scan, score column only: %,.0f rows/s%n", rows / seconds);
+    }
+}
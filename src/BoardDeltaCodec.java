@@ -0,0 +1,240 @@
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes board events as small self-delimiting delta frames, plus periodic keyframes
+ * that carry the whole board so late joiners and lagging spectators can resync.
+ *
+ * Frame format: [op:u8][seq:varint][args:varint...]
+ *   FLIP index cardId | HIDE index | MATCH a b | SCORE score moves | TICK seconds
+ *   RESET total cols
+ *   KEYFRAME total cols seconds score moves [state:2 bits per card] [cardId per non-hidden card]
+ */
+public class BoardDeltaCodec {
+    public static final byte FLIP = 0x01;
+    public static final byte HIDE = 0x02;
+    public static final byte MATCH = 0x03;
+    public static final byte SCORE = 0x04;
+    public static final byte TICK = 0x05;
+    public static final byte RESET = 0x06;
+    public static final byte KEYFRAME = 0x10;
+
+    public static final int STATE_HIDDEN = 0;
+    public static final int STATE_UP = 1;
+    public static final int STATE_MATCHED = 2;
+
+    // Shadow of the producer's board, used only to build keyframes
+    private byte[] states = new byte[0];
+    private int[] cardIds = new int[0];
+    private int cols;
+    private int timeSeconds;
+    private int score;
+    private int moves;
+    private long seq;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+    public byte[] reset(int totalCards, int cols) {
+        this.states = new byte[totalCards];
+        this.cardIds = new int[totalCards];
+        this.cols = cols;
+        this.timeSeconds = 0;
+        this.score = 0;
+        this.moves = 0;
+        return frame(RESET, totalCards, cols);
+    }
+
+    public byte[] flip(int index, int cardId) {
+        states[index] = STATE_UP;
+        cardIds[index] = cardId;
+        return frame(FLIP, index, cardId);
+    }
+
+    public byte[] hide(int index) {
+        states[index] = STATE_HIDDEN;
+        return frame(HIDE, index);
+    }
+
+    public byte[] match(int a, int b) {
+        states[a] = STATE_MATCHED;
+        states[b] = STATE_MATCHED;
+        return frame(MATCH, a, b);
+    }
+
+    public byte[] score(int score, int moves) {
+        this.score = score;
+        this.moves = moves;
+        return frame(SCORE, score, moves);
+    }
+
+    public byte[] tick(int seconds) {
+        this.timeSeconds = seconds;
+        return frame(TICK, seconds);
+    }
+
+    /**
+     * Encode the full board. Cost is proportional to board size, so callers emit
+     * these on an interval rather than per event.
+     */
+    public byte[] keyframe() {
+        out.reset();
+        out.write(KEYFRAME);
+        writeVarLong(out, seq++);
+        writeVarInt(out, states.length);
+        writeVarInt(out, cols);
+        writeVarInt(out, timeSeconds);
+        writeVarInt(out, score);
+        writeVarInt(out, moves);
+        int packed = 0;
+        for (int i = 0; i < states.length; i++) {
+            packed |= states[i] << ((i & 3) * 2);
+            if ((i & 3) == 3 || i == states.length - 1) {
+                out.write(packed);
+                packed = 0;
+            }
+        }
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] != STATE_HIDDEN) {
+                writeVarInt(out, cardIds[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] frame(byte op, int... args) {
+        out.reset();
+        out.write(op);
+        writeVarLong(out, seq++);
+        for (int arg : args) {
+            writeVarInt(out, arg);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+
+    static int readVarInt(ByteBuffer in) {
+        return (int) readVarLong(in);
+    }
+
+    /**
+     * Spectator-side reconstruction of a board from a frame stream.
+     */
+    public static class Mirror {
+        private byte[] states = new byte[0];
+        private int[] cardIds = new int[0];
+        private int cols;
+        private int timeSeconds;
+        private int score;
+        private int moves;
+        private long lastSeq = -1;
+        private boolean synced;
+
+        /**
+         * Apply every frame in the buffer. Deltas seen before the first keyframe are skipped.
+         */
+        public void apply(ByteBuffer in) {
+            while (in.hasRemaining()) {
+                byte op = in.get();
+                long seq = readVarLong(in);
+                switch (op) {
+                    case FLIP -> {
+                        int index = readVarInt(in);
+                        int cardId = readVarInt(in);
+                        if (synced) {
+                            states[index] = STATE_UP;
+                            cardIds[index] = cardId;
+                        }
+                    }
+                    case HIDE -> {
+                        int index = readVarInt(in);
+                        if (synced) {
+                            states[index] = STATE_HIDDEN;
+                        }
+                    }
+                    case MATCH -> {
+                        int a = readVarInt(in);
+                        int b = readVarInt(in);
+                        if (synced) {
+                            states[a] = STATE_MATCHED;
+                            states[b] = STATE_MATCHED;
+                        }
+                    }
+                    case SCORE -> {
+                        score = readVarInt(in);
+                        moves = readVarInt(in);
+                    }
+                    case TICK -> timeSeconds = readVarInt(in);
+                    case RESET -> {
+                        int total = readVarInt(in);
+                        cols = readVarInt(in);
+                        states = new byte[total];
+                        cardIds = new int[total];
+                        timeSeconds = 0;
+                        score = 0;
+                        moves = 0;
+                        synced = true;
+                    }
+                    case KEYFRAME -> readKeyframe(in);
+                    default -> throw new IllegalArgumentException("Unknown frame op " + op);
+                }
+                lastSeq = seq;
+            }
+        }
+
+        private void readKeyframe(ByteBuffer in) {
+            int total = readVarInt(in);
+            cols = readVarInt(in);
+            timeSeconds = readVarInt(in);
+            score = readVarInt(in);
+            moves = readVarInt(in);
+            states = new byte[total];
+            cardIds = new int[total];
+            int packed = 0;
+            for (int i = 0; i < total; i++) {
+                if ((i & 3) == 0) {
+                    packed = in.get() & 0xFF;
+                }
+                states[i] = (byte) ((packed >> ((i & 3) * 2)) & 3);
+            }
+            for (int i = 0; i < total; i++) {
+                if (states[i] != STATE_HIDDEN) {
+                    cardIds[i] = readVarInt(in);
+                }
+            }
+            synced = true;
+        }
+
+        public boolean isSynced() { return synced; }
+        public int getTotalCards() { return states.length; }
+        public int getCols() { return cols; }
+        public int getState(int index) { return states[index]; }
+        public int getCardId(int index) { return cardIds[index]; }
+        public int getTimeSeconds() { return timeSeconds; }
+        public int getScore() { return score; }
+        public int getMoves() { return moves; }
+        public long getLastSeq() { return lastSeq; }
+    }
+}
@@ -0,0 +1,155 @@
+import javafx.application.Platform;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timers for every board in the process: game clocks and mismatch flip-backs.
+ *
+ * One daemon "board-scheduler" thread keeps all boards' timers in a queue ordered by due time.
+ * When the first is due it takes every timer due within the next frame (1 / maxFps) and runs
+ * them in a single runLater, in due order. Whatever they change is drawn in the same pulse
+ * either way, so a kiosk wall of 16 running boards costs about one FX hop per frame that has
+ * work rather than one per board per tick, and no board's timers can starve another's.
+ */
+public final class BoardScheduler {
+    private static final Metrics.Counter BATCHES = Metrics.counter("board.scheduler.batches");
+    private static final Metrics.Counter RUN = Metrics.counter("board.scheduler.tasks");
+    private static final Metrics.Histogram BATCH_LATENCY = Metrics.histogram("board.scheduler.batch");
+
+    private static final class Holder {
+        static final BoardScheduler INSTANCE = new BoardScheduler();
+    }
+
+    private final PriorityQueue<Task> queue = new PriorityQueue<>((a, b) -> Long.compare(a.due, b.due));
+    private final Thread thread;
+    private final long frameNanos;
+
+    /**
+     * A scheduled action. Cancelling stops it even if it is already queued for the FX thread.
+     */
+    public final class Task {
+        private final Runnable action;
+        private final long periodNanos;
+        private long due;
+        private volatile boolean cancelled;
+
+        private Task(Runnable action, long due, long periodNanos) {
+            this.action = action;
+            this.due = due;
+            this.periodNanos = periodNanos;
+        }
+
+        /**
+         * @return Milliseconds until it would next have run, so a clock can resume mid-second
+         */
+        public long cancel() {
+            cancelled = true;
+            synchronized (BoardScheduler.this) {
+                queue.remove(this);
+                return Math.max(0, TimeUnit.NANOSECONDS.toMillis(due - System.nanoTime()));
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private BoardScheduler() {
+        this.frameNanos = 1_000_000_000L / GameConfig.get(GameConfig.MAX_FPS);
+        this.thread = new Thread(this::runLoop, "board-scheduler");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public static BoardScheduler getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Run action once on the FX thread after delayMillis.
+     */
+    public Task once(long delayMillis, Runnable action) {
+        return add(action, delayMillis, 0);
+    }
+
+    /**
+     * Run action on the FX thread every periodMillis, first after initialDelayMillis. Runs are
+     * at a fixed rate; one that falls a whole period behind is skipped rather than bunched.
+     */
+    public Task every(long initialDelayMillis, long periodMillis, Runnable action) {
+        return add(action, initialDelayMillis, TimeUnit.MILLISECONDS.toNanos(periodMillis));
+    }
+
+    private synchronized Task add(Runnable action, long delayMillis, long periodNanos) {
+        Task task = new Task(action, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis), periodNanos);
+        queue.add(task);
+        if (queue.peek() == task) {
+            LockSupport.unpark(thread);
+        }
+        return task;
+    }
+
+    private void runLoop() {
+        while (true) {
+            ArrayList<Task> batch = takeDue();
+            if (batch == null) {
+                continue;
+            }
+            BATCHES.increment();
+            Platform.runLater(() -> runBatch(batch));
+        }
+    }
+
+    /**
+     * Wait for the earliest timer, then take it and everything due within a frame of now.
+     * @return The batch, or null if woken early (a sooner timer was added)
+     */
+    private ArrayList<Task> takeDue() {
+        long wait;
+        synchronized (this) {
+            Task head = queue.peek();
+            long now = System.nanoTime();
+            if (head != null && head.due <= now) {
+                ArrayList<Task> batch = new ArrayList<>();
+                long horizon = now + frameNanos;
+                while (!queue.isEmpty() && queue.peek().due <= horizon) {
+                    batch.add(queue.poll());
+                }
+                // Re-queue repeating timers after the scan so each runs at most once per batch
+                for (Task task : batch) {
+                    if (task.periodNanos > 0) {
+                        task.due += task.periodNanos;
+                        if (task.due <= now) {
+                            task.due += (now - task.due) / task.periodNanos * task.periodNanos + task.periodNanos;
+                        }
+                        queue.add(task);
+                    }
+                }
+                return batch;
+            }
+            wait = head == null ? Long.MAX_VALUE : head.due - now;
+        }
+        LockSupport.parkNanos(this, wait);
+        return null;
+    }
+
+    private static void runBatch(ArrayList<Task> batch) {
+        long start = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            Task task = batch.get(i);
+            if (task.cancelled) {
+                continue;
+            }
+            try {
+                task.action.run();
+                RUN.increment();
+            } catch (RuntimeException e) {
+                Log.error("board.scheduler.taskFailed").error(e).log();
+            }
+        }
+        BATCH_LATENCY.recordSince(start);
+    }
+}
@@ -3,18 +3,21 @@ import javafx.animation.RotateTransition;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.scene.control.Button;
+import javafx.scene.image.ImageView;
 import javafx.util.Duration;
 
 /**
  * Represents a card in the memory matching game.
- * Each card has an ID, can be flipped, matched, and animated.
+ * Each card has an ID, can be flipped, matched, and animated. With a picture deck the face is a
+ * viewport onto the deck's shared atlas; without one it is the ID as text.
  */
 public class Card {
     private int id;
     private Button button;
     private BooleanProperty isFlipped;
     private BooleanProperty isMatched;
-    private String imageUrl;
+    private DeckAtlas deck;
+    private ImageView faceView;
     
     // Card styling constants
     private static final String HIDDEN_STYLE = 
@@ -23,6 +26,8 @@ public class Card {
         "-fx-background-radius: 10; -fx-border-radius: 10; " +
         "-fx-border-color: #2E5C8A; -fx-border-width: 2;";
     
+    private static final String HOVER_STYLE = HIDDEN_STYLE.replace("#4A90E2", "#5BA0F2");
+    
     private static final String SHOWN_STYLE = 
         "-fx-font-size: 24px; -fx-font-weight: bold; " +
         "-fx-background-color: #7ED321; -fx-text-fill: white; " +
@@ -40,17 +45,19 @@ public class Card {
         this.id = id;
         this.isFlipped = new SimpleBooleanProperty(false);
         this.isMatched = new SimpleBooleanProperty(false);
-        this.imageUrl = null;
+        this.deck = null;
         
         this.button = new Button("?");
-        this.button.setPrefSize(100, 100);
-        this.button.setMinSize(80, 80);
+        int size = GameConfig.get(GameConfig.CARD_SIZE);
+        int minSize = Math.min(size, GameConfig.get(GameConfig.CARD_MIN_SIZE));
+        this.button.setPrefSize(size, size);
+        this.button.setMinSize(minSize, minSize);
         this.button.setStyle(HIDDEN_STYLE);
         
-        // Add hover effect
+        // Add hover effect (enter/exit only, with a prebuilt style string)
         this.button.setOnMouseEntered(e -> {
             if (!isFlipped.get() && !isMatched.get()) {
-                button.setStyle(HIDDEN_STYLE.replace("#4A90E2", "#5BA0F2"));
+                button.setStyle(HOVER_STYLE);
             }
         });
         
@@ -65,6 +72,13 @@ public class Card {
         return id; 
     }
     
+    /**
+     * Assign the face value once it is known (multiplayer cards start face-down with no ID).
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+    
     public Button getButton() { 
         return button; 
     }
@@ -97,40 +111,83 @@ public class Card {
         return isFlipped;
     }
     
-    public String getImageUrl() {
-        return imageUrl;
+    public DeckAtlas getDeck() {
+        return deck;
     }
     
-    public void setImageUrl(String imageUrl) {
-        this.imageUrl = imageUrl;
+    /**
+     * Show faces from a picture deck, or numbers for null. A card already face up switches now.
+     */
+    public void setDeck(DeckAtlas deck) {
+        this.deck = deck;
+        if (isFlipped.get() || isMatched.get()) {
+            showFace();
+        }
+    }
+    
+    private void showFace() {
+        if (deck == null) {
+            button.setGraphic(null);
+            button.setText(String.valueOf(id));
+            return;
+        }
+        if (faceView == null) {
+            faceView = new ImageView();
+            faceView.setPreserveRatio(true);
+            faceView.setSmooth(true);
+        }
+        // Fit to the configured size in case the deck was decoded for an older card size
+        int faceSize = DeckCache.faceSize();
+        faceView.setFitWidth(faceSize);
+        faceView.setFitHeight(faceSize);
+        faceView.setImage(deck.getImage());
+        faceView.setViewport(deck.viewport(id));
+        button.setText("");
+        button.setGraphic(faceView);
+    }
+    
+    private void showBack() {
+        button.setGraphic(null);
+        button.setText("?");
     }
 
     /**
      * Flip the card to show its value with animation.
      */
     public void flip() {
+        flip(null);
+    }
+    
+    /**
+     * Flip the card and run a callback once its face is actually shown.
+     */
+    public void flip(Runnable onFaceShown) {
         if (isMatched.get()) {
             return;
         }
         
         isFlipped.set(true);
-        button.setText(String.valueOf(id));
+        showFace();
         
         // Play flip sound
         SoundManager.getInstance().playFlipSound();
         
         // Fade transition for smooth flip
-        FadeTransition fadeOut = new FadeTransition(Duration.millis(150), button);
+        int fadeMillis = GameConfig.get(GameConfig.FADE_MILLIS);
+        FadeTransition fadeOut = new FadeTransition(Duration.millis(fadeMillis), button);
         fadeOut.setFromValue(1.0);
         fadeOut.setToValue(0.5);
         
-        FadeTransition fadeIn = new FadeTransition(Duration.millis(150), button);
+        FadeTransition fadeIn = new FadeTransition(Duration.millis(fadeMillis), button);
         fadeIn.setFromValue(0.5);
         fadeIn.setToValue(1.0);
         
         fadeOut.setOnFinished(e -> {
             button.setStyle(SHOWN_STYLE);
             fadeIn.play();
+            if (onFaceShown != null) {
+                onFaceShown.run();
+            }
         });
         
         fadeOut.play();
@@ -147,16 +204,17 @@ public class Card {
         isFlipped.set(false);
         
         // Fade transition for smooth flip back
-        FadeTransition fadeOut = new FadeTransition(Duration.millis(150), button);
+        int fadeMillis = GameConfig.get(GameConfig.FADE_MILLIS);
+        FadeTransition fadeOut = new FadeTransition(Duration.millis(fadeMillis), button);
         fadeOut.setFromValue(1.0);
         fadeOut.setToValue(0.5);
         
-        FadeTransition fadeIn = new FadeTransition(Duration.millis(150), button);
+        FadeTransition fadeIn = new FadeTransition(Duration.millis(fadeMillis), button);
         fadeIn.setFromValue(0.5);
         fadeIn.setToValue(1.0);
         
         fadeOut.setOnFinished(e -> {
-            button.setText("?");
+            showBack();
             button.setStyle(HIDDEN_STYLE);
             fadeIn.play();
         });
@@ -173,7 +231,7 @@ public class Card {
         }
         
         isFlipped.set(true);
-        button.setText(String.valueOf(id));
+        showFace();
         button.setStyle(SHOWN_STYLE);
     }
 
@@ -183,7 +241,7 @@ public class Card {
     public void reset() {
         isFlipped.set(false);
         isMatched.set(false);
-        button.setText("?");
+        showBack();
         button.setStyle(HIDDEN_STYLE);
         button.setDisable(false);
         button.setOpacity(1.0);
@@ -0,0 +1,283 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Small JDBC connection pool with a prepared statement cache on every connection.
+ *
+ * A PreparedStatement belongs to one connection, so each pooled connection keeps its own
+ * LRU of statements keyed by query shape (the SQL text, plus whether generated keys are
+ * requested). Connections live as long as the pool, so a shape is parsed once per connection
+ * and then reused by every caller that borrows it. Callers must not close cached statements;
+ * they close only their ResultSets and the Lease.
+ */
+public class ConnectionPool implements AutoCloseable {
+    public static final int DEFAULT_SIZE = 4;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+    /** Idle connections older than this are validated before they are handed out. */
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private int maxSize;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<Pooled> idle = new ArrayDeque<>();
+    private int open = 0;
+    private boolean closed = false;
+    private long statementHits = 0;
+    private long statementMisses = 0;
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int statementCacheSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    private final class Pooled {
+        final Connection connection;
+        final LinkedHashMap<String, PreparedStatement> statements;
+        long returnedAt = System.nanoTime();
+
+        Pooled(Connection connection) {
+            this.connection = connection;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    try {
+                        eldest.getValue().close();
+                    } catch (SQLException ignored) {
+                    }
+                    return true;
+                }
+            };
+        }
+
+        void close() {
+            try {
+                connection.close(); // also closes its statements
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /**
+     * A borrowed connection. Closing it returns the connection to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+        private Pooled pooled;
+
+        private Lease(Pooled pooled) {
+            this.pooled = pooled;
+        }
+
+        public Connection connection() {
+            return pooled.connection;
+        }
+
+        /**
+         * @return The cached statement for this SQL, prepared on first use
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            return prepare(sql, Statement.NO_GENERATED_KEYS);
+        }
+
+        public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+            PreparedStatement stmt = pooled.statements.get(key);
+            if (stmt != null) {
+                countStatement(true);
+                // A failed executeBatch may leave rows queued
+                stmt.clearBatch();
+                return stmt;
+            }
+            countStatement(false);
+            stmt = pooled.connection.prepareStatement(sql, autoGeneratedKeys);
+            pooled.statements.put(key, stmt);
+            return stmt;
+        }
+
+        @Override
+        public void close() {
+            if (pooled != null) {
+                release(pooled);
+                pooled = null;
+            }
+        }
+    }
+
+    /**
+     * Borrow a connection, opening a new one if none is idle and the pool is not full.
+     * @throws SQLException if no connection frees up within 30 seconds
+     */
+    public Lease borrow() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(BORROW_TIMEOUT_SECONDS);
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                Pooled pooled = idle.pollLast();
+                if (pooled != null) {
+                    if (System.nanoTime() - pooled.returnedAt < VALIDATE_AFTER_NANOS || isValid(pooled)) {
+                        return new Lease(pooled);
+                    }
+                    pooled.close();
+                    open--;
+                    continue;
+                }
+                if (open < maxSize) {
+                    open++;
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new SQLException("Timed out waiting for a database connection");
+                }
+                available.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        } finally {
+            lock.unlock();
+        }
+
+        // Connect outside the lock; give the slot back if it fails
+        try {
+            return new Lease(new Pooled(DriverManager.getConnection(url, user, password)));
+        } catch (SQLException e) {
+            lock.lock();
+            try {
+                open--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isValid(Pooled pooled) {
+        try {
+            return pooled.connection.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Undo anything a caller left behind (an open transaction), or drop the connection if it is broken.
+     */
+    private void release(Pooled pooled) {
+        boolean healthy;
+        try {
+            if (!pooled.connection.getAutoCommit()) {
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            healthy = !pooled.connection.isClosed();
+        } catch (SQLException e) {
+            healthy = false;
+        }
+        lock.lock();
+        try {
+            if (healthy && !closed && open <= maxSize) {
+                pooled.returnedAt = System.nanoTime();
+                idle.addLast(pooled);
+            } else {
+                pooled.close();
+                open--;
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Change the pool size. Shrinking closes idle connections over the new size now and
+     * borrowed ones as they come back.
+     */
+    public void setMaxSize(int maxSize) {
+        lock.lock();
+        try {
+            this.maxSize = maxSize;
+            while (open > maxSize && !idle.isEmpty()) {
+                idle.pollFirst().close();
+                open--;
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void countStatement(boolean hit) {
+        lock.lock();
+        try {
+            if (hit) {
+                statementHits++;
+            } else {
+                statementMisses++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getStatementHits() {
+        lock.lock();
+        try {
+            return statementHits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getStatementMisses() {
+        lock.lock();
+        try {
+            return statementMisses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close idle connections now and borrowed ones as they come back.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            for (Pooled pooled : idle) {
+                pooled.close();
+                open--;
+            }
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
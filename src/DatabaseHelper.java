@@ -1,97 +1,150 @@
-import java.sql.*;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Database helper class for managing MySQL database connections and operations
- * for the Memory Match Game.
+ * Database helper class for the Memory Match Game.
+ * Static facade over the configured ScoreStore: MySQL by default, or the embedded
+ * file-backed store with store=embedded (directory from storeDir). Connection settings
+ * come from GameConfig.
  */
 public class DatabaseHelper {
-    private static final String DB_NAME = "memorygame";
-    private static final String BASE_URL = "jdbc:mysql://localhost:3306/";
-    private static final String URL = BASE_URL + DB_NAME;
-    private static final String USER = "root"; // your MySQL username
-    private static final String PASSWORD = "arnav2006"; // your MySQL password
+    private static final long RANKING_RETRY_MIN_MILLIS = 1000;
+    private static final long RANKING_RETRY_MAX_MILLIS = 60_000;
+
+    private static ScoreStore store;
+    private static ScoreRanking ranking;
+    private static boolean rankingReloads;
+    private static long rankingReloadAt;
+    private static long rankingRetryMillis = RANKING_RETRY_MIN_MILLIS;
+    private static final PlayerIdCache playerIds = new PlayerIdCache(GameConfig.get(GameConfig.PLAYER_CACHE_SIZE));
     
-    private static boolean initialized = false;
+    private static final Metrics.Histogram CREATE_PLAYER_LATENCY = Metrics.histogram("db.createPlayer");
+    private static final Metrics.Histogram SAVE_SESSION_LATENCY = Metrics.histogram("db.saveGameSession");
+    private static final Metrics.Histogram FINISH_GAME_LATENCY = Metrics.histogram("db.finishGame");
+    private static final Metrics.Histogram LEADERBOARD_LATENCY = Metrics.histogram("db.getLeaderboard");
+    private static final Metrics.Histogram BEST_PER_PLAYER_LATENCY = Metrics.histogram("db.getBestPerPlayerLeaderboard");
+    private static final Metrics.Histogram PERIOD_LATENCY = Metrics.histogram("db.getPeriodLeaderboard");
+    private static final Metrics.Histogram BEST_SCORE_LATENCY = Metrics.histogram("db.getPlayerBestScore");
+    private static final Metrics.Counter RANKING_LOAD_FAILURES = Metrics.counter("db.rankingLoadFailures");
 
     static {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            System.err.println("MySQL JDBC Driver not found!");
-            e.printStackTrace();
+        // Resize the pool in place when the config file changes
+        GameConfig.addListener(GameConfig.DB_POOL_SIZE, size -> {
+            synchronized (DatabaseHelper.class) {
+                if (store instanceof MySqlScoreStore) {
+                    ((MySqlScoreStore) store).setPoolSize(size);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get the active store, creating it from GameConfig on first use.
+     */
+    public static synchronized ScoreStore getStore() {
+        if (store == null) {
+            store = createStore(GameConfig.get(GameConfig.STORE));
         }
+        return store;
     }
 
     /**
-     * Initialize the database and create tables if they don't exist.
-     * This method is called automatically on first connection.
+     * Replace the active store, closing the previous one. Used by tools and the conformance suite.
      */
-    public static void initializeDatabase() {
-        if (initialized) {
-            return;
+    public static synchronized void setStore(ScoreStore newStore) {
+        if (store != null && store != newStore) {
+            store.close();
         }
+        store = newStore;
+        resetRanking();
+        playerIds.clear();
+    }
 
-        try {
-            // First, connect without database to create it if needed
-            try (Connection conn = DriverManager.getConnection(BASE_URL, USER, PASSWORD);
-                 Statement stmt = conn.createStatement()) {
-                
-                // Create database if it doesn't exist
-                stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + DB_NAME);
-                System.out.println("Database '" + DB_NAME + "' ready.");
-            }
+    /**
+     * Create a store by name: "mysql" or "embedded".
+     * The MySQL server, database name, credentials and pool size come from GameConfig.
+     */
+    public static ScoreStore createStore(String kind) {
+        if ("embedded".equalsIgnoreCase(kind)) {
+            return new EmbeddedScoreStore(Paths.get(GameConfig.get(GameConfig.STORE_DIR)));
+        }
+        String password = null;
+        if (GameConfig.isSet(GameConfig.DB_PASSWORD)) {
+            password = GameConfig.get(GameConfig.DB_PASSWORD);
+        } else {
+            Log.warn("db.disabled")
+                .field("reason", "dbPassword not set; add it to " + GameConfig.DEFAULT_FILE
+                    + ", MEMORYGAME_DB_PASSWORD or -Dmemorygame.dbPassword")
+                .log();
+        }
+        return new MySqlScoreStore(GameConfig.get(GameConfig.DB_URL), GameConfig.get(GameConfig.DB_NAME),
+            GameConfig.get(GameConfig.DB_USER), password, GameConfig.get(GameConfig.DB_POOL_SIZE));
+    }
 
-            // Now connect to the database and create tables
-            try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-                 Statement stmt = conn.createStatement()) {
-                
-                // Create players table
-                String createPlayersTable = """
-                    CREATE TABLE IF NOT EXISTS players (
-                        player_id INT PRIMARY KEY AUTO_INCREMENT,
-                        username VARCHAR(50) UNIQUE NOT NULL,
-                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                    )
-                    """;
-                stmt.executeUpdate(createPlayersTable);
-                System.out.println("Table 'players' ready.");
+    /**
+     * Initialize the database and create tables if they don't exist.
+     */
+    public static void initializeDatabase() {
+        getStore().initialize();
+        Log.info("store.selected").field("store", getStore().getName()).log();
+        getRanking();
+    }
 
-                // Create game_sessions table
-                String createSessionsTable = """
-                    CREATE TABLE IF NOT EXISTS game_sessions (
-                        session_id INT PRIMARY KEY AUTO_INCREMENT,
-                        player_id INT,
-                        score INT NOT NULL,
-                        time_seconds INT NOT NULL,
-                        moves INT NOT NULL,
-                        difficulty VARCHAR(20),
-                        played_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                        FOREIGN KEY (player_id) REFERENCES players(player_id) ON DELETE CASCADE
-                    )
-                    """;
-                stmt.executeUpdate(createSessionsTable);
-                System.out.println("Table 'game_sessions' ready.");
-                
-                initialized = true;
-                System.out.println("Database initialization complete!");
+    /**
+     * Get the rank index, building it from the store's player bests on first use.
+     * Afterwards it is updated by every session saved through this class.
+     *
+     * If the scan fails part way, whatever it read is kept and updated like a full index, and
+     * the scan is retried with a doubling back-off (1 s to 1 min); a successful one replaces it.
+     * Sessions saved by other processes sharing the store (kiosks on one MySQL server) are only
+     * seen on a reload, every rankRefreshSeconds; with the default of 0 a kiosk's ranks cover
+     * the store as loaded plus its own games.
+     */
+    private static synchronized ScoreRanking getRanking() {
+        if (ranking != null && !(rankingReloads && System.nanoTime() - rankingReloadAt >= 0)) {
+            return ranking;
+        }
+        ScoreRanking loaded = new ScoreRanking();
+        long now = System.nanoTime();
+        if (getStore().forEachPlayerBest(loaded::record)) {
+            ranking = loaded;
+            rankingRetryMillis = RANKING_RETRY_MIN_MILLIS;
+            int refreshSeconds = GameConfig.get(GameConfig.RANK_REFRESH_SECONDS);
+            rankingReloads = refreshSeconds > 0;
+            rankingReloadAt = now + TimeUnit.SECONDS.toNanos(refreshSeconds);
+        } else {
+            // Keep a complete but stale index over a partial one
+            if (ranking == null) {
+                ranking = loaded;
             }
-        } catch (SQLException e) {
-            System.err.println("Error initializing database: " + e.getMessage());
-            e.printStackTrace();
+            RANKING_LOAD_FAILURES.increment();
+            Log.warn("ranking.partial").field("retryMillis", rankingRetryMillis).log();
+            rankingReloads = true;
+            rankingReloadAt = now + TimeUnit.MILLISECONDS.toNanos(rankingRetryMillis);
+            rankingRetryMillis = Math.min(rankingRetryMillis * 2, RANKING_RETRY_MAX_MILLIS);
         }
+        return ranking;
+    }
+
+    private static synchronized void resetRanking() {
+        ranking = null;
+        rankingReloads = false;
+        rankingRetryMillis = RANKING_RETRY_MIN_MILLIS;
     }
 
     /**
-     * Get a database connection.
-     * Initializes the database if not already done.
+     * Close the active store. Called when the application exits.
      */
-    private static Connection getConnection() throws SQLException {
-        if (!initialized) {
-            initializeDatabase();
+    public static synchronized void close() {
+        if (store != null) {
+            store.close();
+            store = null;
         }
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        resetRanking();
+        playerIds.clear();
     }
 
     /**
@@ -100,46 +153,34 @@ public class DatabaseHelper {
      * @return The player_id, or -1 if error
      */
     public static int createPlayer(String username) {
-        if (username == null || username.trim().isEmpty()) {
-            System.err.println("Username cannot be empty");
-            return -1;
-        }
-
-        try (Connection conn = getConnection()) {
-            // First, try to get existing player
-            String selectQuery = "SELECT player_id FROM players WHERE username = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(selectQuery)) {
-                stmt.setString(1, username.trim());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        int playerId = rs.getInt("player_id");
-                        System.out.println("Player '" + username + "' already exists with ID: " + playerId);
-                        return playerId;
-                    }
-                }
+        long start = System.nanoTime();
+        try {
+            String name = username == null ? "" : username.trim();
+            int cached = playerIds.get(name);
+            if (cached > 0) {
+                return cached;
             }
+            int playerId = getStore().createPlayer(username);
+            playerIds.put(name, playerId);
+            return playerId;
+        } finally {
+            CREATE_PLAYER_LATENCY.recordSince(start);
+        }
+    }
 
-            // If not found, create new player
-            String insertQuery = "INSERT INTO players (username) VALUES (?)";
-            try (PreparedStatement stmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-                stmt.setString(1, username.trim());
-                int rowsAffected = stmt.executeUpdate();
-                
-                if (rowsAffected > 0) {
-                    try (ResultSet rs = stmt.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            int playerId = rs.getInt(1);
-                            System.out.println("Created new player '" + username + "' with ID: " + playerId);
-                            return playerId;
-                        }
-                    }
-                }
+    /**
+     * Create or look up many players in one pass, for provisioning kiosks or tournaments.
+     * @param usernames The usernames to register
+     * @return player_ids in input order, -1 where a name was rejected
+     */
+    public static int[] createPlayers(List<String> usernames) {
+        int[] ids = getStore().createPlayers(usernames);
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] > 0) {
+                playerIds.put(usernames.get(i).trim(), ids[i]);
             }
-        } catch (SQLException e) {
-            System.err.println("Error creating/getting player: " + e.getMessage());
-            e.printStackTrace();
         }
-        return -1;
+        return ids;
     }
 
     /**
@@ -152,32 +193,104 @@ public class DatabaseHelper {
      * @return true if successful, false otherwise
      */
     public static boolean saveGameSession(int playerId, int score, int timeSeconds, int moves, String difficulty) {
-        if (playerId <= 0) {
-            System.err.println("Invalid player ID");
-            return false;
+        GameEvents.DbSave event = null;
+        if (GameEvents.DB_SAVE_TYPE.isEnabled()) {
+            event = new GameEvents.DbSave();
+            event.begin();
         }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            success = getStore().saveGameSession(playerId, score, timeSeconds, moves, difficulty);
+            if (success) {
+                getRanking().record(playerId, difficulty, score);
+            }
+            return success;
+        } finally {
+            SAVE_SESSION_LATENCY.recordSince(start);
+            if (event != null) {
+                event.difficulty = difficulty;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
 
-        String query = "INSERT INTO game_sessions (player_id, score, time_seconds, moves, difficulty) VALUES (?, ?, ?, ?, ?)";
-        
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            stmt.setInt(1, playerId);
-            stmt.setInt(2, score);
-            stmt.setInt(3, timeSeconds);
-            stmt.setInt(4, moves);
-            stmt.setString(5, difficulty);
-            
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected > 0) {
-                System.out.println("Game session saved successfully!");
-                return true;
+    /**
+     * Save a finished game and fetch everything the end-of-game screen shows in the same call:
+     * the top of the best-per-player board from the store (one round trip on MySQL), and the
+     * player's best and rank from ScoreRanking.
+     * @param difficulty The difficulty level
+     * @param topN Rows of the best-per-player board to return
+     * @return The summary, or null if the session could not be saved
+     */
+    public static EndGameSummary finishGame(int playerId, int score, int timeSeconds, int moves, String difficulty,
+                                            int topN) {
+        GameEvents.DbSave event = null;
+        if (GameEvents.DB_SAVE_TYPE.isEnabled()) {
+            event = new GameEvents.DbSave();
+            event.begin();
+        }
+        long start = System.nanoTime();
+        EndGameSummary summary = null;
+        try {
+            summary = getStore().finishGame(playerId, score, timeSeconds, moves, difficulty, topN);
+            if (summary != null) {
+                ScoreRanking ranks = getRanking();
+                ranks.record(playerId, difficulty, score);
+                summary = new EndGameSummary(score, ranks.rankOf(playerId, difficulty), summary.getTop());
+            }
+            return summary;
+        } finally {
+            FINISH_GAME_LATENCY.recordSince(start);
+            if (event != null) {
+                event.difficulty = difficulty;
+                event.success = summary != null;
+                event.commit();
             }
-        } catch (SQLException e) {
-            System.err.println("Error saving game session: " + e.getMessage());
-            e.printStackTrace();
         }
-        return false;
+    }
+
+    /**
+     * Save a batch of imported sessions in one unit of work, keeping their played_at.
+     * @param sessions Sessions with resolved player ids
+     * @return Number of sessions saved, or -1 if the batch failed
+     */
+    public static int saveGameSessions(List<ScoreStore.SessionRecord> sessions) {
+        int saved = getStore().saveGameSessions(sessions);
+        if (saved > 0) {
+            ScoreRanking rank = getRanking();
+            for (ScoreStore.SessionRecord r : sessions) {
+                rank.record(r.playerId, r.difficulty, r.score);
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Stream every stored session to the visitor, for export.
+     * @param fetchSize Rows per database round trip
+     * @return Number of sessions exported, or -1 if the scan failed
+     */
+    public static long exportSessions(int fetchSize, ScoreStore.SessionVisitor visitor) {
+        return getStore().forEachSession(fetchSize, visitor);
+    }
+
+    /**
+     * Move sessions older than the newest hotMonths into monthly archives under
+     * archiveDir (default "archive"). Best scores and ranks are unaffected.
+     * @return Number of sessions archived, or -1 if error
+     */
+    public static long archiveSessions(int hotMonths) {
+        return archiveSessions(Paths.get(GameConfig.get(GameConfig.ARCHIVE_DIR)), hotMonths);
+    }
+
+    /**
+     * Move sessions older than the newest hotMonths into monthly archives under directory.
+     * @return Number of sessions archived, or -1 if error
+     */
+    public static long archiveSessions(Path directory, int hotMonths) {
+        return new SessionArchiver(getStore(), directory).archive(hotMonths);
     }
 
     /**
@@ -187,58 +300,54 @@ public class DatabaseHelper {
      * @return List of leaderboard entries
      */
     public static List<LeaderboardEntry> getLeaderboard(String difficulty, int limit) {
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        
-        String query;
-        if (difficulty == null || difficulty.isEmpty()) {
-            query = """
-                SELECT p.username, gs.score, gs.time_seconds, gs.moves, gs.difficulty, gs.played_at
-                FROM game_sessions gs
-                JOIN players p ON gs.player_id = p.player_id
-                ORDER BY gs.score DESC, gs.time_seconds ASC, gs.moves ASC
-                LIMIT ?
-                """;
+        return getLeaderboard(difficulty, limit, false);
+    }
+
+    /**
+     * Get the leaderboard, optionally with only each player's best game.
+     * @param difficulty The difficulty level (null for all difficulties)
+     * @param limit Maximum number of results to return
+     * @param bestPerPlayer One row per player from the player_bests projection
+     * @return List of leaderboard entries
+     */
+    public static List<LeaderboardEntry> getLeaderboard(String difficulty, int limit, boolean bestPerPlayer) {
+        return getLeaderboard(difficulty, limit, bestPerPlayer, LeaderboardPeriod.ALL_TIME);
+    }
+
+    /**
+     * Get the leaderboard for a time window.
+     * @param difficulty The difficulty level (null for all difficulties)
+     * @param limit Maximum number of results to return
+     * @param bestPerPlayer One row per player from the player_bests projection (implied for timed periods)
+     * @param period ALL_TIME, or the current day, week or month
+     * @return List of leaderboard entries
+     */
+    public static List<LeaderboardEntry> getLeaderboard(String difficulty, int limit, boolean bestPerPlayer,
+                                                        LeaderboardPeriod period) {
+        GameEvents.LeaderboardLoad event = null;
+        if (GameEvents.LEADERBOARD_LOAD_TYPE.isEnabled()) {
+            event = new GameEvents.LeaderboardLoad();
+            event.begin();
+        }
+        long start = System.nanoTime();
+        List<LeaderboardEntry> entries;
+        if (period.isTimed()) {
+            entries = getStore().getPeriodLeaderboard(period, difficulty, limit);
+            PERIOD_LATENCY.recordSince(start);
+        } else if (bestPerPlayer) {
+            entries = getStore().getBestPerPlayerLeaderboard(difficulty, limit);
+            BEST_PER_PLAYER_LATENCY.recordSince(start);
         } else {
-            query = """
-                SELECT p.username, gs.score, gs.time_seconds, gs.moves, gs.difficulty, gs.played_at
-                FROM game_sessions gs
-                JOIN players p ON gs.player_id = p.player_id
-                WHERE gs.difficulty = ?
-                ORDER BY gs.score DESC, gs.time_seconds ASC, gs.moves ASC
-                LIMIT ?
-                """;
+            entries = getStore().getLeaderboard(difficulty, limit);
+            LEADERBOARD_LATENCY.recordSince(start);
         }
-
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            if (difficulty == null || difficulty.isEmpty()) {
-                stmt.setInt(1, limit);
-            } else {
-                stmt.setString(1, difficulty);
-                stmt.setInt(2, limit);
-            }
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                int rank = 1;
-                while (rs.next()) {
-                    LeaderboardEntry entry = new LeaderboardEntry(
-                        rank++,
-                        rs.getString("username"),
-                        rs.getInt("score"),
-                        rs.getInt("time_seconds"),
-                        rs.getInt("moves"),
-                        rs.getString("difficulty"),
-                        rs.getTimestamp("played_at")
-                    );
-                    entries.add(entry);
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error retrieving leaderboard: " + e.getMessage());
-            e.printStackTrace();
+        if (event != null) {
+            event.difficulty = difficulty;
+            event.rows = entries.size();
+            event.bestPerPlayer = bestPerPlayer || period.isTimed();
+            event.period = period.name();
+            event.commit();
         }
-        
         return entries;
     }
 
@@ -249,45 +358,39 @@ public class DatabaseHelper {
      * @return The best score, or -1 if no records found
      */
     public static int getPlayerBestScore(int playerId, String difficulty) {
-        if (playerId <= 0) {
-            return -1;
+        long start = System.nanoTime();
+        try {
+            return getStore().getPlayerBestScore(playerId, difficulty);
+        } finally {
+            BEST_SCORE_LATENCY.recordSince(start);
         }
+    }
 
-        String query;
-        if (difficulty == null || difficulty.isEmpty()) {
-            query = """
-                SELECT MAX(score) as best_score
-                FROM game_sessions
-                WHERE player_id = ?
-                """;
-        } else {
-            query = """
-                SELECT MAX(score) as best_score
-                FROM game_sessions
-                WHERE player_id = ? AND difficulty = ?
-                """;
+    /**
+     * What a just-finished game did for the player.
+     */
+    public static class EndGameSummary {
+        private final int score;
+        private final ScoreRanking.PlayerRank rank;
+        private final List<LeaderboardEntry> top;
+
+        public EndGameSummary(int score, ScoreRanking.PlayerRank rank, List<LeaderboardEntry> top) {
+            this.score = score;
+            this.rank = rank;
+            this.top = top;
         }
 
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            stmt.setInt(1, playerId);
-            if (difficulty != null && !difficulty.isEmpty()) {
-                stmt.setString(2, difficulty);
-            }
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    int bestScore = rs.getInt("best_score");
-                    return rs.wasNull() ? -1 : bestScore;
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error retrieving player best score: " + e.getMessage());
-            e.printStackTrace();
+        public int getScore() { return score; }
+        public ScoreRanking.PlayerRank getRank() { return rank; }
+        public List<LeaderboardEntry> getTop() { return top; }
+        public int getBestScore() { return rank == null ? score : rank.getBestScore(); }
+
+        /**
+         * True if this game set or matched the player's best at this difficulty.
+         */
+        public boolean isPersonalBest() {
+            return score >= getBestScore();
         }
-        
-        return -1;
     }
 
     /**
@@ -301,9 +404,18 @@ public class DatabaseHelper {
         private final int moves;
         private final String difficulty;
         private final Timestamp playedAt;
+        private final int gamesPlayed;
 
         public LeaderboardEntry(int rank, String username, int score, int timeSeconds, 
                                int moves, String difficulty, Timestamp playedAt) {
+            this(rank, username, score, timeSeconds, moves, difficulty, playedAt, 0);
+        }
+
+        /**
+         * @param gamesPlayed Games behind a best-per-player row (0 for single sessions)
+         */
+        public LeaderboardEntry(int rank, String username, int score, int timeSeconds, 
+                               int moves, String difficulty, Timestamp playedAt, int gamesPlayed) {
             this.rank = rank;
             this.username = username;
             this.score = score;
@@ -311,6 +423,7 @@ public class DatabaseHelper {
             this.moves = moves;
             this.difficulty = difficulty;
             this.playedAt = playedAt;
+            this.gamesPlayed = gamesPlayed;
         }
 
         public int getRank() { return rank; }
@@ -320,6 +433,7 @@ public class DatabaseHelper {
         public int getMoves() { return moves; }
         public String getDifficulty() { return difficulty; }
         public Timestamp getPlayedAt() { return playedAt; }
+        public int getGamesPlayed() { return gamesPlayed; }
         
         public String getFormattedTime() {
             int minutes = timeSeconds / 60;
@@ -0,0 +1,214 @@
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * All faces of one picture deck packed into a single image.
+ *
+ * Cards never hold pixels of their own: each shows the shared atlas through an ImageView whose
+ * viewport is its face's cell, so a board of any size costs one decoded image per deck. Faces
+ * are the deck directory's image files in name order; face id 1 is the first file. DeckPack
+ * stores a built atlas so the game can map it instead of decoding.
+ */
+public final class DeckAtlas {
+    /** Largest atlas side; every JavaFX pipeline supports textures at least this big. */
+    private static final int MAX_SIDE = 4096;
+    private static final String[] EXTENSIONS = {".png", ".jpg", ".jpeg", ".gif", ".bmp"};
+    private static final Metrics.Histogram BUILD_LATENCY = Metrics.histogram("deck.build");
+
+    private final String name;
+    private final Image image;
+    private final int cellSize;
+    private final int columns;
+    private final int faces;
+    private final List<String> faceNames;
+
+    DeckAtlas(String name, Image image, int cellSize, int columns, int faces, List<String> faceNames) {
+        this.name = name;
+        this.image = image;
+        this.cellSize = cellSize;
+        this.columns = columns;
+        this.faces = faces;
+        this.faceNames = faceNames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Image getImage() {
+        return image;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return How many distinct faces the deck has, i.e. the most pairs it can deal
+     */
+    public int getFaces() {
+        return faces;
+    }
+
+    /**
+     * @return Source file name of each face, in face order
+     */
+    public List<String> getFaceNames() {
+        return faceNames;
+    }
+
+    /**
+     * Decoded size of the atlas, for cache accounting.
+     */
+    public long getBytes() {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    /**
+     * @param id Face id, 1-based as dealt by GameController
+     */
+    public Rectangle2D viewport(int id) {
+        int cell = (id - 1) % faces;
+        return new Rectangle2D((cell % columns) * cellSize, (cell / columns) * cellSize, cellSize, cellSize);
+    }
+
+    /**
+     * Decode the deck in directory/name at cellSize pixels per face and pack it. Decoding runs on
+     * JavaFX's background image loaders and packing on packer once the last image is in, so no
+     * thread waits for either; the files are listed on the calling thread.
+     *
+     * @return A future completed with the atlas, or with null if the deck has no readable images
+     */
+    public static CompletableFuture<DeckAtlas> build(Path directory, String name, int cellSize, Executor packer) {
+        long start = System.nanoTime();
+        List<Path> files = listFaces(directory.resolve(name));
+        int perSide = MAX_SIDE / cellSize;
+        if (files.size() > perSide * perSide) {
+            Log.info("deck.truncated").field("deck", name).field("images", files.size())
+                .field("used", perSide * perSide).log();
+            files = files.subList(0, perSide * perSide);
+        }
+        if (files.isEmpty()) {
+            Log.warn("deck.empty").field("deck", name).field("directory", directory.toAbsolutePath()).log();
+            return CompletableFuture.completedFuture(null);
+        }
+        List<Path> faces = files;
+        return decode(faces, cellSize).thenApplyAsync(images -> pack(name, faces, images, cellSize, start), packer);
+    }
+
+    private static DeckAtlas pack(String name, List<Path> files, Image[] images, int cellSize, long start) {
+        List<Image> decoded = new ArrayList<>();
+        List<String> faceNames = new ArrayList<>();
+        for (int i = 0; i < images.length; i++) {
+            if (images[i].isError()) {
+                Log.warn("deck.imageFailed").field("file", files.get(i))
+                    .field("error", String.valueOf(images[i].getException())).log();
+            } else {
+                decoded.add(images[i]);
+                faceNames.add(files.get(i).getFileName().toString());
+            }
+        }
+        if (decoded.isEmpty()) {
+            Log.warn("deck.undecodable").field("deck", name).log();
+            return null;
+        }
+
+        int columns = (int) Math.ceil(Math.sqrt(decoded.size()));
+        int rows = (decoded.size() + columns - 1) / columns;
+        WritableImage atlas = new WritableImage(columns * cellSize, rows * cellSize);
+        PixelWriter writer = atlas.getPixelWriter();
+        for (int i = 0; i < decoded.size(); i++) {
+            Image face = decoded.get(i);
+            PixelReader reader = face.getPixelReader();
+            int width = Math.min(cellSize, (int) face.getWidth());
+            int height = Math.min(cellSize, (int) face.getHeight());
+            // Centre faces that keep their aspect ratio inside the square cell
+            int x = (i % columns) * cellSize + (cellSize - width) / 2;
+            int y = (i / columns) * cellSize + (cellSize - height) / 2;
+            writer.setPixels(x, y, width, height, reader, 0, 0);
+        }
+        BUILD_LATENCY.recordSince(start);
+        return new DeckAtlas(name, atlas, cellSize, columns, decoded.size(), faceNames);
+    }
+
+    private static List<Path> listFaces(Path deckDir) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(deckDir)) {
+            return files;
+        }
+        try (Stream<Path> entries = Files.list(deckDir)) {
+            entries.filter(DeckAtlas::isImage).sorted().forEach(files::add);
+        } catch (IOException e) {
+            Log.warn("deck.listFailed").field("directory", deckDir).error(e).log();
+        }
+        return files;
+    }
+
+    private static boolean isImage(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String extension : EXTENSIONS) {
+            if (fileName.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start a background load for every file at once, already scaled to the cell. Images are
+     * created on the FX thread because their progress properties are updated there; that only
+     * queues the work, so the FX thread is never held up by decoding.
+     *
+     * @return A future completed, on the FX thread, once every image has loaded or failed
+     */
+    private static CompletableFuture<Image[]> decode(List<Path> files, int cellSize) {
+        Image[] images = new Image[files.size()];
+        CompletableFuture<Image[]> finished = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(images.length);
+        Platform.runLater(() -> {
+            for (int i = 0; i < images.length; i++) {
+                Image image = new Image(files.get(i).toUri().toString(), cellSize, cellSize, true, true, true);
+                images[i] = image;
+                AtomicBoolean counted = new AtomicBoolean();
+                Runnable done = () -> {
+                    if (counted.compareAndSet(false, true) && remaining.decrementAndGet() == 0) {
+                        finished.complete(images);
+                    }
+                };
+                image.progressProperty().addListener((obs, oldValue, progress) -> {
+                    if (progress.doubleValue() >= 1.0) {
+                        done.run();
+                    }
+                });
+                image.errorProperty().addListener((obs, oldValue, error) -> {
+                    if (error) {
+                        done.run();
+                    }
+                });
+                if (image.getProgress() >= 1.0 || image.isError()) {
+                    done.run();
+                }
+            }
+        });
+        return finished;
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decoded picture decks, least recently used first out, bounded by decoded bytes rather than by
+ * count since one large deck can outweigh many small ones.
+ *
+ * Loads run on one daemon "deck-loader" thread and callers get a future, so neither switching
+ * decks nor dealing a board waits on decoding. Concurrent requests for a deck that is still
+ * loading share one decode. Changing the deck in GameConfig prefetches it.
+ *
+ * A deck with a prebuilt pack (deckDir/name.mmdk, see DeckPacker) is mapped from it instead of
+ * decoded from its image directory; the deck may also be given as a path to a .mmdk file.
+ */
+public final class DeckCache {
+    private static final Metrics.Counter HITS = Metrics.counter("deck.cache.hits");
+    private static final Metrics.Counter MISSES = Metrics.counter("deck.cache.misses");
+    private static final Metrics.Counter EVICTIONS = Metrics.counter("deck.cache.evictions");
+
+    private static DeckCache instance;
+
+    private final LinkedHashMap<String, DeckAtlas> decks = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<DeckAtlas>> loading = new HashMap<>();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "deck-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long budgetBytes;
+    private long bytes = 0;
+
+    private DeckCache() {
+        this.budgetBytes = megabytes(GameConfig.get(GameConfig.DECK_CACHE_MB));
+        GameConfig.addListener(GameConfig.DECK_CACHE_MB, this::setBudgetMegabytes);
+        GameConfig.addListener(GameConfig.DECK, this::load);
+    }
+
+    public static synchronized DeckCache getInstance() {
+        if (instance == null) {
+            instance = new DeckCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Face size decks are decoded at: the card's content area inside its padding and border.
+     */
+    public static int faceSize() {
+        return Math.max(16, GameConfig.get(GameConfig.CARD_SIZE) - 24);
+    }
+
+    /**
+     * Get a deck at the current face size, decoding it in the background if it is not cached.
+     *
+     * @return A future completed with the atlas, or with null for no deck ("") or a deck that
+     *         could not be loaded. It never completes exceptionally.
+     */
+    public synchronized CompletableFuture<DeckAtlas> load(String name) {
+        if (name == null || name.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int cellSize = faceSize();
+        String sizedKey = name + "@" + cellSize;
+        DeckAtlas cached = decks.get(name);
+        if (cached == null) {
+            cached = decks.get(sizedKey);
+        }
+        if (cached != null) {
+            HITS.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        // A pack is used as built, whatever its cell size (Card scales faces to the current
+        // size), so it is cached once under its name; decoded decks are cached per size
+        Path directory = Paths.get(GameConfig.get(GameConfig.DECK_DIR));
+        Path pack = packFile(directory, name);
+        String key = pack != null ? name : sizedKey;
+        CompletableFuture<DeckAtlas> pending = loading.get(key);
+        if (pending != null) {
+            return pending;
+        }
+        MISSES.increment();
+        pending = CompletableFuture.supplyAsync(() -> {
+            if (pack == null) {
+                return DeckAtlas.build(directory, name, cellSize, loader);
+            }
+            String file = pack.getFileName().toString();
+            try {
+                return CompletableFuture.completedFuture(
+                    DeckPack.map(pack, file.substring(0, file.length() - DeckPack.EXTENSION.length())));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, loader).thenCompose(atlas -> atlas).exceptionally(e -> {
+            Log.warn("deck.loadFailed").field("deck", name)
+                .error(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e).log();
+            return null;
+        });
+        loading.put(key, pending);
+        pending.thenAccept(atlas -> loaded(key, atlas));
+        return pending;
+    }
+
+    /**
+     * @return The pack to map for deck name: the name itself if it is a .mmdk path, else
+     *         deckDir/name.mmdk if it exists, else null to decode the image directory
+     */
+    private static Path packFile(Path directory, String name) {
+        if (name.endsWith(DeckPack.EXTENSION)) {
+            return directory.resolve(name);
+        }
+        Path pack = DeckPack.file(directory, name);
+        return Files.isRegularFile(pack) ? pack : null;
+    }
+
+    private synchronized void loaded(String key, DeckAtlas atlas) {
+        loading.remove(key);
+        if (atlas == null) {
+            // Not cached, so the next game retries (e.g. after the images are added)
+            return;
+        }
+        decks.put(key, atlas);
+        bytes += atlas.getBytes();
+        evict(key);
+    }
+
+    /**
+     * Drop least recently used decks until the cache fits its budget, always keeping keep. Boards
+     * still showing an evicted deck hold their reference, so eviction never blanks a card.
+     */
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, DeckAtlas>> it = decks.entrySet().iterator();
+        while (bytes > budgetBytes && it.hasNext()) {
+            Map.Entry<String, DeckAtlas> eldest = it.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            bytes -= eldest.getValue().getBytes();
+            it.remove();
+            EVICTIONS.increment();
+        }
+    }
+
+    public synchronized void setBudgetMegabytes(int megabytes) {
+        budgetBytes = megabytes(megabytes);
+        evict(null);
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return decks.size();
+    }
+
+    private static long megabytes(int megabytes) {
+        return megabytes * 1024L * 1024L;
+    }
+}
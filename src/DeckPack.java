@@ -0,0 +1,150 @@
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prebuilt picture deck: a DeckAtlas already decoded, in one file the game maps into memory.
+ *
+ * The pixels are stored exactly as JavaFX wants them (premultiplied BGRA, row-major), so loading
+ * a pack is one FileChannel.map and the atlas image is a PixelBuffer over the mapping: nothing is
+ * decoded or copied, and no file other than the pack is touched. Packs are written by DeckPacker.
+ *
+ * Layout: magic "MMDK", version, cell size, face count, columns, rows, pixel data offset and
+ * length, then the face names (length-prefixed UTF-8) in atlas order. The pixel data starts on a
+ * page boundary so the mapping lines up with the page cache.
+ */
+public final class DeckPack {
+    public static final String EXTENSION = ".mmdk";
+    private static final int MAGIC = 0x4D4D444B; // "MMDK"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int PAGE = 4096;
+
+    private DeckPack() {
+    }
+
+    /**
+     * Where the pack for a deck lives: deckDir/name.mmdk.
+     */
+    public static Path file(Path deckDir, String name) {
+        return deckDir.resolve(name + EXTENSION);
+    }
+
+    /**
+     * Write an atlas to a temp file next to the target, force it to disk, then move it into place.
+     * @return Size of the pack in bytes
+     */
+    public static long write(DeckAtlas atlas, Path file) throws IOException {
+        int width = (int) atlas.getImage().getWidth();
+        int height = (int) atlas.getImage().getHeight();
+        byte[] pixels = new byte[width * height * 4];
+        atlas.getImage().getPixelReader().getPixels(0, 0, width, height,
+            PixelFormat.getByteBgraPreInstance(), pixels, 0, width * 4);
+
+        List<byte[]> names = new ArrayList<>();
+        long indexBytes = 0;
+        for (String name : atlas.getFaceNames()) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            names.add(bytes);
+            indexBytes += 2 + bytes.length;
+        }
+        long dataOffset = align(HEADER_BYTES + indexBytes);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(atlas.getCellSize());
+            out.writeInt(atlas.getFaces());
+            out.writeShort(atlas.getColumns());
+            out.writeShort(height / atlas.getCellSize());
+            out.writeLong(dataOffset);
+            out.writeLong(pixels.length);
+            for (byte[] name : names) {
+                out.writeShort(name.length);
+                out.write(name);
+            }
+            out.write(new byte[(int) (dataOffset - HEADER_BYTES - indexBytes)]);
+            out.write(pixels);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(file);
+    }
+
+    /**
+     * Map a pack and wrap it as an atlas. The pixel pages are faulted in here, on the caller's
+     * thread, so the first frame that shows a face does not stall the FX thread on disk reads.
+     *
+     * @param name Deck name reported by the atlas
+     */
+    public static DeckAtlas map(Path file, String name) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0, file);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getShort() != VERSION) {
+                throw new IOException("Not a deck pack: " + file);
+            }
+            int cellSize = header.getShort();
+            int faces = header.getInt();
+            int columns = header.getShort();
+            int rows = header.getShort();
+            long dataOffset = header.getLong();
+            long dataLength = header.getLong();
+            long width = (long) columns * cellSize;
+            long height = (long) rows * cellSize;
+            if (cellSize <= 0 || faces <= 0 || faces > columns * rows || dataLength != width * height * 4
+                    || dataOffset + dataLength > channel.size()) {
+                throw new IOException("Corrupt deck pack: " + file);
+            }
+
+            ByteBuffer index = ByteBuffer.allocate((int) (dataOffset - HEADER_BYTES));
+            readFully(channel, index, HEADER_BYTES, file);
+            index.flip();
+            List<String> faceNames = new ArrayList<>(faces);
+            for (int i = 0; i < faces; i++) {
+                byte[] bytes = new byte[index.getShort()];
+                index.get(bytes);
+                faceNames.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer pixels = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, dataLength);
+            pixels.load();
+            PixelBuffer<ByteBuffer> buffer = new PixelBuffer<>((int) width, (int) height, pixels,
+                PixelFormat.getByteBgraPreInstance());
+            return new DeckAtlas(name, new WritableImage(buffer), cellSize, columns, faces, faceNames);
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + PAGE - 1) / PAGE * PAGE;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, Path file) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated deck pack: " + file);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import javafx.application.Platform;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Build-time tool that turns deck image directories into DeckPack files.
+ *
+ * Each deck is decoded and packed exactly as the game would do it at runtime (DeckAtlas.build),
+ * then written next to its directory as deckDir/name.mmdk, which DeckCache prefers over the
+ * images. Decoding uses JavaFX, so this needs a display (or a headless Monocle build).
+ *
+ * Usage:
+ *   java DeckPacker pack [--cell N] [DECK...]   (default: every deck under deckDir)
+ *   java DeckPacker info FILE...
+ * deckDir comes from GameConfig (--deckDir=path, default "decks"); --cell defaults to the face
+ * size for the configured cardSize.
+ */
+public class DeckPacker {
+
+    public static void main(String[] args) throws IOException {
+        args = GameConfig.init(args);
+        if (args.length < 1) {
+            usage();
+        }
+        int exitCode;
+        Platform.startup(() -> {
+        });
+        try {
+            exitCode = switch (args[0]) {
+                case "pack" -> pack(args);
+                case "info" -> info(args);
+                default -> {
+                    usage();
+                    yield 2;
+                }
+            };
+        } finally {
+            Platform.exit();
+        }
+        System.exit(exitCode);
+    }
+
+    private static int pack(String[] args) throws IOException {
+        Path deckDir = Paths.get(GameConfig.get(GameConfig.DECK_DIR));
+        int cellSize = DeckCache.faceSize();
+        List<String> decks = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--cell") && i + 1 < args.length) {
+                cellSize = Integer.parseInt(args[++i]);
+            } else {
+                decks.add(args[i]);
+            }
+        }
+        if (decks.isEmpty()) {
+            try (Stream<Path> entries = Files.list(deckDir)) {
+                entries.filter(Files::isDirectory).sorted().forEach(d -> decks.add(d.getFileName().toString()));
+            }
+        }
+
+        int failed = 0;
+        for (String deck : decks) {
+            long start = System.nanoTime();
+            DeckAtlas atlas = DeckAtlas.build(deckDir, deck, cellSize, ForkJoinPool.commonPool()).join();
+            if (atlas == null) {
+                failed++;
+                continue;
+            }
+            Path file = DeckPack.file(deckDir, deck);
+            long size = DeckPack.write(atlas, file);
+            System.out.println(String.format("%s: %d faces at %dpx, %d KB in %d ms", file, atlas.getFaces(),
+                cellSize, size / 1024, (System.nanoTime() - start) / 1_000_000));
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    private static int info(String[] args) {
+        int failed = 0;
+        for (int i = 1; i < args.length; i++) {
+            Path file = Paths.get(args[i]);
+            try {
+                DeckAtlas atlas = DeckPack.map(file, file.getFileName().toString());
+                System.out.println(String.format("%s: %d faces, %dpx cells, %d columns, %.0fx%.0f atlas",
+                    file, atlas.getFaces(), atlas.getCellSize(), atlas.getColumns(),
+                    atlas.getImage().getWidth(), atlas.getImage().getHeight()));
+                System.out.println("  " + String.join(", ", atlas.getFaceNames()));
+            } catch (IOException e) {
+                System.err.println(file + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java DeckPacker pack [--cell N] [DECK...]");
+        System.err.println("       java DeckPacker info FILE...");
+        System.exit(2);
+    }
+}
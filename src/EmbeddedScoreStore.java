@@ -0,0 +1,1114 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Embedded, file-backed ScoreStore for kiosks and edge deployments. No server needed.
+ *
+ * Writes go to an append-only log (scores.log) of checksummed records:
+ * [length:u32][crc32:u32][payload]. Every {@code snapshotEvery} records, and on close, the whole
+ * state is streamed into scores.snapshot and the log starts over, so startup reads one
+ * snapshot plus a short log tail. A torn or corrupt log tail is truncated back to the last good record.
+ *
+ * In memory each difficulty has an indexable skip list in leaderboard order, which gives
+ * O(log n) top-K and rank-of-player. A player_bests projection (best session, best time,
+ * fewest moves, games played) is updated on every insert and feeds a second skip list of
+ * one row per player. The same projection is kept for the current day, week and month,
+ * each reset when its calendar bucket rolls over. Archived sessions (see SessionArchiver) leave
+ * the leaderboards but stay counted in the projection, which the snapshot therefore stores.
+ * Reads share a read lock; saves take the write lock.
+ */
+public class EmbeddedScoreStore implements ScoreStore {
+    public static final String LOG_FILE = "scores.log";
+    public static final String SNAPSHOT_FILE = "scores.snapshot";
+    public static final int DEFAULT_SNAPSHOT_EVERY = 50_000;
+
+    private static final byte RECORD_PLAYER = 1;
+    private static final byte RECORD_SESSION = 2;
+    private static final byte RECORD_ARCHIVE = 3;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final int SNAPSHOT_MAGIC_V1 = 0x4D4D5331; // "MMS1", no projection section
+    private static final int SNAPSHOT_MAGIC = 0x4D4D5332; // "MMS2"
+    /** Column widths of the MySQL schema, enforced here so both stores accept the same data. */
+    private static final int MAX_USERNAME_LENGTH = 50;
+    private static final int MAX_DIFFICULTY_LENGTH = 20;
+    /**
+     * Board and projection key for every session. Null, which no stored difficulty can be: a
+     * blank difficulty is stored as null, as the CSV import does.
+     */
+    private static final String ALL = null;
+
+    /** Same order as the MySQL leaderboard query, with insertion order as the final tie-break. */
+    static final Comparator<Session> LEADERBOARD_ORDER = Comparator
+        .comparingInt((Session s) -> -s.score)
+        .thenComparingInt(s -> s.timeSeconds)
+        .thenComparingInt(s -> s.moves)
+        .thenComparingInt(s -> s.sessionId);
+
+    private final Path directory;
+    private final boolean syncWrites;
+    private final int snapshotEvery;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile FileChannel log;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(MAX_RECORD_BYTES + HEADER_BYTES);
+    private final CRC32 crc = new CRC32();
+    private int recordsSinceSnapshot = 0;
+
+    private final Map<String, Integer> playerIds = new HashMap<>();
+    private final List<String> usernames = new ArrayList<>();
+    /** Leaderboards keyed by difficulty; ALL holds every session. */
+    private final Map<String, LeaderboardSkipList<Session>> boards = new HashMap<>();
+    /** player_bests projection and the best-per-player leaderboards it feeds. */
+    private final BestBoards allTimeBests = new BestBoards();
+    /** The same, restricted to the current day, week and month. */
+    private final Map<LeaderboardPeriod, BestBoards> periodBests = new EnumMap<>(LeaderboardPeriod.class);
+    private int sessionCount = 0;
+    private int nextSessionId = 1;
+
+    /**
+     * @param directory Directory holding the log and snapshot; created if missing
+     */
+    public EmbeddedScoreStore(Path directory) {
+        this(directory, true, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    /**
+     * @param syncWrites Force every record to disk before returning (off only for bulk loads and benchmarks)
+     * @param snapshotEvery Log records between compacted snapshots
+     */
+    public EmbeddedScoreStore(Path directory, boolean syncWrites, int snapshotEvery) {
+        this.directory = directory;
+        this.syncWrites = syncWrites;
+        this.snapshotEvery = snapshotEvery;
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            if (period.isTimed()) {
+                periodBests.put(period, new BestBoards());
+            }
+        }
+    }
+
+    /**
+     * One saved game session.
+     */
+    static final class Session {
+        final int sessionId;
+        final int playerId;
+        final int score;
+        final int timeSeconds;
+        final int moves;
+        final String difficulty;
+        final long playedAt;
+
+        Session(int sessionId, int playerId, int score, int timeSeconds, int moves, String difficulty, long playedAt) {
+            this.sessionId = sessionId;
+            this.playerId = playerId;
+            this.score = score;
+            this.timeSeconds = timeSeconds;
+            this.moves = moves;
+            this.difficulty = difficulty == null || difficulty.isEmpty() ? null : difficulty;
+            this.playedAt = playedAt;
+        }
+    }
+
+    /**
+     * A player's aggregate on one leaderboard, kept up to date on every insert.
+     */
+    static final class PlayerBest {
+        Session best;
+        int bestTime;
+        int fewestMoves;
+        int gamesPlayed;
+
+        PlayerBest(Session first) {
+            best = first;
+            bestTime = first.timeSeconds;
+            fewestMoves = first.moves;
+            gamesPlayed = 1;
+        }
+    }
+
+    /**
+     * Best-per-player leaderboards over a set of sessions: all of them, or one calendar
+     * bucket's. Per player and per difficulty (and under ALL), the best session and totals,
+     * plus a skip list per difficulty holding only those best sessions.
+     */
+    static final class BestBoards {
+        final Map<Integer, Map<String, PlayerBest>> bests = new HashMap<>();
+        final Map<String, LeaderboardSkipList<Session>> boards = new HashMap<>();
+        /** Epoch day the covered bucket starts on; unused for all time. */
+        long bucket = Long.MIN_VALUE;
+
+        void add(Session session) {
+            Map<String, PlayerBest> best = bests.computeIfAbsent(session.playerId, id -> new HashMap<>(4));
+            add(ALL, session, best);
+            if (session.difficulty != null) {
+                add(session.difficulty, session, best);
+            }
+        }
+
+        private void add(String key, Session session, Map<String, PlayerBest> best) {
+            LeaderboardSkipList<Session> board = boards.computeIfAbsent(key, k -> new LeaderboardSkipList<>(LEADERBOARD_ORDER));
+            PlayerBest current = best.get(key);
+            if (current == null) {
+                best.put(key, new PlayerBest(session));
+                board.add(session);
+                return;
+            }
+            current.gamesPlayed++;
+            current.bestTime = Math.min(current.bestTime, session.timeSeconds);
+            current.fewestMoves = Math.min(current.fewestMoves, session.moves);
+            if (LEADERBOARD_ORDER.compare(session, current.best) < 0) {
+                board.remove(current.best);
+                board.add(session);
+                current.best = session;
+            }
+        }
+
+        /**
+         * Put back an aggregate read from a snapshot.
+         */
+        void restore(int playerId, String key, PlayerBest best) {
+            bests.computeIfAbsent(playerId, id -> new HashMap<>(4)).put(key, best);
+            boards.computeIfAbsent(key, k -> new LeaderboardSkipList<>(LEADERBOARD_ORDER)).add(best.best);
+        }
+
+        PlayerBest lookup(int playerId, String difficulty) {
+            Map<String, PlayerBest> best = bests.get(playerId);
+            return best == null ? null : best.get(boardKey(difficulty));
+        }
+
+        List<DatabaseHelper.LeaderboardEntry> top(String difficulty, int limit, List<String> usernames) {
+            List<DatabaseHelper.LeaderboardEntry> entries = new ArrayList<>();
+            String key = boardKey(difficulty);
+            LeaderboardSkipList<Session> board = boards.get(key);
+            if (board == null) {
+                return entries;
+            }
+            int rank = 1;
+            for (Session s : board) {
+                if (rank > limit) {
+                    break;
+                }
+                PlayerBest best = bests.get(s.playerId).get(key);
+                entries.add(new DatabaseHelper.LeaderboardEntry(rank++, usernames.get(s.playerId - 1),
+                    s.score, s.timeSeconds, s.moves, s.difficulty, new Timestamp(s.playedAt), best.gamesPlayed));
+            }
+            return entries;
+        }
+
+        void clear() {
+            bests.clear();
+            boards.clear();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "embedded";
+    }
+
+    @Override
+    public void initialize() {
+        lock.writeLock().lock();
+        try {
+            if (log != null) {
+                return;
+            }
+            Files.createDirectories(directory);
+            clearIndexes();
+            loadSnapshot();
+            FileChannel channel = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long goodEnd = replay(channel);
+            if (goodEnd < channel.size()) {
+                Log.warn("store.logTruncated").field("bytes", channel.size() - goodEnd).log();
+                channel.truncate(goodEnd);
+                channel.force(true);
+            }
+            channel.position(goodEnd);
+            log = channel;
+            Log.info("store.ready").field("directory", directory).field("players", usernames.size())
+                .field("sessions", sessionCount).log();
+        } catch (IOException e) {
+            Log.error("store.openFailed").field("directory", directory).error(e).log();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clearIndexes() {
+        playerIds.clear();
+        usernames.clear();
+        boards.clear();
+        allTimeBests.clear();
+        for (BestBoards period : periodBests.values()) {
+            period.clear();
+            period.bucket = Long.MIN_VALUE;
+        }
+        sessionCount = 0;
+        nextSessionId = 1;
+        recordsSinceSnapshot = 0;
+    }
+
+    /**
+     * Load the compacted snapshot, if there is one. Streamed, so the file is never held in memory.
+     * Layout: magic, player count, next session id, difficulty names, usernames, the player_bests
+     * projection, session count, sessions (difficulty as an index into the name table), then a
+     * CRC32 of everything before it. The projection is stored rather than rebuilt because it
+     * also covers archived sessions; version 1 snapshots predate archival and rebuild it.
+     */
+    private void loadSnapshot() throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        CRC32 checksum = new CRC32();
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), checksum);
+             DataInputStream in = new DataInputStream(checked)) {
+            int magic = in.readInt();
+            if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V1) {
+                throw new IOException("Not a score snapshot: " + file);
+            }
+            int players = in.readInt();
+            int sessionIdLimit = in.readInt();
+            String[] difficulties = new String[in.readShort()];
+            for (int i = 0; i < difficulties.length; i++) {
+                difficulties[i] = readString(in);
+            }
+            for (int i = 0; i < players; i++) {
+                String name = readString(in);
+                usernames.add(name);
+                playerIds.put(name, i + 1);
+            }
+            boolean hasProjection = magic == SNAPSHOT_MAGIC;
+            if (hasProjection) {
+                int projected = in.readInt();
+                for (int i = 0; i < projected; i++) {
+                    int playerId = in.readInt();
+                    int keys = in.readShort();
+                    for (int k = 0; k < keys; k++) {
+                        short key = in.readShort();
+                        PlayerBest best = new PlayerBest(readSession(in, difficulties));
+                        best.bestTime = in.readInt();
+                        best.fewestMoves = in.readInt();
+                        best.gamesPlayed = in.readInt();
+                        allTimeBests.restore(playerId, key < 0 ? ALL : difficulties[key], best);
+                    }
+                }
+            }
+            int sessions = in.readInt();
+            for (int i = 0; i < sessions; i++) {
+                Session session = readSession(in, difficulties);
+                if (hasProjection) {
+                    indexHot(session);
+                } else {
+                    index(session);
+                }
+            }
+            int expected = (int) checksum.getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Score snapshot checksum mismatch: " + file);
+            }
+            nextSessionId = Math.max(nextSessionId, sessionIdLimit);
+        } catch (EOFException e) {
+            throw new IOException("Truncated score snapshot: " + file);
+        }
+    }
+
+    private static Session readSession(DataInputStream in, String[] difficulties) throws IOException {
+        int sessionId = in.readInt();
+        int playerId = in.readInt();
+        int score = in.readInt();
+        int timeSeconds = in.readInt();
+        int moves = in.readInt();
+        short difficulty = in.readShort();
+        long playedAt = in.readLong();
+        return new Session(sessionId, playerId, score, timeSeconds, moves,
+            difficulty < 0 ? null : difficulties[difficulty], playedAt);
+    }
+
+    private static void writeSession(DataOutputStream out, Session s, Map<String, Short> difficultyIndex)
+            throws IOException {
+        out.writeInt(s.sessionId);
+        out.writeInt(s.playerId);
+        out.writeInt(s.score);
+        out.writeInt(s.timeSeconds);
+        out.writeInt(s.moves);
+        out.writeShort(s.difficulty == null ? -1 : difficultyIndex.get(s.difficulty));
+        out.writeLong(s.playedAt);
+    }
+
+    /**
+     * Replay the log on top of the snapshot. Records the snapshot already covers
+     * (left behind if we crashed between writing the snapshot and resetting the log) are skipped.
+     * @return Offset just past the last intact record
+     */
+    private long replay(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (offset + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, offset);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || offset + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, offset + HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            payload.flip();
+            try {
+                if (!apply(payload)) {
+                    break;
+                }
+            } catch (BufferUnderflowException e) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+            recordsSinceSnapshot++;
+        }
+        return offset;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of score log");
+            }
+        }
+    }
+
+    /**
+     * Apply one decoded log record to the in-memory indexes.
+     * @return false if the record is not understood
+     */
+    private boolean apply(ByteBuffer payload) {
+        byte type = payload.get();
+        if (type == RECORD_PLAYER) {
+            int playerId = payload.getInt();
+            String username = getString(payload);
+            if (playerId <= usernames.size()) {
+                return true;
+            }
+            if (playerId != usernames.size() + 1) {
+                return false;
+            }
+            usernames.add(username);
+            playerIds.put(username, playerId);
+            return true;
+        }
+        if (type == RECORD_SESSION) {
+            Session session = new Session(payload.getInt(), payload.getInt(), payload.getInt(),
+                payload.getInt(), payload.getInt(), getString(payload), payload.getLong());
+            if (session.sessionId >= nextSessionId) {
+                index(session);
+            }
+            return true;
+        }
+        if (type == RECORD_ARCHIVE) {
+            removeBetween(payload.getLong(), payload.getLong());
+            return true;
+        }
+        return false;
+    }
+
+    private void index(Session session) {
+        allTimeBests.add(session);
+        indexHot(session);
+    }
+
+    /**
+     * Index a session everywhere except the all-time projection.
+     */
+    private void indexHot(Session session) {
+        boards.computeIfAbsent(ALL, k -> new LeaderboardSkipList<>(LEADERBOARD_ORDER)).add(session);
+        if (session.difficulty != null) {
+            boards.computeIfAbsent(session.difficulty, k -> new LeaderboardSkipList<>(LEADERBOARD_ORDER)).add(session);
+        }
+        for (Map.Entry<LeaderboardPeriod, BestBoards> period : periodBests.entrySet()) {
+            long bucket = period.getKey().bucketStart(session.playedAt).toEpochDay();
+            BestBoards current = period.getValue();
+            if (bucket > current.bucket) {
+                // A new day, week or month: the previous bucket is dropped whole
+                current.clear();
+                current.bucket = bucket;
+            }
+            if (bucket == current.bucket) {
+                current.add(session);
+            }
+        }
+        sessionCount++;
+        nextSessionId = Math.max(nextSessionId, session.sessionId + 1);
+    }
+
+    /**
+     * Frame the record currently in writeBuffer (after the header) and append it to the log.
+     */
+    private void append() throws IOException {
+        appendNoSync();
+        if (syncWrites) {
+            log.force(false);
+        }
+    }
+
+    private void appendNoSync() throws IOException {
+        int length = writeBuffer.position() - HEADER_BYTES;
+        crc.reset();
+        crc.update(writeBuffer.array(), HEADER_BYTES, length);
+        writeBuffer.putInt(0, length);
+        writeBuffer.putInt(4, (int) crc.getValue());
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            log.write(writeBuffer);
+        }
+        recordsSinceSnapshot++;
+    }
+
+    private void beginRecord(byte type) {
+        writeBuffer.clear();
+        writeBuffer.position(HEADER_BYTES);
+        writeBuffer.put(type);
+    }
+
+    @Override
+    public int createPlayer(String username) {
+        if (username == null || username.trim().isEmpty()) {
+            Log.warn("player.invalid").field("reason", "empty username").log();
+            return -1;
+        }
+        String name = username.trim();
+        if (name.length() > MAX_USERNAME_LENGTH) {
+            Log.warn("player.invalid").field("reason", "username too long").field("max", MAX_USERNAME_LENGTH).log();
+            return -1;
+        }
+        if (!ensureOpen()) {
+            return -1;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = playerIds.get(name);
+            if (existing != null) {
+                Log.debug("player.resolved").field("username", username).field("player", existing).log();
+                return existing;
+            }
+
+            int playerId = addPlayer(name);
+            if (syncWrites) {
+                log.force(false);
+            }
+            maybeSnapshot();
+            Log.info("player.created").field("username", username).field("player", playerId).log();
+            return playerId;
+        } catch (IOException e) {
+            Log.error("player.createFailed").field("username", username).error(e).log();
+            return -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Log and index a new player. Caller holds the write lock and decides when to sync.
+     */
+    private int addPlayer(String name) throws IOException {
+        int playerId = usernames.size() + 1;
+        beginRecord(RECORD_PLAYER);
+        writeBuffer.putInt(playerId);
+        putString(writeBuffer, name);
+        appendNoSync();
+        usernames.add(name);
+        playerIds.put(name, playerId);
+        return playerId;
+    }
+
+    @Override
+    public int[] createPlayers(List<String> names) {
+        int[] ids = new int[names.size()];
+        Arrays.fill(ids, -1);
+        if (!ensureOpen()) {
+            return ids;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int created = 0;
+            for (int i = 0; i < ids.length; i++) {
+                String name = names.get(i) == null ? "" : names.get(i).trim();
+                if (name.isEmpty() || name.length() > MAX_USERNAME_LENGTH) {
+                    continue;
+                }
+                Integer existing = playerIds.get(name);
+                if (existing != null) {
+                    ids[i] = existing;
+                } else {
+                    ids[i] = addPlayer(name);
+                    created++;
+                }
+            }
+            // One sync for the whole batch
+            if (syncWrites) {
+                log.force(false);
+            }
+            maybeSnapshot();
+            Log.info("player.provisioned").field("players", ids.length).field("created", created).log();
+        } catch (IOException e) {
+            Log.error("player.provisionFailed").error(e).log();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return ids;
+    }
+
+    @Override
+    public boolean saveGameSession(int playerId, int score, int timeSeconds, int moves, String difficulty) {
+        difficulty = boardKey(difficulty);
+        if (difficulty != null && difficulty.length() > MAX_DIFFICULTY_LENGTH) {
+            Log.warn("session.invalid").field("reason", "difficulty too long").field("max", MAX_DIFFICULTY_LENGTH).log();
+            return false;
+        }
+        if (!ensureOpen()) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (playerId <= 0 || playerId > usernames.size()) {
+                Log.warn("session.invalid").field("player", playerId).log();
+                return false;
+            }
+            Session session = new Session(nextSessionId, playerId, score, timeSeconds, moves,
+                difficulty, System.currentTimeMillis());
+            beginRecord(RECORD_SESSION);
+            writeBuffer.putInt(session.sessionId);
+            writeBuffer.putInt(playerId);
+            writeBuffer.putInt(score);
+            writeBuffer.putInt(timeSeconds);
+            writeBuffer.putInt(moves);
+            putString(writeBuffer, difficulty);
+            writeBuffer.putLong(session.playedAt);
+            append();
+            index(session);
+            maybeSnapshot();
+            Log.debug("session.saved").field("player", playerId).field("score", score).log();
+            return true;
+        } catch (IOException e) {
+            Log.error("session.saveFailed").field("player", playerId).error(e).log();
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public DatabaseHelper.EndGameSummary finishGame(int playerId, int score, int timeSeconds, int moves,
+                                                    String difficulty, int topN) {
+        if (!saveGameSession(playerId, score, timeSeconds, moves, difficulty)) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return new DatabaseHelper.EndGameSummary(score, null,
+                allTimeBests.top(boardKey(difficulty), topN, usernames));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int saveGameSessions(List<SessionRecord> sessions) {
+        if (!ensureOpen()) {
+            return -1;
+        }
+        lock.writeLock().lock();
+        try {
+            for (SessionRecord r : sessions) {
+                if (r.playerId <= 0 || r.playerId > usernames.size()
+                        || (r.difficulty != null && r.difficulty.length() > MAX_DIFFICULTY_LENGTH)) {
+                    Log.warn("session.invalid").field("reason", "invalid batch row").field("player", r.playerId).log();
+                    return -1;
+                }
+            }
+            for (SessionRecord r : sessions) {
+                Session session = new Session(nextSessionId, r.playerId, r.score, r.timeSeconds, r.moves,
+                    r.difficulty, r.playedAt);
+                beginRecord(RECORD_SESSION);
+                writeBuffer.putInt(session.sessionId);
+                writeBuffer.putInt(session.playerId);
+                writeBuffer.putInt(session.score);
+                writeBuffer.putInt(session.timeSeconds);
+                writeBuffer.putInt(session.moves);
+                putString(writeBuffer, session.difficulty);
+                writeBuffer.putLong(session.playedAt);
+                appendNoSync();
+                index(session);
+            }
+            if (syncWrites) {
+                log.force(false);
+            }
+            maybeSnapshot();
+            return sessions.size();
+        } catch (IOException e) {
+            Log.error("session.batchSaveFailed").field("sessions", sessions.size()).error(e).log();
+            return -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Visits sessions in leaderboard order. Holds the read lock for the whole scan,
+     * so saves wait until the export finishes.
+     */
+    @Override
+    public long forEachSession(int fetchSize, SessionVisitor visitor) {
+        if (!ensureOpen()) {
+            return -1;
+        }
+        lock.readLock().lock();
+        try {
+            LeaderboardSkipList<Session> all = boards.get(ALL);
+            long visited = 0;
+            if (all != null) {
+                for (Session s : all) {
+                    visitor.visit(new SessionRecord(s.playerId, usernames.get(s.playerId - 1), s.score,
+                        s.timeSeconds, s.moves, s.difficulty, s.playedAt));
+                    visited++;
+                }
+            }
+            return visited;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long forEachSessionBetween(long fromMillis, long toMillis, int fetchSize, SessionVisitor visitor) {
+        if (!ensureOpen()) {
+            return -1;
+        }
+        lock.readLock().lock();
+        try {
+            LeaderboardSkipList<Session> all = boards.get(ALL);
+            long visited = 0;
+            if (all != null) {
+                for (Session s : all) {
+                    if (s.playedAt >= fromMillis && s.playedAt < toMillis) {
+                        visitor.visit(new SessionRecord(s.sessionId, s.playerId, null, s.score,
+                            s.timeSeconds, s.moves, s.difficulty, s.playedAt));
+                        visited++;
+                    }
+                }
+            }
+            return visited;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Logs the range, then drops the sessions from the leaderboards. Their memory is freed;
+     * the all-time projection keeps whatever it needs.
+     */
+    @Override
+    public long deleteSessionsBetween(long fromMillis, long toMillis) {
+        if (!ensureOpen()) {
+            return -1;
+        }
+        lock.writeLock().lock();
+        try {
+            beginRecord(RECORD_ARCHIVE);
+            writeBuffer.putLong(fromMillis);
+            writeBuffer.putLong(toMillis);
+            append();
+            long removed = removeBetween(fromMillis, toMillis);
+            maybeSnapshot();
+            return removed;
+        } catch (IOException e) {
+            Log.error("archive.deleteFailed").error(e).log();
+            return -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long removeBetween(long fromMillis, long toMillis) {
+        LeaderboardSkipList<Session> all = boards.get(ALL);
+        if (all == null) {
+            return 0;
+        }
+        List<Session> expired = new ArrayList<>();
+        for (Session s : all) {
+            if (s.playedAt >= fromMillis && s.playedAt < toMillis) {
+                expired.add(s);
+            }
+        }
+        for (Session s : expired) {
+            all.remove(s);
+            if (s.difficulty != null && !s.difficulty.isEmpty()) {
+                boards.get(s.difficulty).remove(s);
+            }
+        }
+        sessionCount -= expired.size();
+        return expired.size();
+    }
+
+    @Override
+    public long getOldestSessionTime() {
+        if (!ensureOpen()) {
+            return -1;
+        }
+        lock.readLock().lock();
+        try {
+            LeaderboardSkipList<Session> all = boards.get(ALL);
+            long oldest = -1;
+            if (all != null) {
+                for (Session s : all) {
+                    if (oldest < 0 || s.playedAt < oldest) {
+                        oldest = s.playedAt;
+                    }
+                }
+            }
+            return oldest;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<DatabaseHelper.LeaderboardEntry> getLeaderboard(String difficulty, int limit) {
+        List<DatabaseHelper.LeaderboardEntry> entries = new ArrayList<>();
+        if (!ensureOpen()) {
+            return entries;
+        }
+        lock.readLock().lock();
+        try {
+            LeaderboardSkipList<Session> board = boards.get(boardKey(difficulty));
+            if (board == null) {
+                return entries;
+            }
+            int rank = 1;
+            for (Session s : board) {
+                if (rank > limit) {
+                    break;
+                }
+                entries.add(new DatabaseHelper.LeaderboardEntry(rank++, usernames.get(s.playerId - 1),
+                    s.score, s.timeSeconds, s.moves, s.difficulty, new Timestamp(s.playedAt)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return entries;
+    }
+
+    @Override
+    public List<DatabaseHelper.LeaderboardEntry> getBestPerPlayerLeaderboard(String difficulty, int limit) {
+        if (!ensureOpen()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return allTimeBests.top(difficulty, limit, usernames);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Each timed period keeps only its latest bucket. If that is no longer the current one
+     * (nothing has been saved since the day, week or month turned over) the board is empty;
+     * the stale bucket is dropped by the next save.
+     */
+    @Override
+    public List<DatabaseHelper.LeaderboardEntry> getPeriodLeaderboard(LeaderboardPeriod period, String difficulty, int limit) {
+        if (!period.isTimed()) {
+            return getBestPerPlayerLeaderboard(difficulty, limit);
+        }
+        if (!ensureOpen()) {
+            return new ArrayList<>();
+        }
+        long currentBucket = period.currentBucket().toEpochDay();
+        lock.readLock().lock();
+        try {
+            BestBoards boards = periodBests.get(period);
+            if (boards.bucket != currentBucket) {
+                return new ArrayList<>();
+            }
+            return boards.top(difficulty, limit, usernames);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getPlayerBestScore(int playerId, String difficulty) {
+        PlayerBest best = bestSession(playerId, difficulty);
+        return best == null ? -1 : best.best.score;
+    }
+
+    @Override
+    public boolean forEachPlayerBest(BestScoreVisitor visitor) {
+        if (!ensureOpen()) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Integer, Map<String, PlayerBest>> player : allTimeBests.bests.entrySet()) {
+                for (Map.Entry<String, PlayerBest> best : player.getValue().entrySet()) {
+                    if (best.getKey() != ALL) {
+                        visitor.visit(player.getKey(), best.getKey(), best.getValue().best.score);
+                    }
+                }
+                // Sessions saved without a difficulty only show up under ALL
+                Session overall = player.getValue().get(ALL).best;
+                if (overall.difficulty == null) {
+                    visitor.visit(player.getKey(), null, overall.score);
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Leaderboard position of the player's best session, in O(log n).
+     * @param difficulty The difficulty level (null for all difficulties)
+     * @return The 1-based rank, or -1 if the player has no sessions
+     */
+    public int getPlayerRank(int playerId, String difficulty) {
+        if (playerId <= 0 || !ensureOpen()) {
+            return -1;
+        }
+        lock.readLock().lock();
+        try {
+            PlayerBest best = lookupBest(playerId, difficulty);
+            if (best == null) {
+                return -1;
+            }
+            // The best session may have been archived, so count what is ahead of it rather than look it up
+            LeaderboardSkipList<Session> board = boards.get(boardKey(difficulty));
+            return board == null ? 1 : board.countBefore(best.best) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PlayerBest bestSession(int playerId, String difficulty) {
+        if (playerId <= 0 || !ensureOpen()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return lookupBest(playerId, difficulty);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PlayerBest lookupBest(int playerId, String difficulty) {
+        return allTimeBests.lookup(playerId, difficulty);
+    }
+
+    /**
+     * Write a compacted snapshot now and reset the log.
+     */
+    public void compact() {
+        if (!ensureOpen()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            Log.error("store.compactFailed").error(e).log();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void maybeSnapshot() throws IOException {
+        if (recordsSinceSnapshot >= snapshotEvery) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Write all state to a temp file, move it over the old snapshot, then empty the log.
+     * Caller holds the write lock.
+     */
+    private void writeSnapshot() throws IOException {
+        if (recordsSinceSnapshot == 0) {
+            return;
+        }
+        // The projection knows every difficulty, including ones whose sessions are all archived
+        Map<String, Short> difficultyIndex = new HashMap<>();
+        List<String> difficulties = new ArrayList<>();
+        for (String key : allTimeBests.boards.keySet()) {
+            if (key != ALL) {
+                difficultyIndex.put(key, (short) difficulties.size());
+                difficulties.add(key);
+            }
+        }
+
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        CRC32 checksum = new CRC32();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), checksum);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(usernames.size());
+            out.writeInt(nextSessionId);
+            out.writeShort(difficulties.size());
+            for (String d : difficulties) {
+                writeString(out, d);
+            }
+            for (String name : usernames) {
+                writeString(out, name);
+            }
+            out.writeInt(allTimeBests.bests.size());
+            for (Map.Entry<Integer, Map<String, PlayerBest>> player : allTimeBests.bests.entrySet()) {
+                out.writeInt(player.getKey());
+                out.writeShort(player.getValue().size());
+                for (Map.Entry<String, PlayerBest> entry : player.getValue().entrySet()) {
+                    PlayerBest best = entry.getValue();
+                    out.writeShort(entry.getKey() == ALL ? -1 : difficultyIndex.get(entry.getKey()));
+                    writeSession(out, best.best, difficultyIndex);
+                    out.writeInt(best.bestTime);
+                    out.writeInt(best.fewestMoves);
+                    out.writeInt(best.gamesPlayed);
+                }
+            }
+            LeaderboardSkipList<Session> all = boards.get(ALL);
+            out.writeInt(sessionCount);
+            if (all != null) {
+                for (Session s : all) {
+                    writeSession(out, s, difficultyIndex);
+                }
+            }
+            out.writeInt((int) checksum.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.truncate(0);
+        log.position(0);
+        log.force(true);
+        recordsSinceSnapshot = 0;
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (log == null) {
+                return;
+            }
+            writeSnapshot();
+            log.force(true);
+        } catch (IOException e) {
+            Log.error("store.flushFailed").error(e).log();
+        } finally {
+            try {
+                if (log != null) {
+                    log.close();
+                }
+            } catch (IOException ignored) {
+            }
+            log = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean ensureOpen() {
+        if (log == null) {
+            initialize();
+        }
+        return log != null;
+    }
+
+    /**
+     * Key for a difficulty as callers pass it: null and blank both mean every session, as in
+     * MySqlScoreStore.
+     */
+    private static String boardKey(String difficulty) {
+        return difficulty == null || difficulty.isEmpty() ? ALL : difficulty;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        short length = in.readShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,234 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bot client for load-testing GameServer against localhost.
+ * Fills the requested number of rooms with bots that play until every room finishes. A bot
+ * turned away from a full room gives up and is counted as rejected.
+ *
+ * Usage: java GameBot [host|--embedded] [port] [rooms] [seatsPerRoom] [EASY|MEDIUM|HARD]
+ */
+public class GameBot implements GameClient.Listener {
+    private final CountDownLatch done;
+    private final AtomicInteger rejected;
+    private GameClient client;
+    private int mySeat = -1;
+    private int[] known;
+    private boolean[] matched;
+    private int firstPick = -1;
+    private boolean myTurn;
+    private boolean finished;
+
+    public GameBot(CountDownLatch done, AtomicInteger rejected) {
+        this.done = done;
+        this.rejected = rejected;
+    }
+
+    @Override
+    public void onJoined(int seat, int seats, GameController.Difficulty difficulty) {
+        mySeat = seat;
+    }
+
+    @Override
+    public void onStart(int totalCards, int cols, int firstTurn) {
+        known = new int[totalCards];
+        matched = new boolean[totalCards];
+        onTurn(firstTurn);
+    }
+
+    @Override
+    public void onReveal(int index, int cardId, int seat) {
+        known[index] = cardId;
+        if (seat == mySeat && myTurn) {
+            if (firstPick < 0) {
+                firstPick = index;
+                pick(chooseSecond(index, cardId));
+            } else {
+                firstPick = -1;
+            }
+        }
+    }
+
+    @Override
+    public void onMatched(int a, int b, int seat, int score) {
+        matched[a] = true;
+        matched[b] = true;
+        if (seat == mySeat) {
+            // A match earns another turn
+            takeTurn();
+        }
+    }
+
+    @Override
+    public void onHide(int a, int b) {
+        firstPick = -1;
+    }
+
+    @Override
+    public void onTurn(int seat) {
+        myTurn = seat == mySeat;
+        if (myTurn) {
+            takeTurn();
+        }
+    }
+
+    @Override
+    public void onGameOver(int[] scores) {
+        finish();
+    }
+
+    @Override
+    public void onPlayerLeft(int seat) {
+        // Remaining bots keep playing
+    }
+
+    @Override
+    public void onError(int code) {
+        if (code == GameProtocol.ERR_ROOM_FULL && mySeat < 0) {
+            rejected.incrementAndGet();
+            finish();
+        }
+    }
+
+    @Override
+    public void onDisconnected() {
+        finish();
+    }
+
+    private void finish() {
+        if (!finished) {
+            finished = true;
+            done.countDown();
+            client.close();
+        }
+    }
+
+    private void takeTurn() {
+        firstPick = -1;
+        int first = findKnownPair();
+        if (first < 0) {
+            first = randomUnknown(-1);
+        }
+        if (first >= 0) {
+            pick(first);
+        }
+    }
+
+    private int chooseSecond(int first, int cardId) {
+        for (int i = 0; i < known.length; i++) {
+            if (i != first && !matched[i] && known[i] == cardId) {
+                return i;
+            }
+        }
+        int second = randomUnknown(first);
+        if (second >= 0) {
+            return second;
+        }
+        for (int i = 0; i < known.length; i++) {
+            if (i != first && !matched[i]) {
+                return i;
+            }
+        }
+        return first;
+    }
+
+    private int findKnownPair() {
+        for (int i = 0; i < known.length; i++) {
+            if (matched[i] || known[i] == 0) {
+                continue;
+            }
+            for (int j = i + 1; j < known.length; j++) {
+                if (!matched[j] && known[j] == known[i]) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int randomUnknown(int exclude) {
+        int count = 0;
+        for (int i = 0; i < known.length; i++) {
+            if (i != exclude && !matched[i] && known[i] == 0) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return -1;
+        }
+        int target = ThreadLocalRandom.current().nextInt(count);
+        for (int i = 0; i < known.length; i++) {
+            if (i != exclude && !matched[i] && known[i] == 0 && target-- == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void pick(int index) {
+        try {
+            client.pick(index);
+        } catch (IOException e) {
+            finish();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "--embedded";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameProtocol.DEFAULT_PORT;
+        int rooms = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int seats = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        GameController.Difficulty difficulty = args.length > 4
+            ? GameController.Difficulty.valueOf(args[4].toUpperCase())
+            : GameController.Difficulty.EASY;
+
+        GameServer server = null;
+        if (host.equals("--embedded")) {
+            server = new GameServer(0);
+            port = server.bind();
+            host = "localhost";
+            Thread.ofPlatform().daemon().name("game-server").start(server::serve);
+        }
+
+        CountDownLatch done = new CountDownLatch(rooms * seats);
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<GameBot> bots = new ArrayList<>(rooms * seats);
+        long start = System.nanoTime();
+
+        for (int r = 0; r < rooms; r++) {
+            for (int s = 0; s < seats; s++) {
+                GameBot bot = new GameBot(done, rejected);
+                try {
+                    bot.client = GameClient.connect(host, port, bot, Runnable::run);
+                    bot.client.join("bot-room-" + r, difficulty, seats);
+                    bots.add(bot);
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                    done.countDown();
+                }
+            }
+        }
+        long connected = System.nanoTime();
+        System.out.printf("Connected %d bots in %d rooms (%d failed) in %d ms%n",
+            bots.size(), rooms, failed.get(), TimeUnit.NANOSECONDS.toMillis(connected - start));
+        if (server != null) {
+            System.out.println("Server rooms: " + server.getRoomCount() + ", connections: " + server.getConnectionCount());
+        }
+
+        boolean completed = done.await(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s %d rooms in %.1f s (%.1f rooms/s), %d bots rejected by full rooms%n",
+            completed ? "Finished" : "Timed out after", rooms,
+            elapsed / 1e9, rooms / (elapsed / 1e9), rejected.get());
+
+        if (server != null) {
+            server.stop();
+        }
+    }
+}
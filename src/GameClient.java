@@ -0,0 +1,160 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+
+/**
+ * Client side of the multiplayer protocol.
+ * Server events are decoded on a virtual thread and delivered through the given executor
+ * (Platform::runLater for the UI, a direct executor for bots).
+ */
+public class GameClient implements AutoCloseable {
+
+    /**
+     * Receives decoded server events.
+     */
+    public interface Listener {
+        void onJoined(int seat, int seats, GameController.Difficulty difficulty);
+        void onStart(int totalCards, int cols, int firstTurn);
+        void onReveal(int index, int cardId, int seat);
+        void onMatched(int a, int b, int seat, int score);
+        void onHide(int a, int b);
+        void onTurn(int seat);
+        void onGameOver(int[] scores);
+        default void onPlayerLeft(int seat) { }
+        default void onError(int code) { }
+        default void onDisconnected() { }
+    }
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocate(GameProtocol.HEADER_SIZE + 260);
+    private final Listener listener;
+    private final Executor dispatcher;
+    private volatile boolean closed;
+
+    private GameClient(SocketChannel channel, Listener listener, Executor dispatcher) {
+        this.channel = channel;
+        this.listener = listener;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Connect to a server and start the reader thread.
+     */
+    public static GameClient connect(String host, int port, Listener listener, Executor dispatcher) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        GameClient client = new GameClient(channel, listener, dispatcher);
+        Thread.ofVirtual().name("game-client-reader").start(client::readLoop);
+        return client;
+    }
+
+    /**
+     * Join (or create) a room.
+     */
+    public synchronized void join(String room, GameController.Difficulty difficulty, int seats) throws IOException {
+        GameProtocol.beginFrame(out, GameProtocol.JOIN);
+        GameProtocol.putString(out, room);
+        out.put((byte) difficulty.ordinal()).put((byte) seats);
+        GameProtocol.writeFully(channel, GameProtocol.endFrame(out));
+    }
+
+    /**
+     * Pick a card by its board index.
+     */
+    public synchronized void pick(int index) throws IOException {
+        GameProtocol.beginFrame(out, GameProtocol.PICK).putShort((short) index);
+        GameProtocol.writeFully(channel, GameProtocol.endFrame(out));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            GameProtocol.beginFrame(out, GameProtocol.LEAVE);
+            GameProtocol.writeFully(channel, GameProtocol.endFrame(out));
+        } catch (IOException e) {
+            // Already disconnected
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private void readLoop() {
+        ByteBuffer in = ByteBuffer.allocate(GameProtocol.HEADER_SIZE + GameProtocol.MAX_PAYLOAD);
+        try {
+            while (!closed) {
+                byte type = GameProtocol.readFrame(channel, in);
+                dispatch(type, in);
+            }
+        } catch (IOException e) {
+            // Connection closed
+        } finally {
+            dispatcher.execute(listener::onDisconnected);
+        }
+    }
+
+    private void dispatch(byte type, ByteBuffer in) {
+        switch (type) {
+            case GameProtocol.JOINED -> {
+                int seat = GameProtocol.getU8(in);
+                int seats = GameProtocol.getU8(in);
+                GameController.Difficulty difficulty = GameController.Difficulty.values()[GameProtocol.getU8(in)];
+                dispatcher.execute(() -> listener.onJoined(seat, seats, difficulty));
+            }
+            case GameProtocol.START -> {
+                int total = GameProtocol.getU16(in);
+                int cols = GameProtocol.getU8(in);
+                int first = GameProtocol.getU8(in);
+                dispatcher.execute(() -> listener.onStart(total, cols, first));
+            }
+            case GameProtocol.REVEAL -> {
+                int index = GameProtocol.getU16(in);
+                int cardId = GameProtocol.getU16(in);
+                int seat = GameProtocol.getU8(in);
+                dispatcher.execute(() -> listener.onReveal(index, cardId, seat));
+            }
+            case GameProtocol.MATCHED -> {
+                int a = GameProtocol.getU16(in);
+                int b = GameProtocol.getU16(in);
+                int seat = GameProtocol.getU8(in);
+                int score = in.getInt();
+                dispatcher.execute(() -> listener.onMatched(a, b, seat, score));
+            }
+            case GameProtocol.HIDE -> {
+                int a = GameProtocol.getU16(in);
+                int b = GameProtocol.getU16(in);
+                dispatcher.execute(() -> listener.onHide(a, b));
+            }
+            case GameProtocol.TURN -> {
+                int seat = GameProtocol.getU8(in);
+                dispatcher.execute(() -> listener.onTurn(seat));
+            }
+            case GameProtocol.GAME_OVER -> {
+                int[] scores = new int[GameProtocol.getU8(in)];
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] = in.getInt();
+                }
+                dispatcher.execute(() -> listener.onGameOver(scores));
+            }
+            case GameProtocol.PLAYER_LEFT -> {
+                int seat = GameProtocol.getU8(in);
+                dispatcher.execute(() -> listener.onPlayerLeft(seat));
+            }
+            case GameProtocol.ERROR -> {
+                int code = GameProtocol.getU8(in);
+                dispatcher.execute(() -> listener.onError(code));
+            }
+            default -> {
+                // Unknown frame: ignore for forward compatibility
+            }
+        }
+    }
+}
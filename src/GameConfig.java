@@ -0,0 +1,543 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Typed runtime configuration.
+ *
+ * Each key is looked up, highest precedence first, in:
+ * CLI arguments (--name=value), system properties (-Dmemorygame.name=value),
+ * environment variables (MEMORYGAME_NAME, camelCase split on capitals), the config file, then
+ * the built-in default. The file is memorygame.properties in the working directory unless
+ * --config, -Dmemorygame.config or MEMORYGAME_CONFIG names another one.
+ *
+ * Every key is resolved and parsed once when the configuration loads and again on each reload,
+ * so get is a map lookup and callers that read a key where they use it pick up a reloaded file
+ * immediately. An invalid value is logged once and skipped. Keys marked restart-only are read
+ * once at startup (pool and cache capacities, ports); a reload that changes one only logs that
+ * a restart is needed. startWatching() reloads the file whenever it changes on disk.
+ *
+ * Usage: java GameConfig [--name=value ...]    (prints the effective configuration)
+ */
+public final class GameConfig {
+    public static final String DEFAULT_FILE = "memorygame.properties";
+    private static final String PROPERTY_PREFIX = "memorygame.";
+    private static final String ENV_PREFIX = "MEMORYGAME_";
+
+    private static final List<Key<?>> KEYS = new ArrayList<>();
+
+    // Storage
+    public static final Key<String> STORE = string("store", "mysql", false);
+    public static final Key<String> STORE_DIR = string("storeDir", "data", false);
+    public static final Key<String> DB_URL = string("dbUrl", MySqlScoreStore.DEFAULT_BASE_URL, false);
+    public static final Key<String> DB_NAME = string("dbName", MySqlScoreStore.DEFAULT_DB_NAME, false);
+    public static final Key<String> DB_USER = string("dbUser", "root", false);
+    /**
+     * Secrets have no built-in value. Without one from the file, environment or command line
+     * the MySQL store is disabled; a server with no password takes an empty dbPassword= line.
+     */
+    public static final Key<String> DB_PASSWORD = string("dbPassword", "", false);
+    public static final Key<Integer> DB_POOL_SIZE = integer("dbPoolSize", ConnectionPool.DEFAULT_SIZE, 1, 256, true);
+    public static final Key<Integer> PLAYER_CACHE_SIZE =
+        integer("playerCacheSize", PlayerIdCache.DEFAULT_CAPACITY, 0, 1 << 24, false);
+    public static final Key<String> ARCHIVE_DIR = string("archiveDir", SessionArchiver.DEFAULT_DIRECTORY, true);
+    /**
+     * Rebuild player ranks from the store this often, to pick up games saved by other kiosks
+     * sharing the database; 0 loads them once.
+     */
+    public static final Key<Integer> RANK_REFRESH_SECONDS = integer("rankRefreshSeconds", 0, 0, 86_400, true);
+    /** Saved in-progress games, one file per player. */
+    public static final Key<String> SAVE_DIR = string("saveDir", "saves", false);
+
+    // Metrics and spectators
+    public static final Key<String> METRICS_FILE = string("metricsFile", "metrics.txt", false);
+    public static final Key<Integer> METRICS_INTERVAL_SECONDS = integer("metricsIntervalSeconds", 10, 1, 3600, false);
+    /** 0 leaves the spectator stream off. */
+    public static final Key<Integer> SPECTATOR_PORT = integer("spectatorPort", 0, 0, 65535, false);
+    public static final Key<Integer> SPECTATOR_FLUSH_MILLIS = integer("spectatorFlushMillis", 50, 1, 10_000, false);
+
+    // Sound
+    /** Without a token, only sounds already in soundCacheDir play. */
+    public static final Key<String> FREESOUND_TOKEN = string("freesoundToken", "", false);
+    public static final Key<String> SOUND_CACHE_DIR = string("soundCacheDir", "sounds_cache", false);
+    public static final Key<Double> SOUND_VOLUME = decimal("soundVolume", 0.5, 0.0, 1.0, true);
+
+    // Board and animation
+    public static final Key<Integer> CARD_SIZE = integer("cardSize", 100, 40, 400, true);
+    public static final Key<Integer> CARD_MIN_SIZE = integer("cardMinSize", 80, 20, 400, true);
+    public static final Key<Integer> FADE_MILLIS = integer("fadeMillis", 150, 0, 5000, true);
+    public static final Key<Integer> MISMATCH_DELAY_MILLIS = integer("mismatchDelayMillis", 1000, 0, 30_000, true);
+
+    // Picture decks
+    /** Subdirectory of deckDir holding the face images; empty shows numbered faces. */
+    public static final Key<String> DECK = string("deck", "", true);
+    public static final Key<String> DECK_DIR = string("deckDir", "decks", false);
+    public static final Key<Integer> DECK_CACHE_MB = integer("deckCacheMb", 64, 1, 4096, true);
+
+    // Logging
+    /** TRACE, DEBUG, INFO, WARN, ERROR or OFF. */
+    public static final Key<String> LOG_LEVEL = string("logLevel", "INFO", true);
+    /** Entries at or above this level are also printed to stderr. */
+    public static final Key<String> LOG_CONSOLE_LEVEL = string("logConsoleLevel", "WARN", true);
+    public static final Key<String> LOG_DIR = string("logDir", "logs", false);
+    public static final Key<Integer> LOG_MAX_MB = integer("logMaxMb", 10, 1, 1024, false);
+    public static final Key<Integer> LOG_FILES = integer("logFiles", 5, 1, 100, false);
+
+    // Power saving
+    /** JavaFX pulse rate, and so the frame rate cap for every animation; applied at startup. */
+    public static final Key<Integer> MAX_FPS = integer("maxFps", 60, 1, 240, false);
+    /** Auto-pause a running game after this long without input; 0 turns it off. */
+    public static final Key<Integer> IDLE_PAUSE_SECONDS = integer("idlePauseSeconds", 120, 0, 86_400, true);
+
+    // Kiosk
+    /** Run this many independent boards in one window instead of the menus; 0 for the normal app. */
+    public static final Key<Integer> KIOSK_BOARDS = integer("kioskBoards", 0, 0, 64, false);
+    /** EASY, MEDIUM or HARD, for every board on the kiosk wall. */
+    public static final Key<String> KIOSK_DIFFICULTY = string("kioskDifficulty", "MEDIUM", false);
+
+    // Packaging
+    /** Print the time to the main menu and exit; used by StartupBenchmark and the AppCDS training run. */
+    public static final Key<Boolean> STARTUP_PROBE = flag("startupProbe", false, false);
+
+    private static final Object LOCK = new Object();
+    private static volatile Map<String, String> cliValues = Collections.emptyMap();
+    private static volatile Map<String, String> fileValues;
+    /** Each key's parsed value and where it came from, replaced whole on every load. */
+    private static volatile Map<Key<?>, Resolved> resolved;
+    /** Problems already logged, so a bad value is reported once rather than on every reload. */
+    private static final Set<String> reported = new HashSet<>();
+    private static Path file;
+    private static final Map<Key<?>, List<Consumer<Object>>> listeners = new HashMap<>();
+    private static Thread watcher;
+    private static WatchService watchService;
+
+    private GameConfig() {
+    }
+
+    /**
+     * A named, typed setting with a default.
+     */
+    public static final class Key<T> {
+        private final String name;
+        private final T defaultValue;
+        private final Function<String, T> parser;
+        private final boolean reloadable;
+
+        private Key(String name, T defaultValue, Function<String, T> parser, boolean reloadable) {
+            this.name = name;
+            this.defaultValue = defaultValue;
+            this.parser = parser;
+            this.reloadable = reloadable;
+            KEYS.add(this);
+        }
+
+        public String getName() { return name; }
+        public T getDefault() { return defaultValue; }
+
+        /** False for settings that are read once at startup. */
+        public boolean isReloadable() { return reloadable; }
+
+        public String getPropertyName() {
+            return PROPERTY_PREFIX + name;
+        }
+
+        public String getEnvName() {
+            return ENV_PREFIX + name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final class Resolved {
+        final Object value;
+        final String source;
+
+        Resolved(Object value, String source) {
+            this.value = value;
+            this.source = source;
+        }
+    }
+
+    private static Key<String> string(String name, String defaultValue, boolean reloadable) {
+        return new Key<>(name, defaultValue, s -> s, reloadable);
+    }
+
+    private static Key<Boolean> flag(String name, boolean defaultValue, boolean reloadable) {
+        return new Key<>(name, defaultValue, s -> {
+            String value = s.trim().toLowerCase();
+            if (!value.equals("true") && !value.equals("false")) {
+                throw new IllegalArgumentException("must be true or false");
+            }
+            return value.equals("true");
+        }, reloadable);
+    }
+
+    private static Key<Integer> integer(String name, int defaultValue, int min, int max, boolean reloadable) {
+        return new Key<>(name, defaultValue, s -> {
+            int value = Integer.parseInt(s.trim());
+            if (value < min || value > max) {
+                throw new IllegalArgumentException("must be between " + min + " and " + max);
+            }
+            return value;
+        }, reloadable);
+    }
+
+    private static Key<Double> decimal(String name, double defaultValue, double min, double max, boolean reloadable) {
+        return new Key<>(name, defaultValue, s -> {
+            double value = Double.parseDouble(s.trim());
+            if (!(value >= min && value <= max)) {
+                throw new IllegalArgumentException("must be between " + min + " and " + max);
+            }
+            return value;
+        }, reloadable);
+    }
+
+    /**
+     * Take CLI overrides and load the config file. Arguments that are not --name=value or
+     * --name value for a known key are left for the caller.
+     * @return The remaining arguments
+     */
+    public static String[] init(String[] args) {
+        List<Runnable> problems = new ArrayList<>();
+        Map<String, String> cli = new HashMap<>();
+        List<String> rest = new ArrayList<>();
+        String configFile = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                rest.add(arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            boolean known = name.equals("config") || find(name) != null;
+            if (!known) {
+                rest.add(arg);
+                continue;
+            }
+            String value;
+            if (eq >= 0) {
+                value = arg.substring(eq + 1);
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            } else {
+                problems.add(() -> Log.warn("config.missingValue").field("option", "--" + name).log());
+                continue;
+            }
+            if (name.equals("config")) {
+                configFile = value;
+            } else {
+                cli.put(name, value);
+            }
+        }
+        synchronized (LOCK) {
+            cliValues = Collections.unmodifiableMap(cli);
+            file = configFile != null ? Paths.get(configFile) : defaultPath();
+            load(problems);
+        }
+        report(problems);
+        return rest.toArray(new String[0]);
+    }
+
+    private static Path defaultPath() {
+        String path = System.getProperty(PROPERTY_PREFIX + "config");
+        if (path == null || path.isEmpty()) {
+            path = System.getenv(ENV_PREFIX + "CONFIG");
+        }
+        return Paths.get(path == null || path.isEmpty() ? DEFAULT_FILE : path);
+    }
+
+    private static Map<Key<?>, Resolved> resolved() {
+        Map<Key<?>, Resolved> values = resolved;
+        if (values == null) {
+            List<Runnable> problems = new ArrayList<>();
+            synchronized (LOCK) {
+                if (resolved == null) {
+                    file = defaultPath();
+                    load(problems);
+                }
+                values = resolved;
+            }
+            report(problems);
+        }
+        return values;
+    }
+
+    /**
+     * Read the file and resolve every key. Logging is queued on problems and done by the caller
+     * after releasing LOCK, since Log reads its own settings from here.
+     */
+    private static void load(List<Runnable> problems) {
+        fileValues = readFile(file, problems);
+        Map<Key<?>, Resolved> values = new HashMap<>();
+        for (Key<?> key : KEYS) {
+            values.put(key, resolve(key, problems));
+        }
+        resolved = values;
+    }
+
+    private static void report(List<Runnable> problems) {
+        for (Runnable problem : problems) {
+            problem.run();
+        }
+    }
+
+    /**
+     * @return The effective value of key
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(Key<T> key) {
+        return (T) resolved().get(key).value;
+    }
+
+    private static Resolved resolve(Key<?> key, List<Runnable> problems) {
+        String raw = cliValues.get(key.name);
+        if (raw != null) {
+            Object value = parse(key, raw, "--" + key.name, problems);
+            if (value != null) {
+                return new Resolved(value, "cli");
+            }
+        }
+        raw = System.getProperty(key.getPropertyName());
+        if (raw != null && !raw.isEmpty()) {
+            Object value = parse(key, raw, "-D" + key.getPropertyName(), problems);
+            if (value != null) {
+                return new Resolved(value, "property");
+            }
+        }
+        raw = System.getenv(key.getEnvName());
+        if (raw != null && !raw.isEmpty()) {
+            Object value = parse(key, raw, key.getEnvName(), problems);
+            if (value != null) {
+                return new Resolved(value, "env");
+            }
+        }
+        raw = fileValues.get(key.name);
+        if (raw != null) {
+            Object value = parse(key, raw, file.toString(), problems);
+            if (value != null) {
+                return new Resolved(value, "file");
+            }
+        }
+        return new Resolved(key.defaultValue, "default");
+    }
+
+    private static Object parse(Key<?> key, String raw, String source, List<Runnable> problems) {
+        try {
+            return key.parser.apply(raw);
+        } catch (IllegalArgumentException e) {
+            if (reported.add(key.name + "=" + raw + " from " + source)) {
+                problems.add(() -> Log.warn("config.invalid").field("key", key.name).field("value", raw)
+                    .field("source", source).field("reason", e.getMessage()).log());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return Where key's effective value comes from: cli, property, env, file or default
+     */
+    public static String sourceOf(Key<?> key) {
+        return resolved().get(key).source;
+    }
+
+    /**
+     * @return Whether key was given a value anywhere, rather than falling back to its default
+     */
+    public static boolean isSet(Key<?> key) {
+        return !"default".equals(sourceOf(key));
+    }
+
+    public static List<Key<?>> keys() {
+        return Collections.unmodifiableList(KEYS);
+    }
+
+    private static Key<?> find(String name) {
+        for (Key<?> key : KEYS) {
+            if (key.name.equals(name)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> readFile(Path path, List<Runnable> problems) {
+        Map<String, String> values = new HashMap<>();
+        if (!Files.exists(path)) {
+            return values;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            problems.add(() -> Log.error("config.readFailed").field("file", path).error(e).log());
+            return values;
+        }
+        for (String name : properties.stringPropertyNames()) {
+            if (find(name) == null && reported.add("unknown " + name + " in " + path)) {
+                problems.add(() -> Log.warn("config.unknownSetting").field("file", path).field("key", name).log());
+            }
+            values.put(name, properties.getProperty(name).trim());
+        }
+        return values;
+    }
+
+    /**
+     * Run listener with the new value whenever a reload changes key's effective value.
+     * For settings held by long-lived objects, such as the pool size or the sound volume.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void addListener(Key<T> key, Consumer<T> listener) {
+        synchronized (LOCK) {
+            listeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(value -> listener.accept((T) value));
+        }
+    }
+
+    /**
+     * Re-read the config file and notify listeners of changed values.
+     */
+    public static void reload() {
+        resolved();
+        List<Runnable> messages = new ArrayList<>();
+        List<Runnable> notifications = new ArrayList<>();
+        synchronized (LOCK) {
+            Map<Key<?>, Resolved> before = resolved;
+            load(messages);
+            for (Key<?> key : KEYS) {
+                Object value = resolved.get(key).value;
+                if (Objects.equals(before.get(key).value, value)) {
+                    continue;
+                }
+                Object shown = display(key, value);
+                List<Consumer<Object>> keyListeners = listeners.get(key);
+                if (keyListeners != null || key.reloadable) {
+                    messages.add(() -> Log.info("config.changed").field("key", key.name).field("value", shown).log());
+                } else {
+                    messages.add(() -> Log.info("config.restartNeeded").field("key", key.name).log());
+                }
+                if (keyListeners != null) {
+                    for (Consumer<Object> listener : keyListeners) {
+                        notifications.add(() -> {
+                            try {
+                                listener.accept(value);
+                            } catch (RuntimeException e) {
+                                Log.error("config.applyFailed").field("key", key.name).error(e).log();
+                            }
+                        });
+                    }
+                }
+            }
+        }
+        report(messages);
+        report(notifications);
+    }
+
+    /** Secrets are masked wherever a value is printed or logged. */
+    private static Object display(Key<?> key, Object value) {
+        return key == DB_PASSWORD || key == FREESOUND_TOKEN ? "****" : value;
+    }
+
+    /**
+     * Reload the config file whenever it is created or modified. Watches the containing
+     * directory, since editors often replace the file rather than write it in place.
+     */
+    public static void startWatching() {
+        resolved();
+        List<Runnable> problems = new ArrayList<>();
+        synchronized (LOCK) {
+            if (watcher != null) {
+                return;
+            }
+            Path absolute = file.toAbsolutePath();
+            Path directory = absolute.getParent();
+            Path name = absolute.getFileName();
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                problems.add(() -> Log.warn("config.watchFailed").field("file", absolute).error(e).log());
+            }
+            if (problems.isEmpty()) {
+                WatchService service = watchService;
+                watcher = new Thread(() -> watch(service, name), "config-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+        }
+        report(problems);
+    }
+
+    private static void watch(WatchService service, Path name) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= name.equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    // Let the writer finish; a save is often several events
+                    Thread.sleep(100);
+                    WatchKey more;
+                    while ((more = service.poll()) != null) {
+                        more.pollEvents();
+                        more.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    public static void stopWatching() {
+        synchronized (LOCK) {
+            if (watcher == null) {
+                return;
+            }
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+            watcher.interrupt();
+            watcher = null;
+            watchService = null;
+        }
+    }
+
+    public static void main(String[] args) {
+        init(args);
+        System.out.println("# config file: " + file.toAbsolutePath() + (Files.exists(file) ? "" : " (not found)"));
+        for (Key<?> key : KEYS) {
+            Object value = display(key, get(key));
+            System.out.printf("%-24s = %-40s # %s%s%n", key.name, value, sourceOf(key),
+                key.reloadable ? "" : ", restart");
+        }
+    }
+}
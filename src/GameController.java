@@ -1,15 +1,17 @@
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.scene.layout.GridPane;
-import javafx.util.Duration;
 import java.util.*;
-import java.util.Timer;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Game controller for managing memory match game logic, state, and interactions.
+ *
+ * The game clock and the mismatch delay run on the BoardScheduler shared by every board in the
+ * process and reach the FX thread only when they fire. A running Timeline would keep JavaFX
+ * pulsing every frame; this way an idle running board costs one tick a second, and a paused
+ * one costs nothing. Several controllers can run side by side (see KioskWall).
  */
-public class GameController {
+public final class GameController {
     public enum Difficulty {
         EASY(3, 4, 1.0),    // 3x4 grid, 6 pairs
         MEDIUM(4, 4, 1.5),  // 4x4 grid, 8 pairs
@@ -36,6 +38,7 @@ public class GameController {
     private GridPane grid;
     private Difficulty difficulty;
     private Card firstCard;
+    private int firstCardIndex = -1;
     private int score;
     private int moves;
     private int timeSeconds;
@@ -43,15 +46,21 @@ public class GameController {
     private boolean isPaused;
     private boolean gameStarted;
     private boolean gameWon;
+    private int board = 0;
     
-    private Timeline timer;
+    private BoardScheduler.Task tick;
+    private BoardScheduler.Task mismatch;
+    private long nextTickMillis = 1000;
+    private final BoardInputGate inputGate;
     private Runnable onGameWonCallback;
-    private Runnable onTimeUpdateCallback;
-    private Runnable onScoreUpdateCallback;
-    private Runnable onMovesUpdateCallback;
+    private UiUpdateBus.Target view;
+    private GameEventListener eventListener;
+    
+    private static final Metrics.Histogram CLICK_LATENCY = Metrics.histogram("game.handleCardClick");
     
     public GameController(GridPane grid, Difficulty difficulty) {
         this.grid = grid;
+        this.inputGate = new BoardInputGate(grid);
         this.difficulty = difficulty;
         this.cards = new ArrayList<>();
         this.score = 0;
@@ -63,16 +72,65 @@ public class GameController {
         this.gameWon = false;
         this.firstCard = null;
         
+        startBoard(false);
+    }
+    
+    /**
+     * Resume a saved game. The deal is laid out as saved, without shuffling, and the clock
+     * continues from the saved time on the next card click.
+     */
+    public GameController(GridPane grid, GameSnapshot snapshot) {
+        this.grid = grid;
+        this.inputGate = new BoardInputGate(grid);
+        this.difficulty = snapshot.getDifficulty();
+        this.cards = new ArrayList<>(snapshot.getCards());
+        this.isPaused = false;
+        this.gameStarted = false;
+        this.gameWon = false;
+        
+        int[] faces = new int[snapshot.getCards()];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = snapshot.getFace(i);
+        }
+        deal(faces);
+        for (int i = 0; i < faces.length; i++) {
+            if (snapshot.isMatched(i)) {
+                cards.get(i).show();
+                cards.get(i).setMatched(true);
+            }
+        }
+        if (snapshot.getFirstCardIndex() >= 0) {
+            firstCardIndex = snapshot.getFirstCardIndex();
+            firstCard = cards.get(firstCardIndex);
+            firstCard.show();
+        }
+        this.score = snapshot.getScore();
+        this.moves = snapshot.getMoves();
+        this.timeSeconds = snapshot.getTimeSeconds();
+        this.matchedPairs = snapshot.getMatchedPairs();
+    }
+    
+    /**
+     * Deal a board, recording a GameStart event when JFR has it enabled.
+     */
+    private void startBoard(boolean isReset) {
+        if (!GameEvents.GAME_START_TYPE.isEnabled()) {
+            initializeGame();
+            return;
+        }
+        GameEvents.GameStart event = new GameEvents.GameStart();
+        event.begin();
         initializeGame();
+        event.difficulty = difficulty.name();
+        event.reset = isReset;
+        event.cards = cards.size();
+        event.commit();
     }
     
     /**
      * Initialize the game by creating and shuffling cards.
      */
     private void initializeGame() {
-        grid.getChildren().clear();
-        cards.clear();
-        
         int pairs = difficulty.getPairs();
         List<Integer> ids = new ArrayList<>();
         
@@ -84,23 +142,77 @@ public class GameController {
         
         Collections.shuffle(ids);
         
+        int[] faces = new int[ids.size()];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = ids.get(i);
+        }
+        deal(faces);
+    }
+    
+    /**
+     * Lay out cards with the given face ids in board order.
+     */
+    private void deal(int[] faces) {
+        grid.getChildren().clear();
+        cards.clear();
+        
         // Create cards and add to grid
-        for (int i = 0; i < ids.size(); i++) {
-            Card card = new Card(ids.get(i));
+        for (int i = 0; i < faces.length; i++) {
+            Card card = new Card(faces[i]);
+            int index = i;
             int row = i / difficulty.getCols();
             int col = i % difficulty.getCols();
             
             grid.add(card.getButton(), col, row);
-            card.getButton().setOnAction(e -> handleCardClick(card));
+            card.getButton().setOnAction(e -> handleCardClick(card, index));
             cards.add(card);
         }
         
+        if (eventListener != null) {
+            eventListener.onReset(cards.size(), difficulty.getCols());
+        }
+        
+        loadDeck();
+        
         // Adjust grid spacing
         grid.setHgap(10);
         grid.setVgap(10);
         grid.setStyle("-fx-alignment: center;");
     }
     
+    /**
+     * Put the configured picture deck on the cards. A cached deck is applied before the board is
+     * shown; otherwise cards show numbers until the background load finishes, and a load that
+     * finishes after the board was re-dealt is dropped.
+     */
+    private void loadDeck() {
+        int dealt = ++board;
+        CompletableFuture<DeckAtlas> pending = DeckCache.getInstance().load(GameConfig.get(GameConfig.DECK));
+        if (pending.isDone()) {
+            applyDeck(pending.join());
+            return;
+        }
+        pending.thenAccept(atlas -> Platform.runLater(() -> {
+            if (dealt == board) {
+                applyDeck(atlas);
+            }
+        }));
+    }
+    
+    private void applyDeck(DeckAtlas atlas) {
+        if (atlas == null) {
+            return;
+        }
+        if (atlas.getFaces() < difficulty.getPairs()) {
+            Log.info("deck.tooSmall").field("deck", atlas.getName()).field("faces", atlas.getFaces())
+                .field("needed", difficulty.getPairs()).field("difficulty", difficulty).log();
+            return;
+        }
+        for (Card card : cards) {
+            card.setDeck(atlas);
+        }
+    }
+    
     /**
      * Start the game timer.
      */
@@ -111,40 +223,60 @@ public class GameController {
         
         gameStarted = true;
         isPaused = false;
-        
-        timer = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-            if (!isPaused && !gameWon) {
-                timeSeconds++;
-                if (onTimeUpdateCallback != null) {
-                    onTimeUpdateCallback.run();
-                }
-            }
-        }));
-        timer.setCycleCount(Timeline.INDEFINITE);
-        timer.play();
+        nextTickMillis = 1000;
+        resumeClock();
     }
     
     /**
-     * Pause or resume the game.
+     * Pause or resume the game. The clock is suspended, not just ignored, while paused.
      */
     public void togglePause() {
         isPaused = !isPaused;
-        
-        // Disable/enable all card buttons
-        for (Card card : cards) {
-            if (!card.isMatched()) {
-                card.getButton().setDisable(isPaused);
+        if (isPaused) {
+            inputGate.close(BoardInputGate.PAUSED);
+            suspendClock();
+        } else {
+            inputGate.open(BoardInputGate.PAUSED);
+            if (gameStarted && !gameWon) {
+                resumeClock();
             }
         }
     }
     
+    /**
+     * Tick once a second from the scheduler, continuing the second a pause interrupted.
+     */
+    private void resumeClock() {
+        if (tick == null) {
+            tick = BoardScheduler.getInstance().every(nextTickMillis, 1000, this::onTick);
+        }
+    }
+    
+    private void suspendClock() {
+        if (tick != null) {
+            nextTickMillis = tick.cancel();
+            tick = null;
+        }
+    }
+    
+    private void onTick() {
+        // A tick already queued when the clock was suspended is dropped
+        if (tick == null || isPaused || gameWon) {
+            return;
+        }
+        timeSeconds++;
+        markViewDirty();
+        if (eventListener != null) {
+            eventListener.onTick(timeSeconds);
+        }
+    }
+    
     /**
      * Reset the game to initial state.
      */
     public void reset() {
-        if (timer != null) {
-            timer.stop();
-        }
+        suspendClock();
+        cancelMismatch();
         
         score = 0;
         moves = 0;
@@ -154,111 +286,154 @@ public class GameController {
         gameStarted = false;
         gameWon = false;
         firstCard = null;
+        firstCardIndex = -1;
+        inputGate.reset();
         
-        initializeGame();
-        
-        if (onScoreUpdateCallback != null) {
-            onScoreUpdateCallback.run();
-        }
-        if (onMovesUpdateCallback != null) {
-            onMovesUpdateCallback.run();
-        }
-        if (onTimeUpdateCallback != null) {
-            onTimeUpdateCallback.run();
-        }
+        startBoard(true);
+        markViewDirty();
     }
     
     /**
      * Handle card click event.
      */
-    private void handleCardClick(Card card) {
-        if (isPaused || gameWon || card.isMatched() || card.isFlipped() || card == firstCard) {
-            return;
-        }
-        
-        // Start timer on first card click
-        if (!gameStarted) {
-            startGame();
-        }
-        
-        card.flip();
-        
-        if (firstCard == null) {
-            firstCard = card;
-        } else {
-            // Second card selected
-            moves++;
-            if (onMovesUpdateCallback != null) {
-                onMovesUpdateCallback.run();
+    private void handleCardClick(Card card, int index) {
+        long start = System.nanoTime();
+        try {
+            if (!inputGate.isOpen() || gameWon || card.isMatched() || card.isFlipped() || card == firstCard) {
+                return;
             }
             
-            // Disable all cards temporarily
-            for (Card c : cards) {
-                if (!c.isMatched()) {
-                    c.getButton().setDisable(true);
-                }
+            // Start timer on first card click
+            if (!gameStarted) {
+                startGame();
             }
             
-            if (firstCard.getId() == card.getId()) {
-                // Match found!
-                // Play match sound
-                SoundManager.getInstance().playMatchSound();
-                
-                firstCard.setMatched(true);
-                card.setMatched(true);
-                matchedPairs++;
-                
-                // Calculate score: (1000 - time - moves*10) * difficulty_multiplier
-                int baseScore = Math.max(0, 1000 - timeSeconds - moves * 10);
-                score = (int)(baseScore * difficulty.getMultiplier());
-                
-                if (onScoreUpdateCallback != null) {
-                    onScoreUpdateCallback.run();
+            if (GameEvents.CARD_FLIP_TYPE.isEnabled()) {
+                GameEvents.CardFlip flipEvent = new GameEvents.CardFlip();
+                flipEvent.begin();
+                flipEvent.difficulty = difficulty.name();
+                flipEvent.index = index;
+                flipEvent.cardId = card.getId();
+                card.flip(flipEvent::commit);
+            } else {
+                card.flip();
+            }
+            if (eventListener != null) {
+                eventListener.onFlip(index, card.getId());
+            }
+            
+            if (firstCard == null) {
+                firstCard = card;
+                firstCardIndex = index;
+            } else {
+                // Second card selected
+                int firstIndex = firstCardIndex;
+                GameEvents.PairResolved pairEvent = null;
+                if (GameEvents.PAIR_RESOLVED_TYPE.isEnabled()) {
+                    pairEvent = new GameEvents.PairResolved();
+                    pairEvent.begin();
+                    pairEvent.difficulty = difficulty.name();
                 }
+                moves++;
+                markViewDirty();
                 
-                firstCard = null;
-                
-                // Re-enable unmatched cards
-                for (Card c : cards) {
-                    if (!c.isMatched() && !c.isFlipped()) {
-                        c.getButton().setDisable(false);
+                if (firstCard.getId() == card.getId()) {
+                    // Match found!
+                    // Play match sound
+                    SoundManager.getInstance().playMatchSound();
+                    
+                    firstCard.setMatched(true);
+                    card.setMatched(true);
+                    matchedPairs++;
+                    
+                    // Calculate score: (1000 - time - moves*10) * difficulty_multiplier
+                    int baseScore = Math.max(0, 1000 - timeSeconds - moves * 10);
+                    score = (int)(baseScore * difficulty.getMultiplier());
+                    markViewDirty();
+                    if (eventListener != null) {
+                        eventListener.onMatch(firstIndex, index);
+                        eventListener.onScore(score, moves);
                     }
-                }
-                
-                // Check win condition
-                if (matchedPairs >= difficulty.getPairs()) {
-                    gameWon = true;
-                    if (timer != null) {
-                        timer.stop();
+                    
+                    firstCard = null;
+                    firstCardIndex = -1;
+                    if (pairEvent != null) {
+                        pairEvent.matched = true;
+                        pairEvent.moves = moves;
+                        pairEvent.commit();
                     }
-                    if (onGameWonCallback != null) {
-                        Platform.runLater(() -> onGameWonCallback.run());
+                    
+                    // Check win condition
+                    if (matchedPairs >= difficulty.getPairs()) {
+                        gameWon = true;
+                        suspendClock();
+                        if (onGameWonCallback != null) {
+                            Platform.runLater(() -> onGameWonCallback.run());
+                        }
                     }
-                }
-            } else {
-                // No match - play mismatch sound and flip back after delay
-                SoundManager.getInstance().playMismatchSound();
-                
-                Timer timer = new Timer();
-                timer.schedule(new TimerTask() {
-                    @Override
-                    public void run() {
-                        Platform.runLater(() -> {
-                            firstCard.hide();
-                            card.hide();
-                            firstCard = null;
-                            
-                            // Re-enable all unmatched cards
-                            for (Card c : cards) {
-                                if (!c.isMatched()) {
-                                    c.getButton().setDisable(false);
-                                }
-                            }
-                        });
+                } else {
+                    // No match - play mismatch sound and flip back after delay
+                    SoundManager.getInstance().playMismatchSound();
+                    if (eventListener != null) {
+                        eventListener.onScore(score, moves);
                     }
-                }, 1000);
+                    
+                    // Block the board until the pair flips back
+                    inputGate.close(BoardInputGate.RESOLVING);
+                    
+                    GameEvents.PairResolved mismatchEvent = pairEvent;
+                    // Cancelled by reset and cleanup, so it never flips cards on a new deal
+                    long delay = GameConfig.get(GameConfig.MISMATCH_DELAY_MILLIS);
+                    mismatch = BoardScheduler.getInstance().once(delay, () -> {
+                        mismatch = null;
+                        firstCard.hide();
+                        card.hide();
+                        firstCard = null;
+                        firstCardIndex = -1;
+                        if (eventListener != null) {
+                            eventListener.onHide(firstIndex);
+                            eventListener.onHide(index);
+                        }
+                        if (mismatchEvent != null) {
+                            mismatchEvent.matched = false;
+                            mismatchEvent.moves = moves;
+                            mismatchEvent.commit();
+                        }
+                        inputGate.open(BoardInputGate.RESOLVING);
+                    });
+                }
+            }
+        } finally {
+            CLICK_LATENCY.recordSince(start);
+        }
+    }
+    
+    /**
+     * Capture the game for saving. A mismatched pair still face up is saved as hidden, as it is
+     * about to be; a lone face-up card is saved as the first card of the move.
+     */
+    public GameSnapshot snapshot() {
+        int[] faces = new int[cards.size()];
+        long[] matched = GameSnapshot.newMask(cards.size());
+        int faceUp = 0;
+        for (int i = 0; i < faces.length; i++) {
+            Card card = cards.get(i);
+            faces[i] = card.getId();
+            if (card.isMatched()) {
+                GameSnapshot.setMatched(matched, i);
+            } else if (card.isFlipped()) {
+                faceUp++;
             }
         }
+        int first = firstCard != null && faceUp == 1 ? firstCardIndex : -1;
+        return new GameSnapshot(difficulty, faces, matched, first, timeSeconds, moves, score);
+    }
+    
+    /**
+     * @return Whether there is anything worth saving: a started or resumed game not yet won
+     */
+    public boolean isInProgress() {
+        return !gameWon && (gameStarted || moves > 0 || timeSeconds > 0);
     }
     
     // Getters
@@ -292,29 +467,74 @@ public class GameController {
         return isPaused;
     }
     
+    /**
+     * @return Whether the clock is running: started, not paused and not won
+     */
+    public boolean isRunning() {
+        return gameStarted && !isPaused && !gameWon;
+    }
+    
     // Callback setters
     public void setOnGameWon(Runnable callback) {
         this.onGameWonCallback = callback;
     }
     
-    public void setOnTimeUpdate(Runnable callback) {
-        this.onTimeUpdateCallback = callback;
+    /**
+     * Attach the view that shows score, time and moves (e.g. a GameHud). It is marked dirty on
+     * every change and reads the getters when UiUpdateBus flushes it, once per pulse.
+     */
+    public void setView(UiUpdateBus.Target view) {
+        this.view = view;
+        markViewDirty();
     }
     
-    public void setOnScoreUpdate(Runnable callback) {
-        this.onScoreUpdateCallback = callback;
+    private void markViewDirty() {
+        if (view != null) {
+            view.markDirty();
+        }
     }
     
-    public void setOnMovesUpdate(Runnable callback) {
-        this.onMovesUpdateCallback = callback;
+    /**
+     * Attach a board event listener (e.g. a SpectatorBroadcaster).
+     * The listener immediately receives a reset for the current board.
+     */
+    public void setEventListener(GameEventListener listener) {
+        this.eventListener = listener;
+        if (listener != null) {
+            listener.onReset(cards.size(), difficulty.getCols());
+            // Replay a resumed board's matched pairs and face-up card
+            for (int i = 0; i < cards.size(); i++) {
+                if (cards.get(i).isMatched() || cards.get(i).isFlipped()) {
+                    listener.onFlip(i, cards.get(i).getId());
+                }
+            }
+            for (int i = 0; i < cards.size(); i++) {
+                if (!cards.get(i).isMatched()) {
+                    continue;
+                }
+                for (int j = i + 1; j < cards.size(); j++) {
+                    if (cards.get(j).getId() == cards.get(i).getId()) {
+                        listener.onMatch(i, j);
+                        break;
+                    }
+                }
+            }
+            listener.onScore(score, moves);
+        }
     }
     
     /**
      * Clean up resources when game controller is no longer needed.
      */
     public void cleanup() {
-        if (timer != null) {
-            timer.stop();
+        suspendClock();
+        cancelMismatch();
+    }
+
+    private void cancelMismatch() {
+        if (mismatch != null) {
+            mismatch.cancel();
+            mismatch = null;
         }
     }
 }
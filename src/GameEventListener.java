@@ -0,0 +1,20 @@
+/**
+ * Receives board-level events from a GameController, in order, on the FX thread.
+ * Card positions are board indexes (row * cols + col).
+ */
+public interface GameEventListener {
+    /**
+     * A new board was dealt (all cards hidden).
+     */
+    default void onReset(int totalCards, int cols) { }
+
+    default void onFlip(int index, int cardId) { }
+
+    default void onHide(int index) { }
+
+    default void onMatch(int a, int b) { }
+
+    default void onScore(int score, int moves) { }
+
+    default void onTick(int timeSeconds) { }
+}
@@ -0,0 +1,95 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Custom JDK Flight Recorder events for the game lifecycle.
+ *
+ * Call sites check the matching {@code *_TYPE.isEnabled()} before allocating an event,
+ * so nothing is created or timed unless a recording has the event switched on.
+ * Use jfr/memorygame.jfc as the recording settings and JfrLatencyAnalyzer to summarize.
+ */
+public final class GameEvents {
+    public static final EventType GAME_START_TYPE = EventType.getEventType(GameStart.class);
+    public static final EventType CARD_FLIP_TYPE = EventType.getEventType(CardFlip.class);
+    public static final EventType PAIR_RESOLVED_TYPE = EventType.getEventType(PairResolved.class);
+    public static final EventType DB_SAVE_TYPE = EventType.getEventType(DbSave.class);
+    public static final EventType LEADERBOARD_LOAD_TYPE = EventType.getEventType(LeaderboardLoad.class);
+
+    private GameEvents() {
+    }
+
+    @Name("memorygame.GameStart")
+    @Label("Game Start")
+    @Category({"Memory Match", "Game"})
+    @Description("A board was dealt, either for a new game or a reset")
+    @StackTrace(false)
+    public static class GameStart extends Event {
+        @Label("Difficulty")
+        public String difficulty;
+        @Label("Reset")
+        public boolean reset;
+        @Label("Cards")
+        public int cards;
+    }
+
+    @Name("memorygame.CardFlip")
+    @Label("Card Flip")
+    @Category({"Memory Match", "Input"})
+    @Description("From the card click to the face being shown on screen")
+    @StackTrace(false)
+    public static class CardFlip extends Event {
+        @Label("Difficulty")
+        public String difficulty;
+        @Label("Index")
+        public int index;
+        @Label("Card ID")
+        public int cardId;
+    }
+
+    @Name("memorygame.PairResolved")
+    @Label("Pair Resolved")
+    @Category({"Memory Match", "Game"})
+    @Description("From the second pick to the pair being matched or flipped back")
+    @StackTrace(false)
+    public static class PairResolved extends Event {
+        @Label("Difficulty")
+        public String difficulty;
+        @Label("Matched")
+        public boolean matched;
+        @Label("Moves")
+        public int moves;
+    }
+
+    @Name("memorygame.DbSave")
+    @Label("Database Save")
+    @Category({"Memory Match", "Database"})
+    @Description("Saving a finished game session")
+    @StackTrace(false)
+    public static class DbSave extends Event {
+        @Label("Difficulty")
+        public String difficulty;
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("memorygame.LeaderboardLoad")
+    @Label("Leaderboard Load")
+    @Category({"Memory Match", "Database"})
+    @Description("Loading a leaderboard page")
+    @StackTrace(false)
+    public static class LeaderboardLoad extends Event {
+        @Label("Difficulty")
+        public String difficulty;
+        @Label("Rows")
+        public int rows;
+        @Label("Best Per Player")
+        public boolean bestPerPlayer;
+        @Label("Period")
+        public String period;
+    }
+}
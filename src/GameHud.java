@@ -0,0 +1,71 @@
+import javafx.scene.control.Label;
+
+/**
+ * Score, time and moves labels for one board, redrawn from its GameController through
+ * UiUpdateBus. A label's text is rebuilt only when its value changed since the last flush,
+ * so a tick touches one label and a mismatch touches one label.
+ */
+public final class GameHud extends UiUpdateBus.Target {
+    private static final int MAX_MINUTES = 99;
+    /** "Time: mm:ss" per clock value, built on first use and shared by every board. */
+    private static final String[] TIME_TEXT = new String[(MAX_MINUTES + 1) * 60];
+
+    private final GameController controller;
+    private final Label scoreLabel;
+    private final Label timeLabel;
+    private final Label movesLabel;
+    private int shownScore = -1;
+    private int shownTime = -1;
+    private int shownMoves = -1;
+
+    private GameHud(GameController controller, Label scoreLabel, Label timeLabel, Label movesLabel) {
+        this.controller = controller;
+        this.scoreLabel = scoreLabel;
+        this.timeLabel = timeLabel;
+        this.movesLabel = movesLabel;
+    }
+
+    /**
+     * Create a HUD for controller's board and register it as the controller's view, which
+     * holds it for as long as the board lives.
+     */
+    public static void attach(GameController controller, Label scoreLabel, Label timeLabel, Label movesLabel) {
+        controller.setView(new GameHud(controller, scoreLabel, timeLabel, movesLabel));
+    }
+
+    @Override
+    protected void flush() {
+        int score = controller.getScore();
+        if (score != shownScore) {
+            shownScore = score;
+            scoreLabel.setText("Score: " + score);
+        }
+        int time = controller.getTimeSeconds();
+        if (time != shownTime) {
+            shownTime = time;
+            timeLabel.setText(formatTime(time));
+        }
+        int moves = controller.getMoves();
+        if (moves != shownMoves) {
+            shownMoves = moves;
+            movesLabel.setText("Moves: " + moves);
+        }
+    }
+
+    /**
+     * "Time: mm:ss", so a tick allocates nothing once each second has been shown.
+     */
+    private static String formatTime(int seconds) {
+        int minutes = Math.min(MAX_MINUTES, seconds / 60);
+        int secs = seconds % 60;
+        int index = minutes * 60 + secs;
+        String text = TIME_TEXT[index];
+        if (text == null) {
+            text = new String(new char[] {'T', 'i', 'm', 'e', ':', ' ',
+                (char) ('0' + minutes / 10), (char) ('0' + minutes % 10), ':',
+                (char) ('0' + secs / 10), (char) ('0' + secs % 10)});
+            TIME_TEXT[index] = text;
+        }
+        return text;
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary protocol shared by GameServer, GameClient and the bots.
+ * Every frame is [type:u8][length:u16][payload], big-endian.
+ */
+public final class GameProtocol {
+    public static final int DEFAULT_PORT = 7777;
+    public static final int HEADER_SIZE = 3;
+    public static final int MAX_PAYLOAD = 0xFFFF;
+
+    // Client -> server
+    public static final byte JOIN = 0x01;        // nameLen:u8, name, difficulty:u8, seats:u8
+    public static final byte PICK = 0x02;        // index:u16
+    public static final byte LEAVE = 0x03;       // (empty)
+
+    // Server -> client
+    public static final byte JOINED = (byte) 0x81;      // seat:u8, seats:u8, difficulty:u8
+    public static final byte START = (byte) 0x82;       // totalCards:u16, cols:u8, firstTurn:u8
+    public static final byte REVEAL = (byte) 0x83;      // index:u16, cardId:u16, seat:u8
+    public static final byte MATCHED = (byte) 0x84;     // a:u16, b:u16, seat:u8, score:i32
+    public static final byte HIDE = (byte) 0x85;        // a:u16, b:u16
+    public static final byte TURN = (byte) 0x86;        // seat:u8
+    public static final byte GAME_OVER = (byte) 0x87;   // seats:u8, score:i32 * seats
+    public static final byte PLAYER_LEFT = (byte) 0x88; // seat:u8
+    public static final byte ERROR = (byte) 0x8F;       // code:u8
+
+    // Error codes
+    public static final int ERR_ROOM_FULL = 1;
+    public static final int ERR_NOT_YOUR_TURN = 2;
+    public static final int ERR_INVALID_PICK = 3;
+    public static final int ERR_BAD_FRAME = 4;
+
+    private GameProtocol() {
+    }
+
+    /**
+     * Allocate a buffer large enough for any single frame.
+     */
+    public static ByteBuffer newFrameBuffer() {
+        return ByteBuffer.allocateDirect(HEADER_SIZE + MAX_PAYLOAD);
+    }
+
+    /**
+     * Start a frame in the given buffer. Call {@link #endFrame} after writing the payload.
+     */
+    public static ByteBuffer beginFrame(ByteBuffer buf, byte type) {
+        buf.clear();
+        buf.put(type);
+        buf.putShort((short) 0);
+        return buf;
+    }
+
+    /**
+     * Patch the payload length into the header and flip the buffer for writing.
+     */
+    public static ByteBuffer endFrame(ByteBuffer buf) {
+        buf.putShort(1, (short) (buf.position() - HEADER_SIZE));
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Write a complete frame to a blocking channel.
+     */
+    public static void writeFully(SocketChannel channel, ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Read one frame from a blocking channel into the buffer.
+     * On return the buffer is positioned at the start of the payload and limited to its end.
+     * @return The frame type
+     */
+    public static byte readFrame(SocketChannel channel, ByteBuffer buf) throws IOException {
+        buf.clear().limit(HEADER_SIZE);
+        readFully(channel, buf);
+        byte type = buf.get(0);
+        int length = buf.getShort(1) & 0xFFFF;
+        if (length > buf.capacity()) {
+            throw new IOException("Frame of " + length + " bytes does not fit the buffer");
+        }
+        buf.clear().limit(length);
+        readFully(channel, buf);
+        buf.flip();
+        return type;
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) {
+                throw new EOFException("Connection closed");
+            }
+        }
+    }
+
+    public static void putString(ByteBuffer buf, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, 255);
+        buf.put((byte) len);
+        buf.put(bytes, 0, len);
+    }
+
+    public static String getString(ByteBuffer buf) {
+        int len = buf.get() & 0xFF;
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static int getU8(ByteBuffer buf) {
+        return buf.get() & 0xFF;
+    }
+
+    public static int getU16(ByteBuffer buf) {
+        return buf.getShort() & 0xFFFF;
+    }
+}
@@ -0,0 +1,159 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A turn-based multiplayer room hosted by GameServer.
+ * Board state lives in a lock-free RoomState; this class only seats players and
+ * turns state transitions into protocol frames.
+ */
+public class GameRoom {
+    private static final int POINTS_PER_PAIR = 100;
+
+    private final String name;
+    private final GameController.Difficulty difficulty;
+    private final AtomicReferenceArray<GameServer.Connection> seats;
+    private final AtomicInteger seatsClaimed = new AtomicInteger();
+    private final AtomicInteger seatsReady = new AtomicInteger();
+    private final RoomState state;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    public GameRoom(String name, GameController.Difficulty difficulty, int seatCount,
+                    ScheduledExecutorService scheduler) {
+        int seatTotal = Math.min(seatCount, RoomState.MAX_SEATS);
+        this.name = name;
+        this.difficulty = difficulty;
+        this.seats = new AtomicReferenceArray<>(seatTotal);
+        this.scheduler = scheduler;
+        this.state = new RoomState(RoomState.shuffledDeal(difficulty.getPairs()), seatTotal,
+            (int) (POINTS_PER_PAIR * difficulty.getMultiplier()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Seat a connection in this room. The game starts once every seat is taken.
+     * @return The seat index, or -1 if the room is full
+     */
+    public int join(GameServer.Connection connection) {
+        if (closed) {
+            return -1;
+        }
+        int seat = seatsClaimed.getAndIncrement();
+        if (seat >= seats.length()) {
+            return -1;
+        }
+        seats.set(seat, connection);
+
+        connection.send(GameProtocol.endFrame(frame(GameProtocol.JOINED, 3)
+            .put((byte) seat).put((byte) seats.length()).put((byte) difficulty.ordinal())));
+
+        if (seatsReady.incrementAndGet() == seats.length()) {
+            started = true;
+            broadcast(frame(GameProtocol.START, 4)
+                .putShort((short) state.getTotalCards())
+                .put((byte) difficulty.getCols())
+                .put((byte) state.getCurrentSeat()));
+        }
+        return seat;
+    }
+
+    /**
+     * Handle a card pick from the given seat.
+     * @return 0 if accepted, otherwise a GameProtocol error code
+     */
+    public int pick(int seat, int index) {
+        if (!started) {
+            return GameProtocol.ERR_INVALID_PICK;
+        }
+        long result = state.pick(seat, index);
+        int outcome = RoomState.outcome(result);
+        if (outcome == RoomState.REJECTED_NOT_TURN) {
+            return GameProtocol.ERR_NOT_YOUR_TURN;
+        }
+        if (outcome == RoomState.REJECTED_INVALID) {
+            return GameProtocol.ERR_INVALID_PICK;
+        }
+
+        broadcast(frame(GameProtocol.REVEAL, 5)
+            .putShort((short) index).putShort((short) state.getCardId(index)).put((byte) seat));
+
+        long token = RoomState.tokenOf(result);
+        if (outcome == RoomState.PAIR_MATCHED) {
+            int score = state.resolveMatch(token);
+            broadcast(frame(GameProtocol.MATCHED, 9)
+                .putShort((short) RoomState.firstOf(result)).putShort((short) index)
+                .put((byte) seat).putInt(score));
+            if (state.isFinished()) {
+                finish();
+            }
+        } else if (outcome == RoomState.PAIR_MISMATCHED) {
+            scheduler.schedule(() -> resolveMismatch(token), GameConfig.get(GameConfig.MISMATCH_DELAY_MILLIS), TimeUnit.MILLISECONDS);
+        }
+        return 0;
+    }
+
+    private void resolveMismatch(long token) {
+        if (closed) {
+            return;
+        }
+        broadcast(frame(GameProtocol.HIDE, 4)
+            .putShort((short) RoomState.firstOf(token)).putShort((short) RoomState.secondOf(token)));
+        int nextSeat = state.resolveMismatch(token);
+        broadcast(frame(GameProtocol.TURN, 1).put((byte) nextSeat));
+    }
+
+    private void finish() {
+        int[] scores = state.getScores();
+        ByteBuffer buf = frame(GameProtocol.GAME_OVER, 1 + 4 * scores.length).put((byte) scores.length);
+        for (int score : scores) {
+            buf.putInt(score);
+        }
+        broadcast(buf);
+    }
+
+    /**
+     * Remove a connection from its seat.
+     * @return true if the room is now empty and can be discarded
+     */
+    public boolean leave(int seat) {
+        if (seat < 0 || seat >= seats.length() || seats.getAndSet(seat, null) == null) {
+            return closed;
+        }
+        int turnBefore = state.getCurrentSeat();
+        int turnAfter = state.removeSeat(seat);
+        if (turnAfter < 0) {
+            closed = true;
+            return true;
+        }
+        broadcast(frame(GameProtocol.PLAYER_LEFT, 1).put((byte) seat));
+        if (started && !state.isFinished() && turnAfter != turnBefore) {
+            broadcast(frame(GameProtocol.TURN, 1).put((byte) turnAfter));
+        }
+        return false;
+    }
+
+    public boolean isFinished() {
+        return closed || state.isFinished();
+    }
+
+    private static ByteBuffer frame(byte type, int payloadSize) {
+        return GameProtocol.beginFrame(ByteBuffer.allocate(GameProtocol.HEADER_SIZE + payloadSize), type);
+    }
+
+    private void broadcast(ByteBuffer buf) {
+        GameProtocol.endFrame(buf);
+        for (int i = 0; i < seats.length(); i++) {
+            GameServer.Connection c = seats.get(i);
+            if (c != null) {
+                c.send(buf.duplicate());
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lightweight multiplayer server hosting many concurrent GameRooms.
+ * Each connection is served by two virtual threads over a blocking NIO channel: one reads
+ * and handles frames, the other drains the connection's outbox, so a room broadcasting
+ * (including from the shared room scheduler) never blocks on a slow client.
+ *
+ * Usage: java GameServer [port]
+ */
+public class GameServer {
+    private final int port;
+    private final ConcurrentHashMap<String, GameRoom> rooms = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "room-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile ServerSocketChannel serverChannel;
+
+    public GameServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Bind the listening socket. Returns the actual port (useful when binding to 0).
+     */
+    public int bind() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Accept connections until the server is stopped.
+     */
+    public void serve() {
+        try {
+            while (serverChannel.isOpen()) {
+                SocketChannel channel = serverChannel.accept();
+                channel.socket().setTcpNoDelay(true);
+                connections.submit(new Connection(channel));
+            }
+        } catch (ClosedChannelException e) {
+            // Server stopped
+        } catch (IOException e) {
+            System.err.println("Server accept failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop accepting connections and close all sessions.
+     */
+    public void stop() {
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing server: " + e.getMessage());
+        }
+        connections.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    private GameRoom joinRoom(String name, GameController.Difficulty difficulty, int seatCount, Connection connection) {
+        while (true) {
+            GameRoom room = rooms.computeIfAbsent(name, n -> new GameRoom(n, difficulty, seatCount, scheduler));
+            int seat = room.join(connection);
+            if (seat >= 0) {
+                connection.seat = seat;
+                return room;
+            }
+            if (!room.isFinished()) {
+                return null;
+            }
+            // Stale finished room: replace it and retry
+            rooms.remove(name, room);
+        }
+    }
+
+    /**
+     * One client connection: run() reads on one virtual thread, drainOutbox() writes on another.
+     */
+    public class Connection implements Runnable {
+        /** Frames queued for a client that stops reading before it is disconnected. */
+        private static final int OUTBOX_LIMIT = 1024;
+
+        private final SocketChannel channel;
+        private final LinkedBlockingQueue<ByteBuffer> outbox = new LinkedBlockingQueue<>(OUTBOX_LIMIT);
+        private GameRoom room;
+        private int seat = -1;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            connectionCount.incrementAndGet();
+            ByteBuffer in = ByteBuffer.allocate(GameProtocol.HEADER_SIZE + GameProtocol.MAX_PAYLOAD);
+            Future<?> writer = connections.submit(this::drainOutbox);
+            try {
+                while (true) {
+                    byte type = GameProtocol.readFrame(channel, in);
+                    if (type == GameProtocol.LEAVE) {
+                        break;
+                    }
+                    try {
+                        handle(type, in);
+                    } catch (BufferUnderflowException e) {
+                        // Short JOIN or PICK payload
+                        sendError(GameProtocol.ERR_BAD_FRAME);
+                    }
+                }
+            } catch (IOException e) {
+                // Client disconnected
+            } finally {
+                if (room != null && room.leave(seat)) {
+                    rooms.remove(room.getName(), room);
+                }
+                connectionCount.decrementAndGet();
+                writer.cancel(true);
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+
+        private void handle(byte type, ByteBuffer in) {
+            if (type == GameProtocol.JOIN && room == null) {
+                String name = GameProtocol.getString(in);
+                int difficulty = GameProtocol.getU8(in);
+                int seatCount = Math.max(1, GameProtocol.getU8(in));
+                GameController.Difficulty[] values = GameController.Difficulty.values();
+                room = joinRoom(name, values[Math.min(difficulty, values.length - 1)], seatCount, this);
+                if (room == null) {
+                    sendError(GameProtocol.ERR_ROOM_FULL);
+                }
+            } else if (type == GameProtocol.PICK && room != null) {
+                int result = room.pick(seat, GameProtocol.getU16(in));
+                if (result != 0) {
+                    sendError(result);
+                }
+            } else {
+                sendError(GameProtocol.ERR_BAD_FRAME);
+            }
+        }
+
+        /**
+         * Queue a frame for this client. Safe to call from any thread and never blocks; a
+         * client whose outbox is full is disconnected.
+         */
+        void send(ByteBuffer frame) {
+            if (!outbox.offer(frame)) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Reader thread will notice the closed channel
+                }
+            }
+        }
+
+        private void sendError(int code) {
+            ByteBuffer frame = GameProtocol.beginFrame(ByteBuffer.allocate(GameProtocol.HEADER_SIZE + 1), GameProtocol.ERROR);
+            send(GameProtocol.endFrame(frame.put((byte) code)));
+        }
+
+        private void drainOutbox() {
+            try {
+                while (true) {
+                    GameProtocol.writeFully(channel, outbox.take());
+                }
+            } catch (IOException | InterruptedException e) {
+                // Disconnected, or the reader is done with this connection
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        args = GameConfig.init(args);
+        GameConfig.startWatching();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameProtocol.DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        int bound = server.bind();
+        System.out.println("Memory Match server listening on port " + bound);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.serve();
+    }
+}
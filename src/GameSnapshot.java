@@ -0,0 +1,320 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * An in-progress single player game: the deal, which cards are matched, the face-up first card
+ * of an unfinished move, and the clock, move count and score.
+ *
+ * Layout: magic "MMGS", version, difficulty name (length-prefixed UTF-8), then as varints the
+ * card count, each card's face id, the first card index plus one (0 for none), time, moves and
+ * score, then the matched cards as a bitmask, and a CRC32 of everything before it. A HARD board
+ * is 47 to 51 bytes, depending on how many varint bytes the clock, moves and score take.
+ *
+ * Saves go through one daemon "snapshot-writer" thread in submission order, so the file always
+ * holds the latest save (or deletion), and each is written to a temp file, forced and moved
+ * into place so a crash never leaves a torn snapshot.
+ */
+public final class GameSnapshot {
+    private static final int MAGIC = 0x4D4D4753; // "MMGS"
+    private static final short VERSION = 1;
+    public static final String EXTENSION = ".mmgs";
+
+    private static final Metrics.Histogram SAVE_LATENCY = Metrics.histogram("snapshot.save");
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final GameController.Difficulty difficulty;
+    private final int[] faces;
+    private final long[] matched;
+    private final int firstCardIndex;
+    private final int timeSeconds;
+    private final int moves;
+    private final int score;
+
+    /**
+     * @param faces Face id of each card in board order; kept, not copied
+     * @param matched Bitmask of matched cards, bit i of word i / 64 for card i; kept, not copied
+     * @param firstCardIndex Card turned up by an unfinished move, or -1
+     */
+    public GameSnapshot(GameController.Difficulty difficulty, int[] faces, long[] matched, int firstCardIndex,
+                        int timeSeconds, int moves, int score) {
+        this.difficulty = difficulty;
+        this.faces = faces;
+        this.matched = matched;
+        this.firstCardIndex = firstCardIndex;
+        this.timeSeconds = timeSeconds;
+        this.moves = moves;
+        this.score = score;
+    }
+
+    public GameController.Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public int getCards() {
+        return faces.length;
+    }
+
+    public int getFace(int index) {
+        return faces[index];
+    }
+
+    public boolean isMatched(int index) {
+        return (matched[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public int getMatchedPairs() {
+        int count = 0;
+        for (long word : matched) {
+            count += Long.bitCount(word);
+        }
+        return count / 2;
+    }
+
+    public int getFirstCardIndex() {
+        return firstCardIndex;
+    }
+
+    public int getTimeSeconds() {
+        return timeSeconds;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public static long[] newMask(int cards) {
+        return new long[(cards + 63) >>> 6];
+    }
+
+    public static void setMatched(long[] mask, int index) {
+        mask[index >>> 6] |= 1L << index;
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + faces.length * 2);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            byte[] name = difficulty.name().getBytes(StandardCharsets.UTF_8);
+            out.writeByte(name.length);
+            out.write(name);
+            writeVarInt(out, faces.length);
+            for (int face : faces) {
+                writeVarInt(out, face);
+            }
+            writeVarInt(out, firstCardIndex + 1);
+            writeVarInt(out, timeSeconds);
+            writeVarInt(out, moves);
+            writeVarInt(out, score);
+            for (int i = 0; i < faces.length; i += 8) {
+                out.writeByte((int) (matched[i >>> 6] >>> (i & 63)));
+            }
+            out.flush();
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream does not throw
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode and check a snapshot: the deal must be the difficulty's full set of pairs and the
+     * matched cards whole pairs.
+     */
+    public static GameSnapshot decode(byte[] data) throws IOException {
+        if (data.length < 10) {
+            throw new IOException("Snapshot truncated");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (in.getInt(data.length - 4) != (int) crc.getValue()) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        in.limit(data.length - 4);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a game snapshot");
+            }
+            short version = in.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            byte[] name = new byte[in.get() & 0xFF];
+            in.get(name);
+            GameController.Difficulty difficulty;
+            try {
+                difficulty = GameController.Difficulty.valueOf(new String(name, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown difficulty in snapshot");
+            }
+            int cards = readVarInt(in);
+            if (cards != difficulty.getTotalCards()) {
+                throw new IOException("Snapshot has " + cards + " cards, " + difficulty + " needs "
+                    + difficulty.getTotalCards());
+            }
+            int[] faces = new int[cards];
+            int[] seen = new int[difficulty.getPairs() + 1];
+            for (int i = 0; i < cards; i++) {
+                int face = readVarInt(in);
+                if (face < 1 || face > difficulty.getPairs() || ++seen[face] > 2) {
+                    throw new IOException("Snapshot deal is not a set of pairs");
+                }
+                faces[i] = face;
+            }
+            int firstCardIndex = readVarInt(in) - 1;
+            int timeSeconds = readVarInt(in);
+            int moves = readVarInt(in);
+            int score = readVarInt(in);
+            long[] matched = newMask(cards);
+            for (int i = 0; i < cards; i += 8) {
+                matched[i >>> 6] |= (in.get() & 0xFFL) << (i & 63);
+            }
+            if (cards % 8 != 0) {
+                matched[(cards - 1) >>> 6] &= -1L >>> (64 - (cards & 63));
+            }
+            if (in.hasRemaining() || firstCardIndex < -1 || firstCardIndex >= cards) {
+                throw new IOException("Malformed snapshot");
+            }
+            GameSnapshot snapshot = new GameSnapshot(difficulty, faces, matched, firstCardIndex,
+                timeSeconds, moves, score);
+            int[] matchedFaces = new int[difficulty.getPairs() + 1];
+            for (int i = 0; i < cards; i++) {
+                if (snapshot.isMatched(i)) {
+                    matchedFaces[faces[i]]++;
+                }
+            }
+            for (int count : matchedFaces) {
+                if (count == 1) {
+                    throw new IOException("Snapshot matches half a pair");
+                }
+            }
+            if (firstCardIndex >= 0 && snapshot.isMatched(firstCardIndex)) {
+                throw new IOException("Snapshot first card is already matched");
+            }
+            return snapshot;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot truncated");
+        }
+    }
+
+    /**
+     * Where a player's game is saved; guests (no player id) share one slot.
+     */
+    public static Path file(int playerId) {
+        String name = playerId > 0 ? "player-" + playerId : "guest";
+        return Paths.get(GameConfig.get(GameConfig.SAVE_DIR), name + EXTENSION);
+    }
+
+    public static boolean exists(int playerId) {
+        return Files.isRegularFile(file(playerId));
+    }
+
+    /**
+     * Encode now, on the caller's thread, and write in the background.
+     * @return A future completed once the snapshot is on disk; it never completes exceptionally
+     */
+    public CompletableFuture<Void> saveAsync(Path file) {
+        byte[] data = encode();
+        return CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                write(data, file);
+                SAVE_LATENCY.recordSince(start);
+                Log.debug("snapshot.saved").field("file", file).field("bytes", data.length).log();
+            } catch (IOException e) {
+                Log.error("snapshot.saveFailed").field("file", file).error(e).log();
+            }
+        }, WRITER);
+    }
+
+    /**
+     * Remove a saved game in the background, behind any save still queued for it.
+     */
+    public static CompletableFuture<Void> deleteAsync(Path file) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                Log.warn("snapshot.deleteFailed").field("file", file).error(e).log();
+            }
+        }, WRITER);
+    }
+
+    /**
+     * @return The saved game, or null if there is none or it cannot be read (it is then logged
+     *         and left in place)
+     */
+    public static GameSnapshot load(Path file) {
+        try {
+            return decode(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            Log.warn("snapshot.unreadable").field("file", file).error(e).log();
+            return null;
+        }
+    }
+
+    private static void write(byte[] data, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in snapshot");
+    }
+}
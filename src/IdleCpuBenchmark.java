@@ -0,0 +1,114 @@
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CPU use of an idle board on screen: the old Timeline clock against the scheduler clock.
+ *
+ * Each scenario shows a HARD board in a window, leaves it untouched for the measuring window and
+ * reports process CPU time per second of wall time and JavaFX pulses per second:
+ *   empty           a board whose game never started (the floor)
+ *   timeline-paused the old controller clock: an INDEFINITE 1 s Timeline skipping ticks
+ *   paused          GameController started, then paused (clock suspended)
+ *   running         GameController started and ticking, nobody touching it
+ *
+ * Usage: java IdleCpuBenchmark [seconds]   (default 20 per scenario, needs a display)
+ * Run with -Djavafx.animation.pulse=30 to see the effect of a maxFps cap.
+ */
+public class IdleCpuBenchmark {
+    private static final com.sun.management.OperatingSystemMXBean OS =
+        (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    private static final long SETTLE_MILLIS = 2000;
+
+    private static Stage stage;
+    private static final AtomicLong pulses = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 20;
+        onFx(() -> {
+            stage = new Stage();
+            stage.show();
+        });
+        System.out.println(String.format("%-16s %12s %12s", "scenario", "cpu ms/s", "pulses/s"));
+        for (String scenario : new String[] {"empty", "timeline-paused", "paused", "running"}) {
+            run(scenario, seconds);
+        }
+        onFx(stage::close);
+        Platform.exit();
+        System.exit(0);
+    }
+
+    private static void run(String scenario, long seconds) throws Exception {
+        Timeline[] legacy = new Timeline[1];
+        GameController[] controller = new GameController[1];
+        onFx(() -> {
+            GridPane grid = new GridPane();
+            Scene scene = new Scene(grid, 800, 700);
+            scene.addPreLayoutPulseListener(pulses::incrementAndGet);
+            controller[0] = new GameController(grid, GameController.Difficulty.HARD);
+            switch (scenario) {
+                case "timeline-paused" -> {
+                    // What GameController did before: keep firing and skip the increment
+                    boolean[] paused = {true};
+                    int[] time = {0};
+                    legacy[0] = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
+                        if (!paused[0]) {
+                            time[0]++;
+                        }
+                    }));
+                    legacy[0].setCycleCount(Timeline.INDEFINITE);
+                    legacy[0].play();
+                }
+                case "paused" -> {
+                    controller[0].startGame();
+                    controller[0].togglePause();
+                }
+                case "running" -> controller[0].startGame();
+                default -> {
+                }
+            }
+            stage.setScene(scene);
+        });
+        Thread.sleep(SETTLE_MILLIS);
+
+        long cpuStart = OS.getProcessCpuTime();
+        long pulsesStart = pulses.get();
+        long wallStart = System.nanoTime();
+        Thread.sleep(seconds * 1000);
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        double cpuMillis = (OS.getProcessCpuTime() - cpuStart) / 1e6;
+        long pulseCount = pulses.get() - pulsesStart;
+
+        onFx(() -> {
+            if (legacy[0] != null) {
+                legacy[0].stop();
+            }
+            controller[0].cleanup();
+        });
+        System.out.println(String.format("%-16s %12.2f %12.1f", scenario, cpuMillis / wallSeconds, pulseCount / wallSeconds));
+    }
+
+    private static void onFx(Runnable action) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Runnable wrapped = () -> {
+            try {
+                action.run();
+            } finally {
+                done.countDown();
+            }
+        };
+        if (stage == null) {
+            Platform.startup(wrapped);
+        } else {
+            Platform.runLater(wrapped);
+        }
+        done.await();
+    }
+}
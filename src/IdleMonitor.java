@@ -0,0 +1,86 @@
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.input.InputEvent;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a callback on the FX thread once a scene has had no mouse, key, touch or scroll input for
+ * idlePauseSeconds (GameConfig, 0 turns it off).
+ *
+ * Input only stores a timestamp. Nothing polls: one check is scheduled for when the timeout
+ * would expire and, if input arrived since, re-armed for the remainder, so an idle kiosk wakes
+ * once per timeout rather than once per frame or per second. After firing, the first input
+ * starts a new countdown.
+ */
+public final class IdleMonitor {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "idle-monitor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Runnable onIdle;
+    private volatile long lastInput = System.nanoTime();
+    private volatile boolean fired = false;
+    private ScheduledFuture<?> check;
+
+    public IdleMonitor(Scene scene, Runnable onIdle) {
+        this.onIdle = onIdle;
+        scene.addEventFilter(InputEvent.ANY, e -> {
+            lastInput = System.nanoTime();
+            if (fired) {
+                start();
+            }
+        });
+    }
+
+    /**
+     * Start (or restart) the countdown from now.
+     */
+    public synchronized void start() {
+        fired = false;
+        lastInput = System.nanoTime();
+        schedule(TimeUnit.SECONDS.toNanos(GameConfig.get(GameConfig.IDLE_PAUSE_SECONDS)));
+    }
+
+    public synchronized void stop() {
+        fired = false;
+        cancel();
+    }
+
+    private void cancel() {
+        if (check != null) {
+            check.cancel(false);
+            check = null;
+        }
+    }
+
+    private synchronized void schedule(long delayNanos) {
+        cancel();
+        if (delayNanos > 0) {
+            check = SCHEDULER.schedule(this::check, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void check() {
+        if (check == null) {
+            return;
+        }
+        long timeout = TimeUnit.SECONDS.toNanos(GameConfig.get(GameConfig.IDLE_PAUSE_SECONDS));
+        if (timeout <= 0) {
+            check = null;
+            return;
+        }
+        long remaining = lastInput + timeout - System.nanoTime();
+        if (remaining > 0) {
+            schedule(remaining);
+            return;
+        }
+        check = null;
+        fired = true;
+        Platform.runLater(onIdle);
+    }
+}
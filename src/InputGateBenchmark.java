@@ -0,0 +1,109 @@
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.layout.GridPane;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Cost of blocking board input for one move: disabling every unmatched card and re-enabling it
+ * (the old per-move loop) against closing and opening a BoardInputGate.
+ *
+ * Each size gets a GridPane of real Card buttons in a Scene, with a quarter of the cards
+ * matched. A move is lock, CSS + layout pass, unlock, CSS + layout pass, all on the FX thread,
+ * so the numbers include the pseudo-class restyling the loop triggers on every card.
+ *
+ * Usage: java InputGateBenchmark [moves]   (default 500 moves per size, needs a display)
+ */
+public class InputGateBenchmark {
+    private static final int[] SIZES = {24, 256, 1024};
+    private static final int WARMUP_MOVES = 200;
+
+    public static void main(String[] args) throws Exception {
+        int moves = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.startup(() -> {
+            try {
+                System.out.println(String.format("%6s  %-8s %10s %10s %10s", "cards", "gate", "mean us", "p50 us", "p99 us"));
+                for (int size : SIZES) {
+                    run(size, moves);
+                }
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Platform.exit();
+    }
+
+    private static void run(int size, int moves) {
+        GridPane grid = new GridPane();
+        List<Card> cards = new ArrayList<>();
+        int cols = (int) Math.ceil(Math.sqrt(size));
+        for (int i = 0; i < size; i++) {
+            Card card = new Card(i / 2);
+            if (i % 4 == 0) {
+                card.setMatched(true);
+            }
+            cards.add(card);
+            grid.add(card.getButton(), i % cols, i / cols);
+        }
+        new Scene(grid);
+        BoardInputGate gate = new BoardInputGate(grid);
+
+        Runnable loop = () -> {
+            setUnmatchedDisabled(cards, true);
+            pass(grid);
+            setUnmatchedDisabled(cards, false);
+            pass(grid);
+        };
+        Runnable gated = () -> {
+            gate.close(BoardInputGate.RESOLVING);
+            pass(grid);
+            gate.open(BoardInputGate.RESOLVING);
+            pass(grid);
+        };
+        pass(grid);
+        report(size, "loop", measure(loop, moves));
+        report(size, "gate", measure(gated, moves));
+    }
+
+    private static void setUnmatchedDisabled(List<Card> cards, boolean disabled) {
+        for (Card c : cards) {
+            if (!c.isMatched()) {
+                c.getButton().setDisable(disabled);
+            }
+        }
+    }
+
+    private static void pass(GridPane grid) {
+        grid.applyCss();
+        grid.layout();
+    }
+
+    private static long[] measure(Runnable move, int moves) {
+        for (int i = 0; i < WARMUP_MOVES; i++) {
+            move.run();
+        }
+        long[] nanos = new long[moves];
+        for (int i = 0; i < moves; i++) {
+            long start = System.nanoTime();
+            move.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static void report(int size, String label, long[] sorted) {
+        long total = 0;
+        for (long n : sorted) {
+            total += n;
+        }
+        System.out.println(String.format("%6d  %-8s %10.1f %10.1f %10.1f", size, label,
+            total / (double) sorted.length / 1000.0,
+            sorted[sorted.length / 2] / 1000.0,
+            sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))] / 1000.0));
+    }
+}
@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes the game's custom JFR events from a recording.
+ * Reports click-to-visual-feedback latency percentiles (memorygame.CardFlip) per difficulty,
+ * followed by the other game and database events.
+ *
+ * Usage: java JfrLatencyAnalyzer recording.jfr
+ */
+public class JfrLatencyAnalyzer {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java JfrLatencyAnalyzer recording.jfr");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        Map<String, List<Long>> durations = new TreeMap<>();
+
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String name = event.getEventType().getName();
+                if (!name.startsWith("memorygame.") || name.startsWith("memorygame.Metric")) {
+                    continue;
+                }
+                String key = name.substring("memorygame.".length());
+                if (event.hasField("difficulty") && event.getString("difficulty") != null) {
+                    key += " [" + event.getString("difficulty") + "]";
+                }
+                if (event.hasField("matched")) {
+                    key += event.getBoolean("matched") ? " match" : " mismatch";
+                }
+                durations.computeIfAbsent(key, k -> new ArrayList<>()).add(event.getDuration().toNanos());
+            }
+        }
+
+        if (durations.isEmpty()) {
+            System.out.println("No memorygame.* events found. Record with -XX:StartFlightRecording=settings=jfr/memorygame.jfc");
+            return;
+        }
+
+        System.out.printf("%-32s %7s %9s %9s %9s %9s%n", "Event", "Count", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, List<Long>> entry : durations.entrySet()) {
+            long[] values = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(values);
+            System.out.printf("%-32s %7d %9.2f %9.2f %9.2f %9.2f%n",
+                entry.getKey(), values.length,
+                percentile(values, 50) / 1e6, percentile(values, 90) / 1e6,
+                percentile(values, 99) / 1e6, values[values.length - 1] / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(sorted.length * p / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
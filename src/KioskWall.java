@@ -0,0 +1,146 @@
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Group;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.RowConstraints;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Several independent single player boards in one window, for split screen and kiosk walls
+ * (kioskBoards in GameConfig).
+ *
+ * Each board has its own GameController, GameHud and New button, laid out on a near-square
+ * grid and scaled down to fit its cell. Boards hold no process-wide state of their own: they
+ * share the sound thread, the deck cache, the database pool, BoardScheduler for their clocks
+ * and UiUpdateBus for their labels, so an extra board costs its cards and little else. A won
+ * board deals again after a few seconds.
+ */
+public class KioskWall {
+    private static final long REDEAL_MILLIS = 5000;
+
+    /**
+     * One board on the wall.
+     */
+    public static final class Board {
+        private final GameController controller;
+        private final GridPane grid;
+
+        private Board(GameController controller, GridPane grid) {
+            this.controller = controller;
+            this.grid = grid;
+        }
+
+        public GameController getController() {
+            return controller;
+        }
+
+        public GridPane getGrid() {
+            return grid;
+        }
+    }
+
+    private final GridPane wall = new GridPane();
+    private final List<Board> boards = new ArrayList<>();
+    private boolean closed = false;
+
+    public KioskWall(int count, GameController.Difficulty difficulty) {
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        int rows = (count + columns - 1) / columns;
+        for (int c = 0; c < columns; c++) {
+            ColumnConstraints column = new ColumnConstraints();
+            column.setPercentWidth(100.0 / columns);
+            wall.getColumnConstraints().add(column);
+        }
+        for (int r = 0; r < rows; r++) {
+            RowConstraints row = new RowConstraints();
+            row.setPercentHeight(100.0 / rows);
+            wall.getRowConstraints().add(row);
+        }
+        wall.setStyle("-fx-background-color: linear-gradient(to bottom, #f5f7fa 0%, #c3cfe2 100%);");
+
+        for (int i = 0; i < count; i++) {
+            wall.add(createBoard(difficulty), i % columns, i / columns);
+        }
+    }
+
+    private StackPane createBoard(GameController.Difficulty difficulty) {
+        GridPane grid = new GridPane();
+        grid.setAlignment(Pos.CENTER);
+        grid.setPadding(new Insets(10));
+        GameController controller = new GameController(grid, difficulty);
+
+        Label scoreLabel = hudLabel("Score: 0");
+        Label timeLabel = hudLabel("Time: 00:00");
+        Label movesLabel = hudLabel("Moves: 0");
+        GameHud.attach(controller, scoreLabel, timeLabel, movesLabel);
+        boards.add(new Board(controller, grid));
+
+        Button newButton = new Button("New");
+        newButton.setOnAction(e -> controller.reset());
+        controller.setOnGameWon(() -> BoardScheduler.getInstance().once(REDEAL_MILLIS, () -> {
+            if (!closed && controller.isGameWon()) {
+                controller.reset();
+            }
+        }));
+
+        HBox hud = new HBox(15, scoreLabel, timeLabel, movesLabel, newButton);
+        hud.setAlignment(Pos.CENTER);
+        hud.setPadding(new Insets(8));
+        hud.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-background-radius: 10;");
+
+        VBox board = new VBox(hud, grid);
+        board.setAlignment(Pos.CENTER);
+
+        // Shrink the board to its cell; the Group takes the scaled bounds for layout
+        StackPane cell = new StackPane(new Group(board));
+        cell.setMinSize(0, 0);
+        cell.setPadding(new Insets(5));
+        Runnable fit = () -> {
+            double scale = Math.min(1.0, Math.min(
+                (cell.getWidth() - 10) / board.prefWidth(-1),
+                (cell.getHeight() - 10) / board.prefHeight(-1)));
+            if (scale > 0) {
+                board.setScaleX(scale);
+                board.setScaleY(scale);
+            }
+        };
+        cell.widthProperty().addListener((obs, oldValue, newValue) -> fit.run());
+        cell.heightProperty().addListener((obs, oldValue, newValue) -> fit.run());
+        return cell;
+    }
+
+    private static Label hudLabel(String text) {
+        Label label = new Label(text);
+        label.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+        return label;
+    }
+
+    public Parent getRoot() {
+        return wall;
+    }
+
+    public List<Board> getBoards() {
+        return Collections.unmodifiableList(boards);
+    }
+
+    /**
+     * Stop every board's clock.
+     */
+    public void cleanup() {
+        closed = true;
+        for (Board board : boards) {
+            board.controller.cleanup();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.layout.Pane;
+import javafx.stage.Stage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Memory per board and frame time for a KioskWall of 1 to 16 boards in one window.
+ *
+ * For each wall size the heap is measured after GC with an empty scene and again once the wall
+ * is shown and skinned, giving the cost of each additional board. Then a bot plays every board
+ * at once, clicking a random face-down card on each board about every 150 ms (a busy wall,
+ * well beyond what people manage), and every pulse is timed two ways:
+ *   pulse  CSS + layout work in the pulse (pre to post layout listener)
+ *   frame  interval between pulses, which also covers rendering and the FX thread's other work
+ *
+ * Usage: java KioskWallBenchmark [seconds] [boards...]   (default 10 s for 1 4 8 16, needs a display)
+ * Difficulty comes from GameConfig (--kioskDifficulty=HARD).
+ */
+public class KioskWallBenchmark {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static final long SETTLE_MILLIS = 2000;
+    private static final double CLICK_CHANCE_PER_FRAME = 1000.0 / 60 / 150;
+
+    private static Stage stage;
+
+    public static void main(String[] args) throws Exception {
+        args = GameConfig.init(args);
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 10;
+        int[] sizes = args.length > 1
+            ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+            : new int[] {1, 4, 8, 16};
+        GameController.Difficulty difficulty =
+            GameController.Difficulty.valueOf(GameConfig.get(GameConfig.KIOSK_DIFFICULTY).trim().toUpperCase());
+        // Keep the bot's clicks from queueing sound downloads and players
+        SoundManager.getInstance().setSoundsEnabled(false);
+
+        onFx(() -> {
+            stage = new Stage();
+            stage.setScene(new Scene(new Pane(), 1600, 1000));
+            stage.show();
+        });
+        System.out.println(difficulty + " boards, " + seconds + " s of play per wall");
+        System.out.println(String.format("%6s %10s %10s %12s %12s %12s %12s %8s", "boards", "heap MB", "KB/board",
+            "pulse mean", "pulse p99", "frame p50", "frame p99", "fps"));
+        for (int boards : sizes) {
+            run(boards, difficulty, seconds);
+        }
+        onFx(stage::close);
+        Platform.exit();
+        System.exit(0);
+    }
+
+    private static void run(int boards, GameController.Difficulty difficulty, long seconds) throws Exception {
+        onFx(() -> stage.getScene().setRoot(new Pane()));
+        Thread.sleep(SETTLE_MILLIS);
+        long before = usedHeap();
+
+        KioskWall[] wall = new KioskWall[1];
+        onFx(() -> {
+            wall[0] = new KioskWall(boards, difficulty);
+            stage.getScene().setRoot(wall[0].getRoot());
+        });
+        Thread.sleep(SETTLE_MILLIS);
+        long after = usedHeap();
+
+        long[] pulseNanos = new long[1 << 16];
+        long[] frameNanos = new long[1 << 16];
+        int[] count = new int[1];
+        long[] pulseStart = new long[1];
+        long[] lastFrame = new long[1];
+        Random random = new Random(42);
+        Runnable pre = () -> {
+            long now = System.nanoTime();
+            if (lastFrame[0] != 0 && count[0] < frameNanos.length) {
+                frameNanos[count[0]] = now - lastFrame[0];
+            }
+            lastFrame[0] = now;
+            pulseStart[0] = now;
+        };
+        Runnable post = () -> {
+            if (count[0] < pulseNanos.length) {
+                pulseNanos[count[0]++] = System.nanoTime() - pulseStart[0];
+            }
+        };
+        AnimationTimer bot = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                for (KioskWall.Board board : wall[0].getBoards()) {
+                    if (random.nextDouble() < CLICK_CHANCE_PER_FRAME) {
+                        clickRandomCard(board, random);
+                    }
+                }
+            }
+        };
+        onFx(() -> {
+            Scene scene = stage.getScene();
+            scene.addPreLayoutPulseListener(pre);
+            scene.addPostLayoutPulseListener(post);
+            bot.start();
+        });
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000);
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        onFx(() -> {
+            bot.stop();
+            Scene scene = stage.getScene();
+            scene.removePreLayoutPulseListener(pre);
+            scene.removePostLayoutPulseListener(post);
+            wall[0].cleanup();
+        });
+
+        int n = Math.min(count[0], pulseNanos.length);
+        long[] pulses = Arrays.copyOf(pulseNanos, n);
+        long[] frames = Arrays.copyOfRange(frameNanos, 1, n);
+        Arrays.sort(pulses);
+        Arrays.sort(frames);
+        System.out.println(String.format("%6d %10.1f %10.1f %12.3f %12.3f %12.3f %12.3f %8.1f", boards,
+            after / 1048576.0, (after - before) / 1024.0 / boards,
+            mean(pulses) / 1e6, percentile(pulses, 0.99) / 1e6,
+            percentile(frames, 0.50) / 1e6, percentile(frames, 0.99) / 1e6, n / wallSeconds));
+    }
+
+    /**
+     * Click a face-down card, as a player would; the controller ignores it while a pair resolves.
+     */
+    private static void clickRandomCard(KioskWall.Board board, Random random) {
+        List<Button> candidates = new ArrayList<>();
+        for (Node node : board.getGrid().getChildren()) {
+            if (node instanceof Button button && !button.isDisabled() && "?".equals(button.getText())) {
+                candidates.add(button);
+            }
+        }
+        if (!candidates.isEmpty()) {
+            candidates.get(random.nextInt(candidates.size())).fire();
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double mean(long[] values) {
+        long sum = 0;
+        for (long v : values) {
+            sum += v;
+        }
+        return values.length == 0 ? 0 : (double) sum / values.length;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+    private static void onFx(Runnable action) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Runnable wrapped = () -> {
+            try {
+                action.run();
+            } finally {
+                done.countDown();
+            }
+        };
+        if (stage == null) {
+            Platform.startup(wrapped);
+        } else {
+            Platform.runLater(wrapped);
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,65 @@
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Time window of a leaderboard. Timed windows are calendar buckets in UTC (days, ISO weeks
+ * starting Monday, months): each one holds a pre-aggregated best-per-player board that
+ * starts empty when its bucket begins, and older buckets are dropped rather than filtered.
+ */
+public enum LeaderboardPeriod {
+    ALL_TIME("All time", 'A'),
+    DAILY("Today", 'D'),
+    WEEKLY("This week", 'W'),
+    MONTHLY("This month", 'M');
+
+    private final String label;
+    private final char code;
+
+    LeaderboardPeriod(String label, char code) {
+        this.label = label;
+        this.code = code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * One-letter key stored with each bucket.
+     */
+    public char getCode() {
+        return code;
+    }
+
+    public boolean isTimed() {
+        return this != ALL_TIME;
+    }
+
+    /**
+     * @return First day of the bucket containing the given time, or LocalDate.MIN for ALL_TIME
+     */
+    public LocalDate bucketStart(long epochMillis) {
+        LocalDate day = Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC).toLocalDate();
+        return switch (this) {
+            case DAILY -> day;
+            case WEEKLY -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHLY -> day.withDayOfMonth(1);
+            case ALL_TIME -> LocalDate.MIN;
+        };
+    }
+
+    /**
+     * @return First day of the bucket that is current right now
+     */
+    public LocalDate currentBucket() {
+        return bucketStart(System.currentTimeMillis());
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,207 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Indexable skip list: a sorted set that also answers "what is the rank of x" and
+ * "what is at rank r" in O(log n). Each forward link records its span (how many
+ * level-0 steps it skips), so ranks are summed on the way down instead of counted.
+ *
+ * Not thread-safe on its own. EmbeddedScoreStore writes under a write lock and reads
+ * (top-K, rank) under the matching read lock, so any number of readers run in parallel.
+ */
+public class LeaderboardSkipList<T> implements Iterable<T> {
+    private static final int MAX_LEVEL = 32;
+
+    private final Comparator<? super T> order;
+    private final Node<T> head = new Node<>(null, MAX_LEVEL);
+    private int level = 1;
+    private int size = 0;
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    public LeaderboardSkipList(Comparator<? super T> order) {
+        this.order = order;
+    }
+
+    private static final class Node<T> {
+        final T value;
+        final Node<T>[] next;
+        final int[] span;
+
+        Node(T value, int levels) {
+            this.value = value;
+            this.next = newNodes(levels);
+            this.span = new int[levels];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newNodes(int length) {
+        return (Node<T>[]) new Node<?>[length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Insert a value.
+     * @return false if an equal value is already present
+     */
+    public boolean add(T value) {
+        Node<T>[] update = newNodes(MAX_LEVEL);
+        int[] rank = new int[MAX_LEVEL];
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && order.compare(x.next[i].value, value) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        if (x.next[0] != null && order.compare(x.next[0].value, value) == 0) {
+            return false;
+        }
+
+        int levels = randomLevel();
+        if (levels > level) {
+            for (int i = level; i < levels; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = levels;
+        }
+        Node<T> node = new Node<>(value, levels);
+        for (int i = 0; i < levels; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = levels; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove a value.
+     * @return false if it was not present
+     */
+    public boolean remove(T value) {
+        Node<T>[] update = newNodes(MAX_LEVEL);
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && order.compare(x.next[i].value, value) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        Node<T> target = x.next[0];
+        if (target == null || order.compare(target.value, value) != 0) {
+            return false;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].span[i] += target.span[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * @return The 1-based rank of the value, or -1 if it is not present
+     */
+    public int rankOf(T value) {
+        Node<T> x = head;
+        int rank = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && order.compare(x.next[i].value, value) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+        }
+        return x != head && order.compare(x.value, value) == 0 ? rank : -1;
+    }
+
+    /**
+     * @return How many values sort strictly before the given value (present or not)
+     */
+    public int countBefore(T value) {
+        Node<T> x = head;
+        int rank = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && order.compare(x.next[i].value, value) < 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * @param rank 1-based rank
+     * @return The value at that rank, or null if out of range
+     */
+    public T get(int rank) {
+        if (rank < 1 || rank > size) {
+            return null;
+        }
+        Node<T> x = head;
+        int traversed = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Iterates in ascending order from the first element; stop early for top-K.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private Node<T> current = head.next[0];
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public T next() {
+                if (current == null) {
+                    throw new NoSuchElementException();
+                }
+                T value = current.value;
+                current = current.next[0];
+                return value;
+            }
+        };
+    }
+
+    private int randomLevel() {
+        // xorshift64; each extra level with probability 1/4
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        int levels = 1 + Long.numberOfTrailingZeros(seed | (1L << 62)) / 2;
+        return Math.min(levels, MAX_LEVEL);
+    }
+}
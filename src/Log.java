@@ -0,0 +1,425 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous structured logger.
+ *
+ * A call site names an event and adds key=value fields:
+ *
+ *   Log.info("session.saved").field("player", playerId).field("score", score).log();
+ *
+ * Below the configured level (logLevel) the event is a shared no-op, so a disabled call does not
+ * allocate or box anything. An enabled event is built in a per-thread buffer and copied into a
+ * slot of a fixed lock-free ring; producers never block, and if the writer falls a full ring
+ * behind the entry is dropped and counted (log.dropped). One daemon thread formats entries and
+ * appends them to logDir/memorygame.log, rotating at logMaxMb through logFiles old files, and
+ * echoes entries at or above logConsoleLevel to stderr.
+ *
+ * Line format: time level [thread] event key=value ..., values quoted when they contain spaces,
+ * quotes or '='. A Throwable attached with error() adds an error field and its stack trace.
+ */
+public final class Log {
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    public static final String FILE_NAME = "memorygame.log";
+    private static final int CAPACITY = 8192;
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+    private static final long FLUSH_TIMEOUT_MILLIS = 2000;
+    private static final DateTimeFormatter SECONDS =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneOffset.UTC);
+    private static final Metrics.Counter DROPPED = Metrics.counter("log.dropped");
+    private static final Metrics.Counter WRITE_FAILURES = Metrics.counter("log.writeFailures");
+
+    private static final Slot[] RING = new Slot[CAPACITY];
+    /** Next sequence to claim. */
+    private static final AtomicLong HEAD = new AtomicLong();
+    /** Next sequence to write; only the writer advances it. */
+    private static volatile long tail = 0;
+    /** Everything before this sequence is in the file (or was dropped on an I/O error). */
+    private static volatile long flushed = 0;
+    private static volatile boolean writerParked = false;
+
+    private static volatile int threshold;
+    private static volatile int consoleThreshold;
+
+    private static final Event DISABLED = new Event(false);
+    private static final ThreadLocal<Event> EVENTS = ThreadLocal.withInitial(() -> new Event(true));
+    private static final Thread WRITER;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            RING[i] = new Slot();
+        }
+        threshold = parseLevel(GameConfig.get(GameConfig.LOG_LEVEL)).ordinal();
+        consoleThreshold = parseLevel(GameConfig.get(GameConfig.LOG_CONSOLE_LEVEL)).ordinal();
+        GameConfig.addListener(GameConfig.LOG_LEVEL, value -> threshold = parseLevel(value).ordinal());
+        GameConfig.addListener(GameConfig.LOG_CONSOLE_LEVEL, value -> consoleThreshold = parseLevel(value).ordinal());
+
+        WRITER = new Thread(new Writer(Paths.get(GameConfig.get(GameConfig.LOG_DIR)),
+            GameConfig.get(GameConfig.LOG_MAX_MB) * 1024L * 1024L, GameConfig.get(GameConfig.LOG_FILES)), "log-writer");
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    public static Event trace(String event) {
+        return at(Level.TRACE, event);
+    }
+
+    public static Event debug(String event) {
+        return at(Level.DEBUG, event);
+    }
+
+    public static Event info(String event) {
+        return at(Level.INFO, event);
+    }
+
+    public static Event warn(String event) {
+        return at(Level.WARN, event);
+    }
+
+    public static Event error(String event) {
+        return at(Level.ERROR, event);
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    private static Event at(Level level, String event) {
+        if (level.ordinal() < threshold) {
+            return DISABLED;
+        }
+        return EVENTS.get().start(level, event);
+    }
+
+    /**
+     * Wait (up to two seconds) until everything logged so far is written to the file.
+     */
+    public static void flush() {
+        long target = HEAD.get();
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MILLIS;
+        while (flushed < target && System.currentTimeMillis() < deadline) {
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(1_000_000L);
+        }
+    }
+
+    /**
+     * @return Entries dropped because the ring was full
+     */
+    public static long getDropped() {
+        return DROPPED.get();
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level '" + value + "', using INFO");
+            return Level.INFO;
+        }
+    }
+
+    /**
+     * One entry being built. Each thread reuses its own, so an event must be finished with log()
+     * before the same thread starts another.
+     */
+    public static final class Event {
+        private final boolean enabled;
+        private final StringBuilder text;
+        private Level level;
+        private Throwable error;
+
+        private Event(boolean enabled) {
+            this.enabled = enabled;
+            this.text = enabled ? new StringBuilder(256) : null;
+        }
+
+        private Event start(Level level, String event) {
+            this.level = level;
+            this.error = null;
+            text.setLength(0);
+            text.append(event);
+            return this;
+        }
+
+        public Event field(String key, String value) {
+            if (enabled) {
+                key(key);
+                appendQuoted(text, value);
+            }
+            return this;
+        }
+
+        public Event field(String key, long value) {
+            if (enabled) {
+                key(key).append(value);
+            }
+            return this;
+        }
+
+        public Event field(String key, double value) {
+            if (enabled) {
+                key(key).append(value);
+            }
+            return this;
+        }
+
+        public Event field(String key, boolean value) {
+            if (enabled) {
+                key(key).append(value);
+            }
+            return this;
+        }
+
+        public Event field(String key, Object value) {
+            if (enabled) {
+                key(key);
+                appendQuoted(text, value == null ? null : value.toString());
+            }
+            return this;
+        }
+
+        /**
+         * Attach a failure: its message becomes the error field and its stack trace follows the line.
+         */
+        public Event error(Throwable t) {
+            if (enabled) {
+                error = t;
+                key("error");
+                appendQuoted(text, t.getMessage() != null ? t.getMessage() : t.getClass().getName());
+            }
+            return this;
+        }
+
+        private StringBuilder key(String key) {
+            return text.append(' ').append(key).append('=');
+        }
+
+        /**
+         * Hand the entry to the writer. Never blocks; drops the entry if the ring is full.
+         */
+        public void log() {
+            if (!enabled) {
+                return;
+            }
+            long seq;
+            do {
+                seq = HEAD.get();
+                if (seq - tail >= CAPACITY) {
+                    DROPPED.increment();
+                    error = null;
+                    return;
+                }
+            } while (!HEAD.compareAndSet(seq, seq + 1));
+
+            Slot slot = RING[(int) (seq & MASK)];
+            slot.timeMillis = System.currentTimeMillis();
+            slot.level = level;
+            slot.thread = Thread.currentThread().getName();
+            slot.error = error;
+            slot.text.setLength(0);
+            slot.text.append(text);
+            slot.published = seq + 1;
+            error = null;
+            if (writerParked) {
+                LockSupport.unpark(WRITER);
+            }
+        }
+    }
+
+    private static void appendQuoted(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c <= ' ' || c == '"' || c == '=';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static final class Slot {
+        /** Sequence + 1 once this slot holds that entry. */
+        volatile long published = 0;
+        long timeMillis;
+        Level level;
+        String thread;
+        Throwable error;
+        final StringBuilder text = new StringBuilder(256);
+    }
+
+    /**
+     * Drains the ring in order, writes to the current file and rotates it by size.
+     */
+    private static final class Writer implements Runnable {
+        private final Path directory;
+        private final long maxBytes;
+        private final int files;
+        private BufferedWriter out;
+        private long size;
+        private final StringBuilder line = new StringBuilder(512);
+        private long cachedSecond = Long.MIN_VALUE;
+        private String cachedSecondText;
+
+        Writer(Path directory, long maxBytes, int files) {
+            this.directory = directory;
+            this.maxBytes = maxBytes;
+            this.files = files;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                long next = tail;
+                Slot slot = RING[(int) (next & MASK)];
+                if (slot.published == next + 1) {
+                    try {
+                        write(slot);
+                    } catch (RuntimeException e) {
+                        // e.g. a field or error whose toString throws; skip the event, not the log
+                        WRITE_FAILURES.increment();
+                    }
+                    slot.error = null;
+                    tail = next + 1;
+                    continue;
+                }
+                if (HEAD.get() == next) {
+                    // Idle: make everything so far durable, then sleep until a producer wakes us
+                    flushFile();
+                    flushed = next;
+                    writerParked = true;
+                    if (HEAD.get() == next) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    writerParked = false;
+                } else {
+                    // Claimed but not yet published; the producer is mid-copy
+                    Thread.onSpinWait();
+                }
+            }
+        }
+
+        private void write(Slot slot) {
+            line.setLength(0);
+            appendTime(slot.timeMillis);
+            line.append(' ').append(slot.level.name())
+                .append(" [").append(slot.thread).append("] ")
+                .append(slot.text);
+            if (slot.error != null) {
+                StringWriter trace = new StringWriter();
+                slot.error.printStackTrace(new PrintWriter(trace));
+                line.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+            }
+            if (slot.level.ordinal() >= consoleThreshold) {
+                System.err.println(line);
+            }
+            try {
+                if (out == null || size >= maxBytes) {
+                    rotate();
+                }
+                out.append(line).append(System.lineSeparator());
+                size += line.length() + 1;
+            } catch (IOException e) {
+                System.err.println("Error writing log file: " + e.getMessage());
+                closeFile();
+            }
+        }
+
+        /**
+         * UTC time with milliseconds; the date and time of day are formatted once per second.
+         */
+        private void appendTime(long millis) {
+            long second = Math.floorDiv(millis, 1000);
+            if (second != cachedSecond) {
+                cachedSecond = second;
+                cachedSecondText = SECONDS.format(Instant.ofEpochSecond(second));
+            }
+            int ms = Math.floorMod(millis, 1000);
+            line.append(cachedSecondText).append('.')
+                .append((char) ('0' + ms / 100)).append((char) ('0' + ms / 10 % 10)).append((char) ('0' + ms % 10))
+                .append('Z');
+        }
+
+        private void rotate() throws IOException {
+            closeFile();
+            Files.createDirectories(directory);
+            Path current = directory.resolve(FILE_NAME);
+            if (Files.exists(current) && Files.size(current) >= maxBytes) {
+                // memorygame.log.N is the oldest kept and is overwritten
+                for (int i = files - 1; i >= 1; i--) {
+                    Path older = directory.resolve(FILE_NAME + "." + i);
+                    if (Files.exists(older)) {
+                        Files.move(older, directory.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(current, directory.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            }
+            out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(current,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 1 << 16);
+            size = Files.size(current);
+        }
+
+        private void flushFile() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Error flushing log file: " + e.getMessage());
+                closeFile();
+            }
+        }
+
+        private void closeFile() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // Already failing; the next write reopens
+                }
+                out = null;
+            }
+        }
+    }
+}
@@ -10,7 +10,10 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import javafx.stage.Modality;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main JavaFX application for the Memory Match Game.
@@ -25,25 +28,67 @@ public class MemoryGameApp extends Application {
     
     // Current game state
     private GameController currentGameController;
+    private MultiplayerController currentMultiplayerController;
+    private SpectatorBroadcaster spectatorBroadcaster;
+    private SpectatorServer spectatorServer;
+    private KioskWall kioskWall;
     private int currentPlayerId = -1;
     private String currentPlayerName = "Guest";
     private GameController.Difficulty currentDifficulty = GameController.Difficulty.MEDIUM;
+    private IdleMonitor idleMonitor;
+    /** Pauses the current game if it is running; set while the game screen is up. */
+    private Runnable autoPause;
+    /** The current player's saved game, kept so resuming does not wait on the disk. */
+    private GameSnapshot savedGame;
     
     // UI Components that need updates
     private Label welcomeLabel;
+    private Button resumeButton;
     private Label scoreLabel;
     private Label timerLabel;
     private Label movesLabel;
     
+    // Pulse timing
+    private static final Metrics.Histogram PULSE_LATENCY = Metrics.histogram("fx.pulse");
+    /** Rows of the best-per-player board shown on the end game screen. */
+    private static final int END_GAME_TOP_N = 5;
+    private long pulseStartNanos;
+    
     @Override
     public void start(Stage stage) {
         this.primaryStage = stage;
         
+        // Tunables in the config file apply without a restart
+        GameConfig.startWatching();
+        
         // Initialize database
         DatabaseHelper.initializeDatabase();
         
+        // Periodic metrics snapshot (also exposed as JFR events)
+        Metrics.startReporter(Paths.get(GameConfig.get(GameConfig.METRICS_FILE)),
+            GameConfig.get(GameConfig.METRICS_INTERVAL_SECONDS));
+        
+        boolean probe = GameConfig.get(GameConfig.STARTUP_PROBE);
+        
+        // Optional spectator stream (--spectatorPort=7778)
+        startSpectatorServer();
+        
+        // Decode the picture deck (--deck=name) while the player is still in the menus
+        if (!probe) {
+            DeckCache.getInstance().load(GameConfig.get(GameConfig.DECK));
+        }
+        
+        // Kiosk wall: N boards in one window, no menus (--kioskBoards=16)
+        int kioskBoards = GameConfig.get(GameConfig.KIOSK_BOARDS);
+        if (kioskBoards > 0 && !probe) {
+            showKioskWall(kioskBoards);
+            return;
+        }
+        
         // Request player name on first launch
-        requestPlayerName();
+        if (!probe) {
+            requestPlayerName();
+        }
         
         // Create all scenes
         createMainMenuScene();
@@ -55,16 +100,119 @@ public class MemoryGameApp extends Application {
         stage.setMinWidth(600);
         stage.setMinHeight(600);
         stage.show();
+        if (probe) {
+            exitOnFirstFrame();
+        }
+        
+        // Minimising the window pauses a running game
+        stage.iconifiedProperty().addListener((obs, wasIconified, iconified) -> {
+            if (iconified && autoPause != null) {
+                autoPause.run();
+            }
+        });
         
         // Cleanup on close
         stage.setOnCloseRequest(e -> {
-            if (currentGameController != null) {
-                currentGameController.cleanup();
+            leaveGameScreen();
+            try {
+                saveGame().get(2, TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                Log.warn("snapshot.exitSaveFailed").error(ex).log();
+            }
+            closeGame();
+            if (currentMultiplayerController != null) {
+                currentMultiplayerController.cleanup();
+            }
+            shutdown();
+        });
+    }
+    
+    /**
+     * Release what every screen shares: spectators, sound, database, config watcher, metrics.
+     */
+    private void shutdown() {
+        if (kioskWall != null) {
+            kioskWall.cleanup();
+        }
+        if (spectatorServer != null) {
+            spectatorServer.stop();
+            spectatorBroadcaster.shutdown();
+        }
+        SoundManager.getInstance().cleanup();
+        DatabaseHelper.close();
+        GameConfig.stopWatching();
+        Metrics.writeSnapshot(Paths.get(GameConfig.get(GameConfig.METRICS_FILE)));
+    }
+    
+    /**
+     * Show a wall of independent boards that fills the screen.
+     */
+    private void showKioskWall(int boards) {
+        GameController.Difficulty difficulty;
+        try {
+            difficulty = GameController.Difficulty.valueOf(GameConfig.get(GameConfig.KIOSK_DIFFICULTY).trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            Log.warn("kiosk.unknownDifficulty").field("kioskDifficulty", GameConfig.get(GameConfig.KIOSK_DIFFICULTY))
+                .field("using", "MEDIUM").log();
+            difficulty = GameController.Difficulty.MEDIUM;
+        }
+        kioskWall = new KioskWall(boards, difficulty);
+        Scene scene = new Scene(kioskWall.getRoot(), 1280, 800);
+        instrumentPulses(scene);
+        primaryStage.setScene(scene);
+        primaryStage.setTitle("Memory Match Game");
+        primaryStage.setMaximized(true);
+        primaryStage.setOnCloseRequest(e -> shutdown());
+        primaryStage.show();
+    }
+    
+    /**
+     * Startup probe: report when the main menu has been laid out for its first frame, then exit.
+     * StartupBenchmark waits for the line; the AppCDS training run exits here so the archive
+     * holds exactly the classes startup needs.
+     */
+    private void exitOnFirstFrame() {
+        mainMenuScene.addPostLayoutPulseListener(new Runnable() {
+            private boolean reported;
+            
+            @Override
+            public void run() {
+                if (reported) {
+                    return;
+                }
+                reported = true;
+                String uptime = ProcessHandle.current().info().startInstant()
+                    .map(t -> (System.currentTimeMillis() - t.toEpochMilli()) + " ms")
+                    .orElse("unknown time");
+                System.out.println(StartupBenchmark.READY_LINE + " after " + uptime);
+                Platform.runLater(() -> {
+                    DatabaseHelper.close();
+                    System.exit(0);
+                });
             }
-            SoundManager.getInstance().cleanup();
         });
     }
     
+    /**
+     * Start the spectator server if a port was configured.
+     */
+    private void startSpectatorServer() {
+        int port = GameConfig.get(GameConfig.SPECTATOR_PORT);
+        if (port == 0) {
+            return;
+        }
+        try {
+            spectatorBroadcaster = new SpectatorBroadcaster(GameConfig.get(GameConfig.SPECTATOR_FLUSH_MILLIS));
+            spectatorServer = new SpectatorServer(spectatorBroadcaster);
+            int bound = spectatorServer.start(port);
+            System.out.println("Spectator stream available on port " + bound);
+        } catch (Exception e) {
+            System.err.println("Could not start spectator server: " + e.getMessage());
+            spectatorBroadcaster = null;
+            spectatorServer = null;
+        }
+    }
+    
     /**
      * Request player name via dialog.
      */
@@ -80,6 +228,7 @@ public class MemoryGameApp extends Application {
                 currentPlayerId = DatabaseHelper.createPlayer(currentPlayerName);
                 if (welcomeLabel != null) {
                     welcomeLabel.setText("Welcome, " + currentPlayerName + "!");
+                    loadSavedGame();
                 }
             }
         });
@@ -108,6 +257,16 @@ public class MemoryGameApp extends Application {
         Button startButton = createStyledButton("Start Game", 200, 50);
         startButton.setOnAction(e -> showDifficultyDialog());
         
+        resumeButton = createStyledButton("Resume Game", 200, 50);
+        resumeButton.setOnAction(e -> {
+            if (savedGame != null) {
+                showGameScreen(savedGame);
+            }
+        });
+        
+        Button multiplayerButton = createStyledButton("Multiplayer", 200, 50);
+        multiplayerButton.setOnAction(e -> showMultiplayerDialog());
+        
         Button leaderboardButton = createStyledButton("Leaderboard", 200, 50);
         leaderboardButton.setOnAction(e -> showLeaderboard());
         
@@ -117,9 +276,57 @@ public class MemoryGameApp extends Application {
         Button exitButton = createStyledButton("Exit", 200, 50);
         exitButton.setOnAction(e -> primaryStage.close());
         
-        root.getChildren().addAll(title, welcomeLabel, startButton, leaderboardButton, settingsButton, exitButton);
+        root.getChildren().addAll(title, welcomeLabel, resumeButton, startButton, multiplayerButton, leaderboardButton, settingsButton, exitButton);
         
         mainMenuScene = new Scene(root, 600, 600);
+        instrumentPulses(mainMenuScene);
+        loadSavedGame();
+    }
+    
+    /**
+     * Read the current player's saved game (a few dozen bytes) and offer to resume it.
+     */
+    private void loadSavedGame() {
+        savedGame = GameSnapshot.load(GameSnapshot.file(currentPlayerId));
+        updateResumeButton();
+    }
+    
+    private void updateResumeButton() {
+        resumeButton.setVisible(savedGame != null);
+        resumeButton.setManaged(savedGame != null);
+    }
+    
+    /**
+     * Save the current game if it is in progress. The snapshot is taken now and written in the
+     * background.
+     */
+    private CompletableFuture<Void> saveGame() {
+        if (currentGameController == null || !currentGameController.isInProgress()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        savedGame = currentGameController.snapshot();
+        return savedGame.saveAsync(GameSnapshot.file(currentPlayerId));
+    }
+    
+    /**
+     * Stop the current game and let go of it, so a later save (on exit, or after another player
+     * signs in) never writes this board into whoever's slot is current then.
+     */
+    private void closeGame() {
+        if (currentGameController != null) {
+            currentGameController.cleanup();
+            currentGameController = null;
+        }
+    }
+    
+    /**
+     * Forget the saved game once it is finished or abandoned by a reset.
+     */
+    private void discardSavedGame() {
+        if (savedGame != null) {
+            savedGame = null;
+            GameSnapshot.deleteAsync(GameSnapshot.file(currentPlayerId));
+        }
     }
     
     /**
@@ -153,9 +360,16 @@ public class MemoryGameApp extends Application {
     }
     
     /**
-     * Create and show the game screen.
+     * Create and show the game screen with a new deal.
      */
     private void showGameScreen() {
+        showGameScreen(null);
+    }
+    
+    /**
+     * Create and show the game screen, resuming saved if it is not null.
+     */
+    private void showGameScreen(GameSnapshot saved) {
         BorderPane root = new BorderPane();
         root.setStyle("-fx-background-color: linear-gradient(to bottom, #f5f7fa 0%, #c3cfe2 100%);");
         
@@ -182,23 +396,19 @@ public class MemoryGameApp extends Application {
         grid.setPadding(new Insets(20));
         
         // Create game controller
-        if (currentGameController != null) {
-            currentGameController.cleanup();
+        closeGame();
+        if (saved != null) {
+            currentDifficulty = saved.getDifficulty();
+            currentGameController = new GameController(grid, saved);
+        } else {
+            currentGameController = new GameController(grid, currentDifficulty);
+        }
+        if (spectatorBroadcaster != null) {
+            currentGameController.setEventListener(spectatorBroadcaster);
         }
-        currentGameController = new GameController(grid, currentDifficulty);
-        
-        // Set up callbacks
-        currentGameController.setOnTimeUpdate(() -> {
-            Platform.runLater(() -> timerLabel.setText("Time: " + currentGameController.getFormattedTime()));
-        });
-        
-        currentGameController.setOnScoreUpdate(() -> {
-            Platform.runLater(() -> scoreLabel.setText("Score: " + currentGameController.getScore()));
-        });
         
-        currentGameController.setOnMovesUpdate(() -> {
-            Platform.runLater(() -> movesLabel.setText("Moves: " + currentGameController.getMoves()));
-        });
+        // Labels redraw once per pulse from controller state
+        GameHud.attach(currentGameController, scoreLabel, timerLabel, movesLabel);
         
         currentGameController.setOnGameWon(() -> {
             showEndGameScreen();
@@ -213,22 +423,24 @@ public class MemoryGameApp extends Application {
         pauseButton.setOnAction(e -> {
             currentGameController.togglePause();
             pauseButton.setText(currentGameController.isPaused() ? "Resume" : "Pause");
+            if (currentGameController.isPaused()) {
+                saveGame();
+            }
         });
         
         Button resetButton = createStyledButton("Reset", 120, 40);
         resetButton.setOnAction(e -> {
+            discardSavedGame();
             currentGameController.reset();
             pauseButton.setText("Pause");
-            scoreLabel.setText("Score: 0");
-            timerLabel.setText("Time: 00:00");
-            movesLabel.setText("Moves: 0");
         });
         
         Button menuButton = createStyledButton("Menu", 120, 40);
         menuButton.setOnAction(e -> {
-            if (currentGameController != null) {
-                currentGameController.cleanup();
-            }
+            leaveGameScreen();
+            saveGame();
+            updateResumeButton();
+            closeGame();
             primaryStage.setScene(mainMenuScene);
         });
         
@@ -239,9 +451,128 @@ public class MemoryGameApp extends Application {
         root.setBottom(bottomPanel);
         
         gameScene = new Scene(root, 800, 700);
+        instrumentPulses(gameScene);
+        
+        // Auto-pause after idlePauseSeconds without input
+        leaveGameScreen();
+        autoPause = () -> {
+            if (currentGameController != null && currentGameController.isRunning()) {
+                currentGameController.togglePause();
+                pauseButton.setText("Resume");
+                saveGame();
+            }
+        };
+        idleMonitor = new IdleMonitor(gameScene, autoPause);
+        idleMonitor.start();
         primaryStage.setScene(gameScene);
     }
     
+    /**
+     * Stop watching for idleness once the game screen is gone.
+     */
+    private void leaveGameScreen() {
+        if (idleMonitor != null) {
+            idleMonitor.stop();
+            idleMonitor = null;
+        }
+        autoPause = null;
+    }
+    
+    /**
+     * Show the multiplayer connection dialog and join a room.
+     */
+    private void showMultiplayerDialog() {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Multiplayer");
+        dialog.setHeaderText("Join a multiplayer room");
+        
+        TextField hostField = new TextField("localhost");
+        TextField portField = new TextField(String.valueOf(GameProtocol.DEFAULT_PORT));
+        TextField roomField = new TextField("lobby");
+        ComboBox<GameController.Difficulty> difficultyBox = new ComboBox<>();
+        difficultyBox.getItems().addAll(GameController.Difficulty.values());
+        difficultyBox.setValue(currentDifficulty);
+        Spinner<Integer> seatsSpinner = new Spinner<>(2, 8, 2);
+        
+        GridPane form = new GridPane();
+        form.setHgap(10);
+        form.setVgap(10);
+        form.setPadding(new Insets(20));
+        form.addRow(0, new Label("Server:"), hostField);
+        form.addRow(1, new Label("Port:"), portField);
+        form.addRow(2, new Label("Room:"), roomField);
+        form.addRow(3, new Label("Difficulty:"), difficultyBox);
+        form.addRow(4, new Label("Players:"), seatsSpinner);
+        
+        dialog.getDialogPane().setContent(form);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        
+        dialog.showAndWait().ifPresent(buttonType -> {
+            if (buttonType == ButtonType.OK) {
+                try {
+                    int port = Integer.parseInt(portField.getText().trim());
+                    showMultiplayerScreen(hostField.getText().trim(), port, roomField.getText().trim(),
+                        difficultyBox.getValue(), seatsSpinner.getValue());
+                } catch (NumberFormatException ex) {
+                    new Alert(Alert.AlertType.ERROR, "Invalid port number.").showAndWait();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Create and show the multiplayer game screen.
+     */
+    private void showMultiplayerScreen(String host, int port, String room,
+                                       GameController.Difficulty difficulty, int seats) {
+        BorderPane root = new BorderPane();
+        root.setStyle("-fx-background-color: linear-gradient(to bottom, #f5f7fa 0%, #c3cfe2 100%);");
+        
+        HBox topPanel = new HBox(20);
+        topPanel.setAlignment(Pos.CENTER);
+        topPanel.setPadding(new Insets(15));
+        topPanel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-background-radius: 10;");
+        
+        Label statusLabel = new Label("Connecting...");
+        statusLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        topPanel.getChildren().add(statusLabel);
+        
+        GridPane grid = new GridPane();
+        grid.setAlignment(Pos.CENTER);
+        grid.setPadding(new Insets(20));
+        
+        if (currentMultiplayerController != null) {
+            currentMultiplayerController.cleanup();
+        }
+        currentMultiplayerController = new MultiplayerController(grid, statusLabel::setText);
+        
+        HBox bottomPanel = new HBox(15);
+        bottomPanel.setAlignment(Pos.CENTER);
+        bottomPanel.setPadding(new Insets(15));
+        
+        Button menuButton = createStyledButton("Leave", 120, 40);
+        menuButton.setOnAction(e -> {
+            currentMultiplayerController.cleanup();
+            currentMultiplayerController = null;
+            primaryStage.setScene(mainMenuScene);
+        });
+        bottomPanel.getChildren().add(menuButton);
+        
+        root.setTop(topPanel);
+        root.setCenter(grid);
+        root.setBottom(bottomPanel);
+        
+        Scene multiplayerScene = new Scene(root, 800, 700);
+        instrumentPulses(multiplayerScene);
+        primaryStage.setScene(multiplayerScene);
+        
+        try {
+            currentMultiplayerController.connect(host, port, room, difficulty, seats);
+        } catch (Exception ex) {
+            statusLabel.setText("Could not connect to " + host + ":" + port + " (" + ex.getMessage() + ")");
+        }
+    }
+    
     /**
      * Create and show the end game screen.
      */
@@ -249,15 +580,20 @@ public class MemoryGameApp extends Application {
         if (currentGameController == null) {
             return;
         }
+        leaveGameScreen();
+        discardSavedGame();
+        updateResumeButton();
         
         int finalScore = currentGameController.getScore();
         int finalTime = currentGameController.getTimeSeconds();
         int finalMoves = currentGameController.getMoves();
         String difficulty = currentGameController.getDifficulty().toString();
         
-        // Save to database
+        // Save to database and fetch rank and top scores in the same call
+        DatabaseHelper.EndGameSummary summary = null;
         if (currentPlayerId > 0) {
-            DatabaseHelper.saveGameSession(currentPlayerId, finalScore, finalTime, finalMoves, difficulty);
+            summary = DatabaseHelper.finishGame(currentPlayerId, finalScore, finalTime, finalMoves, difficulty,
+                END_GAME_TOP_N);
         }
         
         VBox root = new VBox(25);
@@ -297,6 +633,37 @@ public class MemoryGameApp extends Application {
         
         summaryBox.getChildren().addAll(scoreTitle, scoreValue, timeLabel, movesLabel, difficultyLabel);
         
+        // Player standing among everyone's best scores at this difficulty
+        if (summary != null && summary.getRank() != null) {
+            Label rankLabel = new Label(summary.getRank().getFormatted());
+            rankLabel.setFont(Font.font("Arial", FontWeight.BOLD, 18));
+            rankLabel.setTextFill(Color.web("#11998e"));
+            summaryBox.getChildren().add(rankLabel);
+            if (summary.isPersonalBest()) {
+                Label bestLabel = new Label("Personal best!");
+                bestLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+                bestLabel.setTextFill(Color.web("#f5576c"));
+                summaryBox.getChildren().add(bestLabel);
+            } else {
+                Label bestLabel = new Label("Your best: " + summary.getBestScore());
+                bestLabel.setFont(Font.font("Arial", 16));
+                summaryBox.getChildren().add(bestLabel);
+            }
+        }
+        
+        // Top of the best-per-player board
+        if (summary != null && !summary.getTop().isEmpty()) {
+            Label topTitle = new Label("Top " + END_GAME_TOP_N + " (" + difficulty + ")");
+            topTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+            summaryBox.getChildren().add(topTitle);
+            for (DatabaseHelper.LeaderboardEntry entry : summary.getTop()) {
+                Label row = new Label(String.format("%d. %-15s %5d", entry.getRank(), entry.getUsername(),
+                    entry.getScore()));
+                row.setFont(Font.font("Monospaced", 14));
+                summaryBox.getChildren().add(row);
+            }
+        }
+        
         // Buttons
         HBox buttonBox = new HBox(15);
         buttonBox.setAlignment(Pos.CENTER);
@@ -308,9 +675,7 @@ public class MemoryGameApp extends Application {
         
         Button menuButton = createStyledButton("Main Menu", 150, 45);
         menuButton.setOnAction(e -> {
-            if (currentGameController != null) {
-                currentGameController.cleanup();
-            }
+            closeGame();
             primaryStage.setScene(mainMenuScene);
         });
         
@@ -323,7 +688,8 @@ public class MemoryGameApp extends Application {
         
         root.getChildren().addAll(winLabel, subLabel, summaryBox, buttonBox);
         
-        endGameScene = new Scene(root, 600, 600);
+        endGameScene = new Scene(root, 600, 760);
+        instrumentPulses(endGameScene);
         primaryStage.setScene(endGameScene);
     }
     
@@ -349,6 +715,15 @@ public class MemoryGameApp extends Application {
         Button mediumButton = createStyledButton("Medium", 80, 35);
         Button hardButton = createStyledButton("Hard", 80, 35);
         
+        CheckBox bestPerPlayerBox = new CheckBox("Best per player");
+        bestPerPlayerBox.setTextFill(Color.WHITE);
+        bestPerPlayerBox.setFont(Font.font("Arial", FontWeight.BOLD, 13));
+        
+        // Time window filter; timed boards are always one row per player
+        ComboBox<LeaderboardPeriod> periodBox = new ComboBox<>();
+        periodBox.getItems().addAll(LeaderboardPeriod.values());
+        periodBox.setValue(LeaderboardPeriod.ALL_TIME);
+        
         // Leaderboard display area
         VBox leaderboardBox = new VBox(5);
         leaderboardBox.setAlignment(Pos.CENTER);
@@ -373,7 +748,10 @@ public class MemoryGameApp extends Application {
             }
             
             leaderboardBox.getChildren().clear();
-            List<DatabaseHelper.LeaderboardEntry> entries = DatabaseHelper.getLeaderboard(difficulty, 10);
+            LeaderboardPeriod period = periodBox.getValue();
+            bestPerPlayerBox.setDisable(period.isTimed());
+            boolean bestPerPlayer = bestPerPlayerBox.isSelected() || period.isTimed();
+            List<DatabaseHelper.LeaderboardEntry> entries = DatabaseHelper.getLeaderboard(difficulty, 10, bestPerPlayer, period);
             
             if (entries.isEmpty()) {
                 Label noData = new Label("No scores yet!");
@@ -390,14 +768,18 @@ public class MemoryGameApp extends Application {
                 Label scoreHeader = new Label("Score");
                 Label timeHeader = new Label("Time");
                 Label movesHeader = new Label("Moves");
+                Label gamesHeader = new Label("Games");
                 
-                for (Label h : new Label[]{rankHeader, nameHeader, scoreHeader, timeHeader, movesHeader}) {
+                for (Label h : new Label[]{rankHeader, nameHeader, scoreHeader, timeHeader, movesHeader, gamesHeader}) {
                     h.setFont(Font.font("Arial", FontWeight.BOLD, 12));
                     h.setTextFill(Color.WHITE);
                     h.setPrefWidth(80);
                 }
                 
                 header.getChildren().addAll(rankHeader, nameHeader, scoreHeader, timeHeader, movesHeader);
+                if (bestPerPlayer) {
+                    header.getChildren().add(gamesHeader);
+                }
                 leaderboardBox.getChildren().add(header);
                 
                 // Entries
@@ -411,13 +793,17 @@ public class MemoryGameApp extends Application {
                     Label score = new Label(String.valueOf(entry.getScore()));
                     Label time = new Label(entry.getFormattedTime());
                     Label moves = new Label(String.valueOf(entry.getMoves()));
+                    Label games = new Label(String.valueOf(entry.getGamesPlayed()));
                     
-                    for (Label l : new Label[]{rank, name, score, time, moves}) {
+                    for (Label l : new Label[]{rank, name, score, time, moves, games}) {
                         l.setFont(Font.font("Arial", 12));
                         l.setPrefWidth(80);
                     }
                     
                     row.getChildren().addAll(rank, name, score, time, moves);
+                    if (bestPerPlayer) {
+                        row.getChildren().add(games);
+                    }
                     leaderboardBox.getChildren().add(row);
                 }
             }
@@ -448,21 +834,37 @@ public class MemoryGameApp extends Application {
             updateLeaderboard.run();
         });
         
+        bestPerPlayerBox.setOnAction(e -> updateLeaderboard.run());
+        periodBox.setOnAction(e -> updateLeaderboard.run());
+        
         filterBox.getChildren().addAll(allButton, easyButton, mediumButton, hardButton);
         
+        HBox optionsBox = new HBox(15);
+        optionsBox.setAlignment(Pos.CENTER);
+        optionsBox.getChildren().addAll(periodBox, bestPerPlayerBox);
+        
         // Back button
         Button backButton = createStyledButton("Back to Menu", 150, 40);
         backButton.setOnAction(e -> primaryStage.setScene(mainMenuScene));
         
-        root.getChildren().addAll(title, filterBox, scrollPane, backButton);
+        root.getChildren().addAll(title, filterBox, optionsBox, scrollPane, backButton);
         
         leaderboardScene = new Scene(root, 600, 600);
+        instrumentPulses(leaderboardScene);
         
         // Initial load
         allButton.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white; -fx-font-weight: bold;");
         updateLeaderboard.run();
     }
     
+    /**
+     * Record how long each pulse spends in CSS and layout for this scene.
+     */
+    private void instrumentPulses(Scene scene) {
+        scene.addPreLayoutPulseListener(() -> pulseStartNanos = System.nanoTime());
+        scene.addPostLayoutPulseListener(() -> PULSE_LATENCY.recordSince(pulseStartNanos));
+    }
+    
     private void resetFilterButtons(Button... buttons) {
         for (Button b : buttons) {
             b.setStyle("-fx-background-color: #667eea; -fx-text-fill: white; -fx-font-weight: bold;");
@@ -503,6 +905,7 @@ public class MemoryGameApp extends Application {
                 currentPlayerName = name.trim();
                 currentPlayerId = DatabaseHelper.createPlayer(currentPlayerName);
                 welcomeLabel.setText("Welcome, " + currentPlayerName + "!");
+                loadSavedGame();
             }
         });
     }
@@ -551,7 +954,12 @@ public class MemoryGameApp extends Application {
     }
     
     public static void main(String[] args) {
-        launch(args);
+        String[] rest = GameConfig.init(args);
+        // Read once when the toolkit starts; an explicit -Djavafx.animation.pulse wins
+        if (System.getProperty("javafx.animation.pulse") == null) {
+            System.setProperty("javafx.animation.pulse", String.valueOf(GameConfig.get(GameConfig.MAX_FPS)));
+        }
+        launch(rest);
     }
 }
 
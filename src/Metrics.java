@@ -0,0 +1,298 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Lightweight in-process metrics: counters and latency histograms.
+ * Recording is a few atomic adds; snapshots are written to a file periodically
+ * and published as JFR events while a recording is active.
+ */
+public final class Metrics {
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService reporter;
+    private static boolean jfrRegistered;
+
+    private Metrics() {
+    }
+
+    /**
+     * Get or create a counter. Callers should keep the returned instance in a static field.
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * Get or create a latency histogram (nanoseconds).
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, Histogram::new);
+    }
+
+    /**
+     * Monotonically increasing count.
+     */
+    public static final class Counter {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Log-linear latency histogram in the style of HdrHistogram: each power-of-two range
+     * is split into 16 sub-buckets, giving roughly 6% worst-case relative error with a
+     * fixed footprint of under 8 KB and no allocation on record.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final String name;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Record a duration in nanoseconds.
+         */
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            counts.incrementAndGet(bucketOf(value));
+            count.increment();
+            sum.add(value);
+            if (value > max.get()) {
+                max.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        /**
+         * Convenience for the common try/finally pattern: {@code record(System.nanoTime() - start)}.
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+            return (shift + 1) * SUB_BUCKETS + sub;
+        }
+
+        static long bucketUpperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS | sub) << shift) + (1L << shift) - 1;
+        }
+
+        /**
+         * Approximate value at the given percentile (0-100).
+         */
+        public long percentile(double p) {
+            long total = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(total * p / 100.0));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= target) {
+                    return Math.min(bucketUpperBound(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : sum.sum() / n;
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Render all metrics as plain text, one per line, sorted by name.
+     */
+    public static String snapshot() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Memory Match metrics ").append(Instant.now()).append('\n');
+        for (Counter c : new TreeMap<>(counters).values()) {
+            sb.append(c.getName()).append(" count=").append(c.get()).append('\n');
+        }
+        for (Histogram h : new TreeMap<>(histograms).values()) {
+            sb.append(String.format("%s count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms%n",
+                h.getName(), h.getCount(), h.getMean() / 1e6,
+                h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.getMax() / 1e6));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Periodically write the snapshot to a file (replaced atomically) and register
+     * the JFR periodic event. Safe to call more than once; only the first call starts a reporter.
+     */
+    public static synchronized void startReporter(Path file, long periodSeconds) {
+        registerJfr();
+        if (reporter != null) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> writeSnapshot(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Write one snapshot immediately.
+     */
+    public static void writeSnapshot(Path file) {
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, snapshot(), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not write metrics snapshot: " + e.getMessage());
+        }
+    }
+
+    public static synchronized void stopReporter() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    private static synchronized void registerJfr() {
+        if (jfrRegistered) {
+            return;
+        }
+        jfrRegistered = true;
+        FlightRecorder.addPeriodicEvent(HistogramEvent.class, () -> {
+            for (Histogram h : histograms.values()) {
+                HistogramEvent e = new HistogramEvent();
+                e.metric = h.getName();
+                e.count = h.getCount();
+                e.mean = h.getMean();
+                e.p50 = h.percentile(50);
+                e.p99 = h.percentile(99);
+                e.max = h.getMax();
+                e.commit();
+            }
+            for (Counter c : counters.values()) {
+                CounterEvent e = new CounterEvent();
+                e.metric = c.getName();
+                e.count = c.get();
+                e.commit();
+            }
+        });
+    }
+
+    @Name("memorygame.MetricHistogram")
+    @Label("Latency Histogram")
+    @Category({"Memory Match", "Metrics"})
+    @Description("Periodic snapshot of an in-process latency histogram")
+    @Period("5 s")
+    @StackTrace(false)
+    public static class HistogramEvent extends Event {
+        @Label("Metric")
+        String metric;
+        @Label("Count")
+        long count;
+        @Label("Mean")
+        @Timespan(Timespan.NANOSECONDS)
+        long mean;
+        @Label("P50")
+        @Timespan(Timespan.NANOSECONDS)
+        long p50;
+        @Label("P99")
+        @Timespan(Timespan.NANOSECONDS)
+        long p99;
+        @Label("Max")
+        @Timespan(Timespan.NANOSECONDS)
+        long max;
+    }
+
+    @Name("memorygame.MetricCounter")
+    @Label("Counter")
+    @Category({"Memory Match", "Metrics"})
+    @Description("Periodic snapshot of an in-process counter")
+    @Period("5 s")
+    @StackTrace(false)
+    public static class CounterEvent extends Event {
+        @Label("Metric")
+        String metric;
+        @Label("Count")
+        long count;
+    }
+}
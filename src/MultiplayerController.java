@@ -0,0 +1,150 @@
+import javafx.application.Platform;
+import javafx.scene.layout.GridPane;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Drives a board whose state lives on a GameServer room.
+ * Card faces are unknown locally until the server reveals them.
+ */
+public class MultiplayerController implements GameClient.Listener {
+    private final GridPane grid;
+    private final Consumer<String> statusSink;
+    private final List<Card> cards = new ArrayList<>();
+    private GameClient client;
+    private int mySeat = -1;
+    private int seats;
+    private int turn = -1;
+    private int myScore;
+    private Runnable onGameOverCallback;
+
+    public MultiplayerController(GridPane grid, Consumer<String> statusSink) {
+        this.grid = grid;
+        this.statusSink = statusSink;
+    }
+
+    /**
+     * Connect to a server and join the given room.
+     */
+    public void connect(String host, int port, String room, GameController.Difficulty difficulty, int seatCount)
+            throws IOException {
+        client = GameClient.connect(host, port, this, Platform::runLater);
+        client.join(room, difficulty, seatCount);
+        statusSink.accept("Waiting for players in '" + room + "'...");
+    }
+
+    @Override
+    public void onJoined(int seat, int seats, GameController.Difficulty difficulty) {
+        this.mySeat = seat;
+        this.seats = seats;
+        statusSink.accept("Joined as player " + (seat + 1) + " of " + seats + " - waiting for opponents...");
+    }
+
+    @Override
+    public void onStart(int totalCards, int cols, int firstTurn) {
+        grid.getChildren().clear();
+        cards.clear();
+        for (int i = 0; i < totalCards; i++) {
+            Card card = new Card(0);
+            int index = i;
+            card.getButton().setOnAction(e -> handleCardClick(index));
+            grid.add(card.getButton(), i % cols, i / cols);
+            cards.add(card);
+        }
+        grid.setHgap(10);
+        grid.setVgap(10);
+        onTurn(firstTurn);
+    }
+
+    private void handleCardClick(int index) {
+        Card card = cards.get(index);
+        if (turn != mySeat || card.isMatched() || card.isFlipped()) {
+            return;
+        }
+        try {
+            client.pick(index);
+        } catch (IOException e) {
+            statusSink.accept("Connection lost.");
+        }
+    }
+
+    @Override
+    public void onReveal(int index, int cardId, int seat) {
+        Card card = cards.get(index);
+        card.setId(cardId);
+        card.flip();
+    }
+
+    @Override
+    public void onMatched(int a, int b, int seat, int score) {
+        SoundManager.getInstance().playMatchSound();
+        cards.get(a).setMatched(true);
+        cards.get(b).setMatched(true);
+        if (seat == mySeat) {
+            myScore = score;
+        }
+        updateStatus();
+    }
+
+    @Override
+    public void onHide(int a, int b) {
+        SoundManager.getInstance().playMismatchSound();
+        cards.get(a).hide();
+        cards.get(b).hide();
+    }
+
+    @Override
+    public void onTurn(int seat) {
+        turn = seat;
+        updateStatus();
+    }
+
+    @Override
+    public void onGameOver(int[] scores) {
+        StringBuilder sb = new StringBuilder("Game over!");
+        for (int i = 0; i < scores.length; i++) {
+            sb.append("  P").append(i + 1).append(i == mySeat ? " (you)" : "").append(": ").append(scores[i]);
+        }
+        statusSink.accept(sb.toString());
+        if (onGameOverCallback != null) {
+            onGameOverCallback.run();
+        }
+    }
+
+    @Override
+    public void onPlayerLeft(int seat) {
+        statusSink.accept("Player " + (seat + 1) + " left the room.");
+    }
+
+    @Override
+    public void onError(int code) {
+        if (code == GameProtocol.ERR_ROOM_FULL) {
+            statusSink.accept("Room is full or already in progress.");
+        }
+    }
+
+    @Override
+    public void onDisconnected() {
+        statusSink.accept("Disconnected from server.");
+    }
+
+    private void updateStatus() {
+        String whose = turn == mySeat ? "Your turn" : "Player " + (turn + 1) + "'s turn";
+        statusSink.accept(whose + "  |  Your score: " + myScore + "  |  Players: " + seats);
+    }
+
+    public void setOnGameOver(Runnable callback) {
+        this.onGameOverCallback = callback;
+    }
+
+    /**
+     * Leave the room and close the connection.
+     */
+    public void cleanup() {
+        if (client != null) {
+            client.close();
+        }
+    }
+}
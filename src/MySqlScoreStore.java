@@ -0,0 +1,1141 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * MySQL implementation of ScoreStore.
+ */
+public class MySqlScoreStore implements ScoreStore {
+    public static final String DEFAULT_BASE_URL = "jdbc:mysql://localhost:3306/";
+    public static final String DEFAULT_DB_NAME = "memorygame";
+    
+    private final String baseUrl;
+    private final String dbName;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final ConnectionPool pool;
+    
+    private boolean initialized = false;
+    
+    /** Rows per batch and per commit for bulk provisioning. */
+    private static final int BULK_CHUNK = 1000;
+    /** How long initialize waits for another instance's backfill before skipping its own. */
+    private static final int BACKFILL_LOCK_SECONDS = 60;
+    
+    private static final String INSERT_SESSION =
+        "INSERT INTO game_sessions (player_id, score, time_seconds, moves, difficulty, played_at) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    /**
+     * MySQL applies ON DUPLICATE KEY UPDATE assignments left to right, so the columns of the
+     * best game are assigned before the columns their "is this game better" test reads.
+     * Each session writes two rows: its difficulty ('' for none) and ALL_BOARD, the player's
+     * row on the all-difficulties board.
+     */
+    private static final String UPSERT_PLAYER_BEST = """
+        INSERT INTO player_bests (player_id, difficulty, best_score, best_score_time, best_score_moves,
+                                  best_score_difficulty, best_score_at, best_time, fewest_moves, games_played)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 1), (?, ?, ?, ?, ?, ?, ?, ?, ?, 1) AS new
+        ON DUPLICATE KEY UPDATE
+            best_score_at = IF(new.best_score > player_bests.best_score
+                    OR (new.best_score = player_bests.best_score AND (new.best_score_time < player_bests.best_score_time
+                    OR (new.best_score_time = player_bests.best_score_time AND new.best_score_moves < player_bests.best_score_moves))),
+                new.best_score_at, player_bests.best_score_at),
+            best_score_difficulty = IF(new.best_score > player_bests.best_score
+                    OR (new.best_score = player_bests.best_score AND (new.best_score_time < player_bests.best_score_time
+                    OR (new.best_score_time = player_bests.best_score_time AND new.best_score_moves < player_bests.best_score_moves))),
+                new.best_score_difficulty, player_bests.best_score_difficulty),
+            best_score_moves = IF(new.best_score > player_bests.best_score
+                    OR (new.best_score = player_bests.best_score AND (new.best_score_time < player_bests.best_score_time
+                    OR (new.best_score_time = player_bests.best_score_time AND new.best_score_moves < player_bests.best_score_moves))),
+                new.best_score_moves, player_bests.best_score_moves),
+            best_score_time = IF(new.best_score > player_bests.best_score
+                    OR (new.best_score = player_bests.best_score AND new.best_score_time < player_bests.best_score_time),
+                new.best_score_time, player_bests.best_score_time),
+            best_score = GREATEST(player_bests.best_score, new.best_score),
+            best_time = LEAST(player_bests.best_time, new.best_time),
+            fewest_moves = LEAST(player_bests.fewest_moves, new.fewest_moves),
+            games_played = player_bests.games_played + 1
+        """;
+
+    /**
+     * Same pattern for one period bucket. board is the difficulty ('' for none) or ALL_BOARD,
+     * so the all-difficulties board is a plain index range too.
+     */
+    private static final String UPSERT_PERIOD_BEST_ROWS = """
+        INSERT INTO leaderboard_buckets (period, bucket_start, board, player_id, best_score, best_score_time,
+                                         best_score_moves, best_score_difficulty, best_score_at, games_played)
+        VALUES %s AS new
+        ON DUPLICATE KEY UPDATE
+            best_score_at = IF(new.best_score > leaderboard_buckets.best_score
+                    OR (new.best_score = leaderboard_buckets.best_score AND (new.best_score_time < leaderboard_buckets.best_score_time
+                    OR (new.best_score_time = leaderboard_buckets.best_score_time AND new.best_score_moves < leaderboard_buckets.best_score_moves))),
+                new.best_score_at, leaderboard_buckets.best_score_at),
+            best_score_difficulty = IF(new.best_score > leaderboard_buckets.best_score
+                    OR (new.best_score = leaderboard_buckets.best_score AND (new.best_score_time < leaderboard_buckets.best_score_time
+                    OR (new.best_score_time = leaderboard_buckets.best_score_time AND new.best_score_moves < leaderboard_buckets.best_score_moves))),
+                new.best_score_difficulty, leaderboard_buckets.best_score_difficulty),
+            best_score_moves = IF(new.best_score > leaderboard_buckets.best_score
+                    OR (new.best_score = leaderboard_buckets.best_score AND (new.best_score_time < leaderboard_buckets.best_score_time
+                    OR (new.best_score_time = leaderboard_buckets.best_score_time AND new.best_score_moves < leaderboard_buckets.best_score_moves))),
+                new.best_score_moves, leaderboard_buckets.best_score_moves),
+            best_score_time = IF(new.best_score > leaderboard_buckets.best_score
+                    OR (new.best_score = leaderboard_buckets.best_score AND new.best_score_time < leaderboard_buckets.best_score_time),
+                new.best_score_time, leaderboard_buckets.best_score_time),
+            best_score = GREATEST(leaderboard_buckets.best_score, new.best_score),
+            games_played = leaderboard_buckets.games_played + 1
+        """;
+    private static final String UPSERT_PERIOD_BEST = periodUpsert(1);
+
+    /** One index range of idx_player_bests_rank; the board is a difficulty or ALL_BOARD. */
+    private static final String BEST_PER_PLAYER = """
+        SELECT p.username, b.best_score, b.best_score_time, b.best_score_moves,
+               b.best_score_difficulty AS difficulty, b.best_score_at, b.games_played
+        FROM player_bests b
+        JOIN players p ON b.player_id = p.player_id
+        WHERE b.difficulty = ?
+        ORDER BY b.best_score DESC, b.best_score_time ASC, b.best_score_moves ASC
+        LIMIT ?
+        """;
+
+    /** Bucket rows one live session writes: both boards of each timed period. */
+    private static final int LIVE_BUCKET_ROWS = 6;
+
+    /**
+     * finishGame as a single multi-statement: the save in an explicit transaction, then the
+     * top of the board read back on the same trip.
+     */
+    private static final String FINISH_GAME_SAVE = "START TRANSACTION;\n" + INSERT_SESSION + ";\n"
+        + UPSERT_PLAYER_BEST + ";\n" + periodUpsert(LIVE_BUCKET_ROWS) + ";\nCOMMIT;\n";
+    private static final String FINISH_GAME = FINISH_GAME_SAVE + BEST_PER_PLAYER;
+
+    /** player_bests.difficulty and leaderboard_buckets.board value of the all-difficulties board. */
+    private static final String ALL_BOARD = "*";
+
+    /** Per period, the bucket whose predecessors this process has already deleted. */
+    private final Map<LeaderboardPeriod, LocalDate> expiredBefore = new EnumMap<>(LeaderboardPeriod.class);
+
+    static {
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            Log.error("db.driverMissing").field("driver", "com.mysql.cj.jdbc.Driver").error(e).log();
+        }
+    }
+
+    public MySqlScoreStore(String baseUrl, String dbName, String user, String password) {
+        this(baseUrl, dbName, user, password, ConnectionPool.DEFAULT_SIZE);
+    }
+
+    /**
+     * @param password Null disables the store: nothing connects and every call fails as if the
+     *                 server were down
+     * @param poolSize Connections kept open, each with its own prepared statement cache
+     */
+    public MySqlScoreStore(String baseUrl, String dbName, String user, String password, int poolSize) {
+        this.baseUrl = baseUrl;
+        this.dbName = dbName;
+        this.url = baseUrl + dbName + "?rewriteBatchedStatements=true";
+        this.user = user;
+        this.password = password;
+        // finishGame sends its statements as one multi-statement packet
+        this.pool = new ConnectionPool(url + "&allowMultiQueries=true", user, password, poolSize,
+            ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    private static String periodUpsert(int rows) {
+        return UPSERT_PERIOD_BEST_ROWS.formatted(String.join(", ",
+            Collections.nCopies(rows, "(?, ?, ?, ?, ?, ?, ?, ?, ?, 1)")));
+    }
+
+    @Override
+    public String getName() {
+        return "mysql";
+    }
+
+    /**
+     * Initialize the database and create tables if they don't exist.
+     * This method is called automatically on first connection.
+     */
+    @Override
+    public void initialize() {
+        if (initialized || password == null) {
+            return;
+        }
+
+        try {
+            // First, connect without database to create it if needed
+            try (Connection conn = DriverManager.getConnection(baseUrl, user, password);
+                 Statement stmt = conn.createStatement()) {
+                
+                // Create database if it doesn't exist
+                stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + dbName);
+                Log.info("db.ready").field("database", dbName).log();
+            }
+
+            // Now connect to the database and create tables
+            try (Connection conn = DriverManager.getConnection(url, user, password);
+                 Statement stmt = conn.createStatement()) {
+                
+                // Create players table
+                String createPlayersTable = """
+                    CREATE TABLE IF NOT EXISTS players (
+                        player_id INT PRIMARY KEY AUTO_INCREMENT,
+                        username VARCHAR(50) UNIQUE NOT NULL,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                    """;
+                stmt.executeUpdate(createPlayersTable);
+                Log.debug("db.tableReady").field("table", "players").log();
+
+                // Create game_sessions table
+                String createSessionsTable = """
+                    CREATE TABLE IF NOT EXISTS game_sessions (
+                        session_id INT PRIMARY KEY AUTO_INCREMENT,
+                        player_id INT,
+                        score INT NOT NULL,
+                        time_seconds INT NOT NULL,
+                        moves INT NOT NULL,
+                        difficulty VARCHAR(20),
+                        played_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        INDEX idx_game_sessions_played_at (played_at),
+                        FOREIGN KEY (player_id) REFERENCES players(player_id) ON DELETE CASCADE
+                    )
+                    """;
+                stmt.executeUpdate(createSessionsTable);
+                // Tables created before archival existed lack the played_at index
+                try (ResultSet rs = stmt.executeQuery("""
+                        SELECT COUNT(*) FROM information_schema.statistics
+                        WHERE table_schema = DATABASE() AND table_name = 'game_sessions'
+                          AND index_name = 'idx_game_sessions_played_at'
+                        """)) {
+                    if (rs.next() && rs.getInt(1) == 0) {
+                        stmt.executeUpdate("CREATE INDEX idx_game_sessions_played_at ON game_sessions (played_at)");
+                    }
+                }
+                Log.debug("db.tableReady").field("table", "game_sessions").log();
+
+                // Per-player projection, updated in the same transaction as each session insert.
+                // The best_score_* columns describe the single best game in leaderboard order;
+                // best_time and fewest_moves are independent minimums.
+                String createBestsTable = """
+                    CREATE TABLE IF NOT EXISTS player_bests (
+                        player_id INT NOT NULL,
+                        difficulty VARCHAR(20) NOT NULL DEFAULT '',
+                        best_score INT NOT NULL,
+                        best_score_time INT NOT NULL,
+                        best_score_moves INT NOT NULL,
+                        best_score_difficulty VARCHAR(20),
+                        best_score_at TIMESTAMP NOT NULL,
+                        best_time INT NOT NULL,
+                        fewest_moves INT NOT NULL,
+                        games_played INT NOT NULL,
+                        PRIMARY KEY (player_id, difficulty),
+                        INDEX idx_player_bests_rank (difficulty, best_score DESC, best_score_time, best_score_moves),
+                        FOREIGN KEY (player_id) REFERENCES players(player_id) ON DELETE CASCADE
+                    )
+                    """;
+                stmt.executeUpdate(createBestsTable);
+                try (ResultSet rs = stmt.executeQuery("""
+                        SELECT COUNT(*) FROM information_schema.columns
+                        WHERE table_schema = DATABASE() AND table_name = 'player_bests'
+                          AND column_name = 'best_score_difficulty'
+                        """)) {
+                    if (rs.next() && rs.getInt(1) == 0) {
+                        stmt.executeUpdate(
+                            "ALTER TABLE player_bests ADD COLUMN best_score_difficulty VARCHAR(20) AFTER best_score_moves");
+                    }
+                }
+                Log.debug("db.tableReady").field("table", "player_bests").log();
+                
+                // Best-per-player boards for the current day, week and month. Only the current
+                // bucket of each period is kept; expiry is a primary-key range delete.
+                String createBucketsTable = """
+                    CREATE TABLE IF NOT EXISTS leaderboard_buckets (
+                        period CHAR(1) NOT NULL,
+                        bucket_start DATE NOT NULL,
+                        board VARCHAR(20) NOT NULL,
+                        player_id INT NOT NULL,
+                        best_score INT NOT NULL,
+                        best_score_time INT NOT NULL,
+                        best_score_moves INT NOT NULL,
+                        best_score_difficulty VARCHAR(20),
+                        best_score_at TIMESTAMP NOT NULL,
+                        games_played INT NOT NULL,
+                        PRIMARY KEY (period, bucket_start, board, player_id),
+                        INDEX idx_leaderboard_buckets_rank (period, bucket_start, board, best_score DESC, best_score_time, best_score_moves)
+                    )
+                    """;
+                stmt.executeUpdate(createBucketsTable);
+                Log.debug("db.tableReady").field("table", "leaderboard_buckets").log();
+
+                // One row per completed one-off migration, such as a projection's backfill
+                String createMigrationsTable = """
+                    CREATE TABLE IF NOT EXISTS schema_migrations (
+                        name VARCHAR(64) PRIMARY KEY,
+                        applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                    """;
+                stmt.executeUpdate(createMigrationsTable);
+                Log.debug("db.tableReady").field("table", "schema_migrations").log();
+                
+                initialized = true;
+                
+                runBackfills(conn);
+                Log.info("db.initialized").field("database", dbName).log();
+            }
+            try (ConnectionPool.Lease lease = lease()) {
+                expireBuckets(lease);
+            }
+        } catch (SQLException e) {
+            Log.error("db.initFailed").field("database", dbName).error(e).log();
+        }
+    }
+
+    /**
+     * Build each projection from game_sessions once per database, when it is added to one that
+     * already has games. A projection is done once its schema_migrations row exists, so one
+     * interrupted part way is rebuilt on the next start. Instances starting together take
+     * turns through a server lock, and the later ones find the work done.
+     */
+    private void runBackfills(Connection conn) throws SQLException {
+        String lockName = "memorygame.backfill." + dbName;
+        try (PreparedStatement lock = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            lock.setString(1, lockName);
+            lock.setInt(2, BACKFILL_LOCK_SECONDS);
+            try (ResultSet rs = lock.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    Log.warn("db.backfillLockTimeout").field("lock", lockName).log();
+                    return;
+                }
+            }
+        }
+        try {
+            // v2 adds the ALL_BOARD rows, so databases built before them are rebuilt once
+            backfillOnce(conn, "backfill_player_bests_v2", this::backfillPlayerBests);
+            backfillOnce(conn, "backfill_leaderboard_buckets", this::backfillPeriodBests);
+        } finally {
+            try (PreparedStatement release = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                release.setString(1, lockName);
+                release.executeQuery().close();
+            }
+        }
+    }
+
+    private static void backfillOnce(Connection conn, String migration, BooleanSupplier backfill)
+            throws SQLException {
+        try (PreparedStatement done = conn.prepareStatement("SELECT 1 FROM schema_migrations WHERE name = ?")) {
+            done.setString(1, migration);
+            try (ResultSet rs = done.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT EXISTS(SELECT 1 FROM game_sessions)")) {
+            // A new database's projections start empty and in step; only existing games need a backfill
+            if (rs.next() && rs.getBoolean(1) && !backfill.getAsBoolean()) {
+                return;
+            }
+        }
+        try (PreparedStatement mark = conn.prepareStatement("INSERT IGNORE INTO schema_migrations (name) VALUES (?)")) {
+            mark.setString(1, migration);
+            mark.executeUpdate();
+        }
+    }
+
+    /**
+     * Borrow a pooled connection.
+     * Initializes the database if not already done.
+     */
+    private ConnectionPool.Lease lease() throws SQLException {
+        if (!initialized) {
+            initialize();
+        }
+        requireEnabled();
+        return pool.borrow();
+    }
+
+    /**
+     * Open an unpooled connection that streams results through a server cursor.
+     */
+    private Connection cursorConnection() throws SQLException {
+        if (!initialized) {
+            initialize();
+        }
+        requireEnabled();
+        return DriverManager.getConnection(url + "&useCursorFetch=true", user, password);
+    }
+
+    private void requireEnabled() throws SQLException {
+        if (password == null) {
+            throw new SQLException("MySQL store disabled: dbPassword is not set");
+        }
+    }
+
+    @Override
+    public int createPlayer(String username) {
+        if (username == null || username.trim().isEmpty()) {
+            Log.warn("player.invalid").field("reason", "empty username").log();
+            return -1;
+        }
+
+        // One atomic statement: inserts the player, or on a duplicate username makes
+        // LAST_INSERT_ID() (and so the generated key) the existing player's id.
+        // Two clients registering the same name both get the same id.
+        String upsertQuery = "INSERT INTO players (username) VALUES (?) ON DUPLICATE KEY UPDATE player_id = LAST_INSERT_ID(player_id)";
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = lease.prepare(upsertQuery, Statement.RETURN_GENERATED_KEYS);
+            
+            stmt.setString(1, username.trim());
+            stmt.executeUpdate();
+            
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    int playerId = rs.getInt(1);
+                    Log.debug("player.resolved").field("username", username).field("player", playerId).log();
+                    return playerId;
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("player.createFailed").field("username", username).error(e).log();
+        }
+        return -1;
+    }
+
+    @Override
+    public int[] createPlayers(List<String> usernames) {
+        int[] ids = new int[usernames.size()];
+        Arrays.fill(ids, -1);
+        // Case-insensitive like the column's default collation, so "Alice" finds "alice"
+        Map<String, List<Integer>> positions = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < ids.length; i++) {
+            String name = usernames.get(i) == null ? "" : usernames.get(i).trim();
+            // Over-long names would fail the whole batch under strict mode
+            if (!name.isEmpty() && name.length() <= 50) {
+                positions.computeIfAbsent(name, k -> new ArrayList<>()).add(i);
+            }
+        }
+        List<String> names = new ArrayList<>(positions.keySet());
+
+        try (ConnectionPool.Lease lease = lease()) {
+            Connection conn = lease.connection();
+            conn.setAutoCommit(false);
+            // rewriteBatchedStatements turns each batch into multi-row INSERTs
+            try {
+                PreparedStatement insert = lease.prepare("INSERT IGNORE INTO players (username) VALUES (?)");
+                for (int start = 0; start < names.size(); start += BULK_CHUNK) {
+                    List<String> chunk = names.subList(start, Math.min(names.size(), start + BULK_CHUNK));
+                    for (String name : chunk) {
+                        insert.setString(1, name);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    resolveIds(lease, chunk, positions, ids);
+                    conn.commit();
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            Log.info("player.provisioned").field("players", names.size()).log();
+        } catch (SQLException e) {
+            Log.error("player.provisionFailed").field("players", names.size()).error(e).log();
+        }
+        return ids;
+    }
+
+    /**
+     * Look up the ids of one chunk of usernames with a single IN query.
+     */
+    private void resolveIds(ConnectionPool.Lease lease, List<String> chunk, Map<String, List<Integer>> positions,
+                            int[] ids) throws SQLException {
+        String query = "SELECT username, player_id FROM players WHERE username IN ("
+            + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+        // Full chunks share one cached shape; only a final short chunk prepares a new one
+        PreparedStatement stmt = lease.prepare(query);
+        for (int i = 0; i < chunk.size(); i++) {
+            stmt.setString(i + 1, chunk.get(i));
+        }
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                List<Integer> at = positions.get(rs.getString("username"));
+                if (at != null) {
+                    for (int index : at) {
+                        ids[index] = rs.getInt("player_id");
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean saveGameSession(int playerId, int score, int timeSeconds, int moves, String difficulty) {
+        if (playerId <= 0) {
+            Log.warn("session.invalid").field("player", playerId).log();
+            return false;
+        }
+
+        Timestamp playedAt = new Timestamp(System.currentTimeMillis() / 1000 * 1000);
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            Connection conn = lease.connection();
+            expireBuckets(lease);
+            conn.setAutoCommit(false);
+            try {
+                PreparedStatement stmt = lease.prepare(INSERT_SESSION);
+                PreparedStatement bests = lease.prepare(UPSERT_PLAYER_BEST);
+                PreparedStatement periods = lease.prepare(UPSERT_PERIOD_BEST);
+                
+                bindSession(stmt, 1, playerId, score, timeSeconds, moves, difficulty, playedAt);
+                int rowsAffected = stmt.executeUpdate();
+                
+                bindPlayerBest(bests, 1, playerId, score, timeSeconds, moves, difficulty, playedAt);
+                bests.executeUpdate();
+                
+                addPeriodBests(periods, playerId, score, timeSeconds, moves, difficulty, playedAt);
+                periods.executeBatch();
+                
+                conn.commit();
+                if (rowsAffected > 0) {
+                    Log.debug("session.saved").field("player", playerId).field("score", score).log();
+                    return true;
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            Log.error("session.saveFailed").field("player", playerId).error(e).log();
+        }
+        return false;
+    }
+
+    /**
+     * One round trip: the save, the player's standing and the top of the board go out as one
+     * cached multi-statement. The save runs in its own START TRANSACTION ... COMMIT, since a
+     * JDBC-level transaction would cost extra trips for autocommit and commit.
+     */
+    @Override
+    public DatabaseHelper.EndGameSummary finishGame(int playerId, int score, int timeSeconds, int moves,
+                                                    String difficulty, int topN) {
+        if (playerId <= 0) {
+            Log.warn("session.invalid").field("player", playerId).log();
+            return null;
+        }
+        String board = difficulty == null || difficulty.isEmpty() ? ALL_BOARD : difficulty;
+        Timestamp playedAt = new Timestamp(System.currentTimeMillis() / 1000 * 1000);
+        
+        try (ConnectionPool.Lease lease = lease()) {
+            expireBuckets(lease);
+            PreparedStatement stmt = lease.prepare(FINISH_GAME);
+            int i = bindSession(stmt, 1, playerId, score, timeSeconds, moves, difficulty, playedAt);
+            i = bindPlayerBest(stmt, i, playerId, score, timeSeconds, moves, difficulty, playedAt);
+            for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+                if (period.isTimed()) {
+                    LocalDate bucket = period.bucketStart(playedAt.getTime());
+                    i = bindPeriodBest(stmt, i, period, bucket, difficulty == null ? "" : difficulty,
+                        playerId, score, timeSeconds, moves, difficulty, playedAt);
+                    i = bindPeriodBest(stmt, i, period, bucket, ALL_BOARD,
+                        playerId, score, timeSeconds, moves, difficulty, playedAt);
+                }
+            }
+            stmt.setString(i++, board);
+            stmt.setInt(i, topN);
+            
+            List<DatabaseHelper.LeaderboardEntry> top = new ArrayList<>();
+            try {
+                boolean isResultSet = stmt.execute();
+                while (isResultSet || stmt.getUpdateCount() != -1) {
+                    if (isResultSet) {
+                        try (ResultSet rs = stmt.getResultSet()) {
+                            top = readBestPerPlayer(rs);
+                        }
+                    }
+                    isResultSet = stmt.getMoreResults();
+                }
+            } catch (SQLException e) {
+                // The server stops at the failing statement, which may leave the transaction open
+                try (Statement rollback = lease.connection().createStatement()) {
+                    rollback.execute("ROLLBACK");
+                }
+                throw e;
+            }
+            Log.debug("session.saved").field("player", playerId).field("score", score).log();
+            return new DatabaseHelper.EndGameSummary(score, null, top);
+        } catch (SQLException e) {
+            Log.error("session.saveFailed").field("player", playerId).error(e).log();
+        }
+        return null;
+    }
+
+    @Override
+    public int saveGameSessions(List<SessionRecord> sessions) {
+        // Both batches go out as multi-row statements (rewriteBatchedStatements) and commit together
+        try (ConnectionPool.Lease lease = lease()) {
+            Connection conn = lease.connection();
+            expireBuckets(lease);
+            conn.setAutoCommit(false);
+            try {
+                PreparedStatement stmt = lease.prepare(INSERT_SESSION);
+                PreparedStatement bests = lease.prepare(UPSERT_PLAYER_BEST);
+                PreparedStatement periods = lease.prepare(UPSERT_PERIOD_BEST);
+                
+                for (SessionRecord r : sessions) {
+                    Timestamp playedAt = new Timestamp(r.playedAt);
+                    bindSession(stmt, 1, r.playerId, r.score, r.timeSeconds, r.moves, r.difficulty, playedAt);
+                    stmt.addBatch();
+                    
+                    bindPlayerBest(bests, 1, r.playerId, r.score, r.timeSeconds, r.moves, r.difficulty, playedAt);
+                    bests.addBatch();
+                    
+                    addPeriodBests(periods, r.playerId, r.score, r.timeSeconds, r.moves, r.difficulty, playedAt);
+                }
+                stmt.executeBatch();
+                bests.executeBatch();
+                periods.executeBatch();
+                conn.commit();
+                return sessions.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            Log.error("session.batchSaveFailed").field("sessions", sessions.size()).error(e).log();
+        }
+        return -1;
+    }
+
+    /**
+     * Streams through a server-side cursor (useCursorFetch), fetchSize rows per round trip,
+     * in primary-key order so MySQL never has to sort or buffer the table.
+     */
+    @Override
+    public long forEachSession(int fetchSize, SessionVisitor visitor) {
+        String query = """
+            SELECT gs.player_id, p.username, gs.score, gs.time_seconds, gs.moves, gs.difficulty, gs.played_at
+            FROM game_sessions gs
+            JOIN players p ON gs.player_id = p.player_id
+            ORDER BY gs.session_id
+            """;
+
+        try (Connection conn = cursorConnection();
+             PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setFetchSize(fetchSize);
+            long visited = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visit(new SessionRecord(
+                        rs.getInt("player_id"),
+                        rs.getString("username"),
+                        rs.getInt("score"),
+                        rs.getInt("time_seconds"),
+                        rs.getInt("moves"),
+                        rs.getString("difficulty"),
+                        rs.getTimestamp("played_at").getTime()
+                    ));
+                    visited++;
+                }
+            }
+            return visited;
+        } catch (SQLException e) {
+            Log.error("session.exportFailed").error(e).log();
+        }
+        return -1;
+    }
+
+    /**
+     * A range scan of idx_game_sessions_played_at, streamed through a cursor like forEachSession.
+     */
+    @Override
+    public long forEachSessionBetween(long fromMillis, long toMillis, int fetchSize, SessionVisitor visitor) {
+        String query = """
+            SELECT session_id, player_id, score, time_seconds, moves, difficulty, played_at
+            FROM game_sessions
+            WHERE played_at >= ? AND played_at < ?
+            ORDER BY played_at
+            """;
+
+        try (Connection conn = cursorConnection();
+             PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setFetchSize(fetchSize);
+            stmt.setTimestamp(1, new Timestamp(fromMillis));
+            stmt.setTimestamp(2, new Timestamp(toMillis));
+            long visited = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visit(new SessionRecord(
+                        rs.getInt("session_id"),
+                        rs.getInt("player_id"),
+                        null,
+                        rs.getInt("score"),
+                        rs.getInt("time_seconds"),
+                        rs.getInt("moves"),
+                        rs.getString("difficulty"),
+                        rs.getTimestamp("played_at").getTime()
+                    ));
+                    visited++;
+                }
+            }
+            return visited;
+        } catch (SQLException e) {
+            Log.error("archive.readFailed").error(e).log();
+        }
+        return -1;
+    }
+
+    /**
+     * Deletes in chunks of BULK_CHUNK * 10 rows along idx_game_sessions_played_at, committing each,
+     * so no single transaction holds locks on a month of rows.
+     */
+    @Override
+    public long deleteSessionsBetween(long fromMillis, long toMillis) {
+        String delete = "DELETE FROM game_sessions WHERE played_at >= ? AND played_at < ? ORDER BY played_at LIMIT "
+            + BULK_CHUNK * 10;
+
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = lease.prepare(delete);
+            
+            stmt.setTimestamp(1, new Timestamp(fromMillis));
+            stmt.setTimestamp(2, new Timestamp(toMillis));
+            long deleted = 0;
+            int rows;
+            do {
+                rows = stmt.executeUpdate();
+                deleted += rows;
+            } while (rows > 0);
+            return deleted;
+        } catch (SQLException e) {
+            Log.error("archive.deleteFailed").error(e).log();
+        }
+        return -1;
+    }
+
+    @Override
+    public long getOldestSessionTime() {
+        try (ConnectionPool.Lease lease = lease();
+             ResultSet rs = lease.prepare("SELECT MIN(played_at) FROM game_sessions").executeQuery()) {
+            
+            if (rs.next()) {
+                Timestamp oldest = rs.getTimestamp(1);
+                return oldest == null ? -1 : oldest.getTime();
+            }
+        } catch (SQLException e) {
+            Log.error("archive.oldestFailed").error(e).log();
+        }
+        return -1;
+    }
+
+    @Override
+    public List<DatabaseHelper.LeaderboardEntry> getLeaderboard(String difficulty, int limit) {
+        List<DatabaseHelper.LeaderboardEntry> entries = new ArrayList<>();
+        
+        String query;
+        if (difficulty == null || difficulty.isEmpty()) {
+            query = """
+                SELECT p.username, gs.score, gs.time_seconds, gs.moves, gs.difficulty, gs.played_at
+                FROM game_sessions gs
+                JOIN players p ON gs.player_id = p.player_id
+                ORDER BY gs.score DESC, gs.time_seconds ASC, gs.moves ASC
+                LIMIT ?
+                """;
+        } else {
+            query = """
+                SELECT p.username, gs.score, gs.time_seconds, gs.moves, gs.difficulty, gs.played_at
+                FROM game_sessions gs
+                JOIN players p ON gs.player_id = p.player_id
+                WHERE gs.difficulty = ?
+                ORDER BY gs.score DESC, gs.time_seconds ASC, gs.moves ASC
+                LIMIT ?
+                """;
+        }
+
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = lease.prepare(query);
+            
+            if (difficulty == null || difficulty.isEmpty()) {
+                stmt.setInt(1, limit);
+            } else {
+                stmt.setString(1, difficulty);
+                stmt.setInt(2, limit);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                int rank = 1;
+                while (rs.next()) {
+                    DatabaseHelper.LeaderboardEntry entry = new DatabaseHelper.LeaderboardEntry(
+                        rank++,
+                        rs.getString("username"),
+                        rs.getInt("score"),
+                        rs.getInt("time_seconds"),
+                        rs.getInt("moves"),
+                        rs.getString("difficulty"),
+                        rs.getTimestamp("played_at")
+                    );
+                    entries.add(entry);
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("leaderboard.failed").field("difficulty", difficulty).error(e).log();
+        }
+        
+        return entries;
+    }
+
+    @Override
+    public List<DatabaseHelper.LeaderboardEntry> getBestPerPlayerLeaderboard(String difficulty, int limit) {
+        List<DatabaseHelper.LeaderboardEntry> entries = new ArrayList<>();
+
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = lease.prepare(BEST_PER_PLAYER);
+            stmt.setString(1, difficulty == null || difficulty.isEmpty() ? ALL_BOARD : difficulty);
+            stmt.setInt(2, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                entries = readBestPerPlayer(rs);
+            }
+        } catch (SQLException e) {
+            Log.error("leaderboard.bestPerPlayerFailed").field("difficulty", difficulty).error(e).log();
+        }
+        
+        return entries;
+    }
+
+    @Override
+    public List<DatabaseHelper.LeaderboardEntry> getPeriodLeaderboard(LeaderboardPeriod period, String difficulty, int limit) {
+        if (!period.isTimed()) {
+            return getBestPerPlayerLeaderboard(difficulty, limit);
+        }
+        List<DatabaseHelper.LeaderboardEntry> entries = new ArrayList<>();
+        
+        // One index range of the current bucket, whatever the history length
+        String query = """
+            SELECT p.username, b.best_score, b.best_score_time, b.best_score_moves,
+                   b.best_score_difficulty, b.best_score_at, b.games_played
+            FROM leaderboard_buckets b
+            JOIN players p ON b.player_id = p.player_id
+            WHERE b.period = ? AND b.bucket_start = ? AND b.board = ?
+            ORDER BY b.best_score DESC, b.best_score_time ASC, b.best_score_moves ASC
+            LIMIT ?
+            """;
+
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = lease.prepare(query);
+            
+            stmt.setString(1, String.valueOf(period.getCode()));
+            stmt.setDate(2, Date.valueOf(period.currentBucket()));
+            stmt.setString(3, difficulty == null || difficulty.isEmpty() ? ALL_BOARD : difficulty);
+            stmt.setInt(4, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                int rank = 1;
+                while (rs.next()) {
+                    entries.add(new DatabaseHelper.LeaderboardEntry(
+                        rank++,
+                        rs.getString("username"),
+                        rs.getInt("best_score"),
+                        rs.getInt("best_score_time"),
+                        rs.getInt("best_score_moves"),
+                        rs.getString("best_score_difficulty"),
+                        rs.getTimestamp("best_score_at"),
+                        rs.getInt("games_played")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("leaderboard.periodFailed").field("period", period.name()).field("difficulty", difficulty).error(e).log();
+        }
+        
+        return entries;
+    }
+
+    private static List<DatabaseHelper.LeaderboardEntry> readBestPerPlayer(ResultSet rs) throws SQLException {
+        List<DatabaseHelper.LeaderboardEntry> entries = new ArrayList<>();
+        int rank = 1;
+        while (rs.next()) {
+            entries.add(new DatabaseHelper.LeaderboardEntry(
+                rank++,
+                rs.getString("username"),
+                rs.getInt("best_score"),
+                rs.getInt("best_score_time"),
+                rs.getInt("best_score_moves"),
+                rs.getString("difficulty"),
+                rs.getTimestamp("best_score_at"),
+                rs.getInt("games_played")
+            ));
+        }
+        return entries;
+    }
+
+    /**
+     * Bind the INSERT_SESSION parameters starting at index.
+     * @return The next parameter index
+     */
+    private static int bindSession(PreparedStatement stmt, int index, int playerId, int score, int timeSeconds,
+                                   int moves, String difficulty, Timestamp playedAt) throws SQLException {
+        stmt.setInt(index, playerId);
+        stmt.setInt(index + 1, score);
+        stmt.setInt(index + 2, timeSeconds);
+        stmt.setInt(index + 3, moves);
+        stmt.setString(index + 4, difficulty);
+        stmt.setTimestamp(index + 5, playedAt);
+        return index + 6;
+    }
+
+    /**
+     * Bind the UPSERT_PLAYER_BEST parameters, the difficulty row then the ALL_BOARD row,
+     * starting at index.
+     * @return The next parameter index
+     */
+    private static int bindPlayerBest(PreparedStatement stmt, int index, int playerId, int score, int timeSeconds,
+                                      int moves, String difficulty, Timestamp playedAt) throws SQLException {
+        index = bindPlayerBestRow(stmt, index, difficulty == null ? "" : difficulty, playerId, score, timeSeconds,
+            moves, difficulty, playedAt);
+        return bindPlayerBestRow(stmt, index, ALL_BOARD, playerId, score, timeSeconds, moves, difficulty, playedAt);
+    }
+
+    private static int bindPlayerBestRow(PreparedStatement stmt, int index, String board, int playerId, int score,
+                                         int timeSeconds, int moves, String difficulty, Timestamp playedAt)
+            throws SQLException {
+        stmt.setInt(index, playerId);
+        stmt.setString(index + 1, board);
+        stmt.setInt(index + 2, score);
+        stmt.setInt(index + 3, timeSeconds);
+        stmt.setInt(index + 4, moves);
+        stmt.setString(index + 5, difficulty);
+        stmt.setTimestamp(index + 6, playedAt);
+        stmt.setInt(index + 7, timeSeconds);
+        stmt.setInt(index + 8, moves);
+        return index + 9;
+    }
+
+    /**
+     * Bind one VALUES row of a period upsert starting at index.
+     * @return The next parameter index
+     */
+    private static int bindPeriodBest(PreparedStatement stmt, int index, LeaderboardPeriod period, LocalDate bucket,
+                                      String board, int playerId, int score, int timeSeconds, int moves,
+                                      String difficulty, Timestamp playedAt) throws SQLException {
+        stmt.setString(index, String.valueOf(period.getCode()));
+        stmt.setDate(index + 1, Date.valueOf(bucket));
+        stmt.setString(index + 2, board);
+        stmt.setInt(index + 3, playerId);
+        stmt.setInt(index + 4, score);
+        stmt.setInt(index + 5, timeSeconds);
+        stmt.setInt(index + 6, moves);
+        stmt.setString(index + 7, difficulty);
+        stmt.setTimestamp(index + 8, playedAt);
+        return index + 9;
+    }
+
+    /**
+     * Queue the bucket upserts for one session: its difficulty's board and the all-difficulties
+     * board, for every period whose current bucket contains it. Older sessions (bulk imports)
+     * are skipped, since their buckets have already expired.
+     */
+    private void addPeriodBests(PreparedStatement periods, int playerId, int score, int timeSeconds, int moves,
+                                String difficulty, Timestamp playedAt) throws SQLException {
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            if (!period.isTimed()) {
+                continue;
+            }
+            LocalDate bucket = period.bucketStart(playedAt.getTime());
+            if (bucket.isBefore(period.currentBucket())) {
+                continue;
+            }
+            for (String board : new String[]{difficulty == null ? "" : difficulty, ALL_BOARD}) {
+                bindPeriodBest(periods, 1, period, bucket, board, playerId, score, timeSeconds, moves,
+                    difficulty, playedAt);
+                periods.addBatch();
+            }
+        }
+    }
+
+    /**
+     * Delete buckets older than each period's current one. Runs once per rollover per process;
+     * the delete is a primary-key range, so it touches only the expired rows.
+     */
+    private synchronized void expireBuckets(ConnectionPool.Lease lease) throws SQLException {
+        PreparedStatement stmt = lease.prepare("DELETE FROM leaderboard_buckets WHERE period = ? AND bucket_start < ?");
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            LocalDate current = period.currentBucket();
+            if (!period.isTimed() || current.equals(expiredBefore.get(period))) {
+                continue;
+            }
+            stmt.setString(1, String.valueOf(period.getCode()));
+            stmt.setDate(2, Date.valueOf(current));
+            int rows = stmt.executeUpdate();
+            if (rows > 0) {
+                Log.info("leaderboard.expired").field("period", period.name()).field("rows", rows).log();
+            }
+            expiredBefore.put(period, current);
+        }
+    }
+
+    @Override
+    public int getPlayerBestScore(int playerId, String difficulty) {
+        if (playerId <= 0) {
+            return -1;
+        }
+
+        // Primary-key lookup on the projection: one row per board, whatever the history length
+        String query = "SELECT best_score FROM player_bests WHERE player_id = ? AND difficulty = ?";
+
+        try (ConnectionPool.Lease lease = lease()) {
+            PreparedStatement stmt = lease.prepare(query);
+            
+            stmt.setInt(1, playerId);
+            stmt.setString(2, difficulty == null || difficulty.isEmpty() ? ALL_BOARD : difficulty);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    int bestScore = rs.getInt("best_score");
+                    return rs.wasNull() ? -1 : bestScore;
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("player.bestFailed").field("player", playerId).error(e).log();
+        }
+        
+        return -1;
+    }
+
+    @Override
+    public boolean forEachPlayerBest(BestScoreVisitor visitor) {
+        // ScoreRanking keeps its own all-difficulties board
+        String query = "SELECT player_id, NULLIF(difficulty, '') AS difficulty, best_score FROM player_bests"
+            + " WHERE difficulty <> '" + ALL_BOARD + "'";
+
+        try (ConnectionPool.Lease lease = lease();
+             ResultSet rs = lease.prepare(query).executeQuery()) {
+            
+            while (rs.next()) {
+                visitor.visit(rs.getInt("player_id"), rs.getString("difficulty"), rs.getInt("best_score"));
+            }
+            return true;
+        } catch (SQLException e) {
+            Log.error("ranking.loadFailed").error(e).log();
+        }
+        return false;
+    }
+
+    /**
+     * Rebuild player_bests from game_sessions in one transaction.
+     * Runs automatically once per database that had games before the projection existed.
+     * @return true if successful, false otherwise
+     */
+    public boolean backfillPlayerBests() {
+        // board is the difficulty ('' for none) for one pass and ALL_BOARD for the other
+        String backfill = """
+            INSERT INTO player_bests (player_id, difficulty, best_score, best_score_time, best_score_moves,
+                                      best_score_difficulty, best_score_at, best_time, fewest_moves, games_played)
+            SELECT player_id, board, score, time_seconds, moves, difficulty, played_at, best_time, fewest_moves,
+                   games_played
+            FROM (
+                SELECT player_id, %1$s AS board, score, time_seconds, moves, difficulty, played_at,
+                       MIN(time_seconds) OVER w AS best_time,
+                       MIN(moves) OVER w AS fewest_moves,
+                       COUNT(*) OVER w AS games_played,
+                       ROW_NUMBER() OVER (PARTITION BY player_id, %1$s
+                           ORDER BY score DESC, time_seconds ASC, moves ASC, session_id ASC) AS rn
+                FROM game_sessions
+                WINDOW w AS (PARTITION BY player_id, %1$s)
+            ) ranked
+            WHERE rn = 1
+            """;
+
+        try (ConnectionPool.Lease lease = lease()) {
+            Connection conn = lease.connection();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM player_bests");
+                int rows = stmt.executeUpdate(backfill.formatted("COALESCE(difficulty, '')"));
+                rows += stmt.executeUpdate(backfill.formatted("'" + ALL_BOARD + "'"));
+                conn.commit();
+                Log.info("db.backfilled").field("table", "player_bests").field("rows", rows).log();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            Log.error("db.backfillFailed").field("table", "player_bests").error(e).log();
+        }
+        return false;
+    }
+
+    /**
+     * Rebuild the current buckets of leaderboard_buckets from game_sessions.
+     * Runs automatically once per database that had games before the table existed.
+     * @return true if successful, false otherwise
+     */
+    public boolean backfillPeriodBests() {
+        LocalDate since = LeaderboardPeriod.MONTHLY.currentBucket();
+        LocalDate week = LeaderboardPeriod.WEEKLY.currentBucket();
+        if (week.isBefore(since)) {
+            since = week;
+        }
+        String query = """
+            SELECT player_id, score, time_seconds, moves, difficulty, played_at
+            FROM game_sessions
+            WHERE played_at >= ?
+            ORDER BY session_id
+            """;
+
+        try (ConnectionPool.Lease lease = lease()) {
+            Connection conn = lease.connection();
+            conn.setAutoCommit(false);
+            try (Statement clear = conn.createStatement();
+                 PreparedStatement stmt = conn.prepareStatement(query);
+                 PreparedStatement periods = conn.prepareStatement(UPSERT_PERIOD_BEST)) {
+                
+                clear.executeUpdate("DELETE FROM leaderboard_buckets");
+                stmt.setTimestamp(1, Timestamp.from(since.atStartOfDay(ZoneOffset.UTC).toInstant()));
+                int sessions = 0;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        addPeriodBests(periods, rs.getInt("player_id"), rs.getInt("score"), rs.getInt("time_seconds"),
+                            rs.getInt("moves"), rs.getString("difficulty"), rs.getTimestamp("played_at"));
+                        if (++sessions % BULK_CHUNK == 0) {
+                            periods.executeBatch();
+                        }
+                    }
+                }
+                periods.executeBatch();
+                conn.commit();
+                Log.info("db.backfilled").field("table", "leaderboard_buckets").field("sessions", sessions).log();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            Log.error("db.backfillFailed").field("table", "leaderboard_buckets").error(e).log();
+        }
+        return false;
+    }
+
+    /**
+     * Resize the connection pool, e.g. after a config reload.
+     */
+    public void setPoolSize(int poolSize) {
+        pool.setMaxSize(poolSize);
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded username -> player_id cache with least-recently-used eviction.
+ * Player ids never change once assigned, so entries never go stale; the cache
+ * is only cleared when the store itself is swapped.
+ */
+public class PlayerIdCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final LinkedHashMap<String, Integer> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    public PlayerIdCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return The cached player_id, or -1 on a miss
+     */
+    public synchronized int get(String username) {
+        Integer playerId = entries.get(username);
+        if (playerId == null) {
+            misses++;
+            return -1;
+        }
+        hits++;
+        return playerId;
+    }
+
+    public synchronized void put(String username, int playerId) {
+        if (playerId > 0) {
+            entries.put(username, playerId);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
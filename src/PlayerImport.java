@@ -0,0 +1,64 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provision players in bulk from a text file with one username per line.
+ * Streams the file in chunks, so memory stays flat however many names it holds.
+ *
+ * Usage: java PlayerImport usernames.txt [chunkSize]
+ * The store is chosen the same way as in the game (-Dmemorygame.store=mysql|embedded).
+ */
+public class PlayerImport {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java PlayerImport usernames.txt [chunkSize]");
+            System.exit(2);
+        }
+        int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        DatabaseHelper.initializeDatabase();
+
+        long start = System.nanoTime();
+        long total = 0;
+        long rejected = 0;
+        List<String> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    rejected += importChunk(chunk);
+                    total += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            rejected += importChunk(chunk);
+            total += chunk.size();
+        }
+        DatabaseHelper.close();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Imported %d usernames (%d rejected) in %.2f s, %.0f players/s%n",
+            total, rejected, seconds, total / seconds);
+    }
+
+    private static int importChunk(List<String> chunk) {
+        int rejected = 0;
+        for (int id : DatabaseHelper.createPlayers(chunk)) {
+            if (id <= 0) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,331 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lock-free board state for a shared multiplayer room.
+ *
+ * All turn progress goes through a single 64-bit turn word updated by CAS, which is the
+ * linearization point for every pick. The thread whose CAS moves the word into the
+ * RESOLVING state owns the board until it publishes the next word, so card cells, scores
+ * and the pair counter are only ever written by one owner at a time and no lock is needed.
+ * Face-up cards are not stored in the cells at all; they are derived from the turn word,
+ * so a pick never has to touch two locations atomically.
+ *
+ * Turn word layout (low to high bits):
+ *   seat:8 | first+1:16 | second+1:16 | resolving:1 | finished:1 | version:18 | unused:4
+ *
+ * Pick results reuse the word with the outcome stored in the unused top four bits.
+ */
+public final class RoomState {
+    public static final int HIDDEN = 0;
+    public static final int UP = 1;
+    public static final int MATCHED = 2;
+
+    // Pick outcomes
+    public static final int REJECTED_NOT_TURN = 1;
+    public static final int REJECTED_INVALID = 2;
+    public static final int FIRST_REVEALED = 3;
+    public static final int PAIR_MATCHED = 4;
+    public static final int PAIR_MISMATCHED = 5;
+
+    public static final int MAX_SEATS = 64;
+
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle SCORES = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle TURN;
+    private static final VarHandle MATCHED_PAIRS;
+    private static final VarHandle ACTIVE_SEATS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TURN = lookup.findVarHandle(RoomState.class, "turnWord", long.class);
+            MATCHED_PAIRS = lookup.findVarHandle(RoomState.class, "matchedPairs", int.class);
+            ACTIVE_SEATS = lookup.findVarHandle(RoomState.class, "activeSeats", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final long SEAT_MASK = 0xFFL;
+    private static final int FIRST_SHIFT = 8;
+    private static final int SECOND_SHIFT = 24;
+    private static final long RESOLVING_BIT = 1L << 40;
+    private static final long FINISHED_BIT = 1L << 41;
+    private static final int VERSION_SHIFT = 42;
+    private static final long VERSION_MASK = 0x3FFFFL;
+    private static final int OUTCOME_SHIFT = 60;
+    private static final long OUTCOME_MASK = 0xFL << OUTCOME_SHIFT;
+
+    private final int[] deal;
+    private final int[] cells;
+    private final int[] scores;
+    private final int pairs;
+    private final int pointsPerPair;
+
+    @SuppressWarnings("unused") // accessed through TURN
+    private volatile long turnWord;
+    @SuppressWarnings("unused") // accessed through MATCHED_PAIRS
+    private volatile int matchedPairs;
+    @SuppressWarnings("unused") // accessed through ACTIVE_SEATS
+    private volatile long activeSeats;
+
+    public RoomState(int[] deal, int seatCount, int pointsPerPair) {
+        if (seatCount < 1 || seatCount > MAX_SEATS) {
+            throw new IllegalArgumentException("Seat count must be between 1 and " + MAX_SEATS);
+        }
+        this.deal = deal.clone();
+        this.cells = new int[deal.length];
+        this.scores = new int[seatCount];
+        this.pairs = deal.length / 2;
+        this.pointsPerPair = pointsPerPair;
+        this.activeSeats = seatCount == MAX_SEATS ? -1L : (1L << seatCount) - 1;
+        this.turnWord = 0L;
+    }
+
+    /**
+     * Create a shuffled deal for the given difficulty.
+     */
+    public static int[] shuffledDeal(int pairs) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= pairs; i++) {
+            ids.add(i);
+            ids.add(i);
+        }
+        Collections.shuffle(ids);
+        int[] deal = new int[ids.size()];
+        for (int i = 0; i < deal.length; i++) {
+            deal[i] = ids.get(i);
+        }
+        return deal;
+    }
+
+    /**
+     * Attempt a pick on behalf of a seat.
+     * The returned value packs the outcome with the turn word it was linearized against;
+     * decode it with {@link #outcome}, {@link #firstOf} and {@link #tokenOf}.
+     */
+    public long pick(int seat, int index) {
+        while (true) {
+            long w = (long) TURN.getVolatile(this);
+            if ((w & (RESOLVING_BIT | FINISHED_BIT)) != 0) {
+                return result(REJECTED_INVALID, w);
+            }
+            if (seatOf(w) != seat) {
+                return result(REJECTED_NOT_TURN, w);
+            }
+            int first = firstOf(w);
+            if (index < 0 || index >= deal.length || index == first
+                    || (int) CELLS.getAcquire(cells, index) == MATCHED) {
+                return result(REJECTED_INVALID, w);
+            }
+
+            if (first < 0) {
+                long next = nextVersion(w) | (w & SEAT_MASK) | ((long) (index + 1) << FIRST_SHIFT);
+                if (TURN.compareAndSet(this, w, next)) {
+                    return result(FIRST_REVEALED, next);
+                }
+            } else {
+                long next = nextVersion(w) | (w & SEAT_MASK)
+                    | ((long) (first + 1) << FIRST_SHIFT)
+                    | ((long) (index + 1) << SECOND_SHIFT)
+                    | RESOLVING_BIT;
+                if (TURN.compareAndSet(this, w, next)) {
+                    // We now own the board until the resolving word is released
+                    return result(deal[first] == deal[index] ? PAIR_MATCHED : PAIR_MISMATCHED, next);
+                }
+            }
+            // Lost a race with another pick or a seat change: re-read and retry
+        }
+    }
+
+    /**
+     * Complete a matched pair. Must be called exactly once with the token from a PAIR_MATCHED pick.
+     * The same seat keeps the turn.
+     * @return The seat's new score
+     */
+    public int resolveMatch(long token) {
+        long w = wordOf(token);
+        int seat = seatOf(w);
+        CELLS.setRelease(cells, firstOf(w), MATCHED);
+        CELLS.setRelease(cells, secondOf(w), MATCHED);
+        int score = (int) SCORES.getAndAdd(scores, seat, pointsPerPair) + pointsPerPair;
+        int matched = (int) MATCHED_PAIRS.getAndAdd(this, 1) + 1;
+
+        long next = nextVersion(w) | seat;
+        if (matched >= pairs) {
+            next |= FINISHED_BIT;
+        }
+        release(w, next);
+        passTurnIfInactive();
+        return score;
+    }
+
+    /**
+     * Hide a mismatched pair and pass the turn to the next active seat.
+     * Must be called exactly once with the token from a PAIR_MISMATCHED pick.
+     * @return The seat whose turn it now is
+     */
+    public int resolveMismatch(long token) {
+        long w = wordOf(token);
+        int nextSeat = nextActiveSeat(seatOf(w));
+        release(w, nextVersion(w) | nextSeat);
+        passTurnIfInactive();
+        return getCurrentSeat();
+    }
+
+    private void release(long expected, long next) {
+        // Nobody else writes a resolving word, so this can only fail on misuse
+        if (!TURN.compareAndSet(this, expected, next)) {
+            throw new IllegalStateException("Resolving turn was modified by a non-owner");
+        }
+    }
+
+    /**
+     * Remove a seat from play. If it held the turn, any half-finished pick is discarded
+     * and the turn passes on; if a resolution is pending, the resolver passes it instead.
+     * @return The seat whose turn it now is, or -1 if no seats remain
+     */
+    public int removeSeat(int seat) {
+        long bit = 1L << seat;
+        long seatsNow;
+        do {
+            seatsNow = (long) ACTIVE_SEATS.getVolatile(this);
+        } while (!ACTIVE_SEATS.compareAndSet(this, seatsNow, seatsNow & ~bit));
+        if ((seatsNow & ~bit) == 0) {
+            return -1;
+        }
+        passTurnIfInactive();
+        return getCurrentSeat();
+    }
+
+    /**
+     * Move the turn off a seat that has left. Called by removeSeat and after every
+     * resolution, so whichever of the two runs last observes the other's write.
+     */
+    private void passTurnIfInactive() {
+        while (true) {
+            long w = (long) TURN.getVolatile(this);
+            if ((w & (FINISHED_BIT | RESOLVING_BIT)) != 0) {
+                return;
+            }
+            int seat = seatOf(w);
+            if (((long) ACTIVE_SEATS.getVolatile(this) & (1L << seat)) != 0) {
+                return;
+            }
+            int nextSeat = nextActiveSeat(seat);
+            if (nextSeat == seat || TURN.compareAndSet(this, w, nextVersion(w) | nextSeat)) {
+                return;
+            }
+        }
+    }
+
+    private int nextActiveSeat(int from) {
+        long active = (long) ACTIVE_SEATS.getVolatile(this);
+        for (int i = 1; i <= scores.length; i++) {
+            int candidate = (from + i) % scores.length;
+            if ((active & (1L << candidate)) != 0) {
+                return candidate;
+            }
+        }
+        return from;
+    }
+
+    // Accessors
+
+    public int getCardId(int index) {
+        return deal[index];
+    }
+
+    /**
+     * Current state of a card: HIDDEN, UP or MATCHED.
+     */
+    public int getCell(int index) {
+        long w = (long) TURN.getVolatile(this);
+        int cell = (int) CELLS.getAcquire(cells, index);
+        if (cell == HIDDEN && (firstOf(w) == index || secondOf(w) == index)) {
+            return UP;
+        }
+        return cell;
+    }
+
+    public int getScore(int seat) {
+        return (int) SCORES.getVolatile(scores, seat);
+    }
+
+    public int[] getScores() {
+        int[] copy = new int[scores.length];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = getScore(i);
+        }
+        return copy;
+    }
+
+    public int getMatchedPairs() {
+        return (int) MATCHED_PAIRS.getVolatile(this);
+    }
+
+    public int getCurrentSeat() {
+        return seatOf((long) TURN.getVolatile(this));
+    }
+
+    public boolean isFinished() {
+        return ((long) TURN.getVolatile(this) & FINISHED_BIT) != 0;
+    }
+
+    public int getTotalCards() {
+        return deal.length;
+    }
+
+    public int getSeatCount() {
+        return scores.length;
+    }
+
+    public int getPointsPerPair() {
+        return pointsPerPair;
+    }
+
+    // Result and word encoding
+
+    private static long result(int outcome, long word) {
+        return word | ((long) outcome << OUTCOME_SHIFT);
+    }
+
+    public static int outcome(long result) {
+        return (int) (result >>> OUTCOME_SHIFT);
+    }
+
+    /**
+     * The token to pass to resolveMatch/resolveMismatch.
+     */
+    public static long tokenOf(long result) {
+        return result & ~OUTCOME_MASK;
+    }
+
+    public static int firstOf(long result) {
+        return (int) ((result >>> FIRST_SHIFT) & 0xFFFF) - 1;
+    }
+
+    public static int secondOf(long result) {
+        return (int) ((result >>> SECOND_SHIFT) & 0xFFFF) - 1;
+    }
+
+    private static int seatOf(long word) {
+        return (int) (word & SEAT_MASK);
+    }
+
+    private long wordOf(long token) {
+        long w = (long) TURN.getVolatile(this);
+        if (w != token || (w & RESOLVING_BIT) == 0) {
+            throw new IllegalStateException("Token does not match the resolving turn");
+        }
+        return w;
+    }
+
+    private static long nextVersion(long word) {
+        return (((word >>> VERSION_SHIFT) + 1) & VERSION_MASK) << VERSION_SHIFT;
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress harness for RoomState. Many threads hammer one room with random picks from
+ * random seats and resolve their own pairs immediately, while one more thread removes every
+ * seat but seat 0 at random moments, so picks, resolutions and turn hand-offs race with
+ * removeSeat. A resolving pair must read UP until it is resolved, and the final state is
+ * checked for double-matched pairs, lost score updates and cards left unmatched.
+ *
+ * Usage: java RoomStateStress [rounds] [threads] [pairs] [seats]
+ */
+public class RoomStateStress {
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+        int pairs = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        int seats = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        AtomicLong picks = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong removed = new AtomicLong();
+        int failures = 0;
+        long start = System.nanoTime();
+
+        for (int round = 0; round < rounds; round++) {
+            RoomState room = new RoomState(RoomState.shuffledDeal(pairs), seats, 1);
+            AtomicIntegerArray timesMatched = new AtomicIntegerArray(pairs + 1);
+            AtomicIntegerArray expectedScores = new AtomicIntegerArray(seats);
+            CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+            StringBuilder errors = new StringBuilder();
+
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = new Thread(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    try {
+                        barrier.await();
+                    } catch (Exception e) {
+                        return;
+                    }
+                    long localPicks = 0;
+                    long localRejected = 0;
+                    while (!room.isFinished()) {
+                        int seat = rnd.nextInt(seats);
+                        int index = rnd.nextInt(room.getTotalCards());
+                        long result = room.pick(seat, index);
+                        localPicks++;
+                        int outcome = RoomState.outcome(result);
+                        if ((outcome == RoomState.PAIR_MATCHED || outcome == RoomState.PAIR_MISMATCHED)
+                                && (room.getCell(RoomState.firstOf(result)) != RoomState.UP
+                                    || room.getCell(index) != RoomState.UP)) {
+                            synchronized (errors) {
+                                errors.append("resolving pair ").append(RoomState.firstOf(result)).append('/')
+                                    .append(index).append(" not face up\n");
+                            }
+                        }
+                        switch (outcome) {
+                            case RoomState.PAIR_MATCHED -> {
+                                int first = RoomState.firstOf(result);
+                                if (first == index || room.getCardId(first) != room.getCardId(index)) {
+                                    synchronized (errors) {
+                                        errors.append("matched non-pair ").append(first).append('/').append(index).append('\n');
+                                    }
+                                }
+                                timesMatched.incrementAndGet(room.getCardId(index));
+                                expectedScores.incrementAndGet(seat);
+                                room.resolveMatch(RoomState.tokenOf(result));
+                            }
+                            case RoomState.PAIR_MISMATCHED -> room.resolveMismatch(RoomState.tokenOf(result));
+                            case RoomState.REJECTED_NOT_TURN, RoomState.REJECTED_INVALID -> localRejected++;
+                            default -> { }
+                        }
+                    }
+                    picks.addAndGet(localPicks);
+                    rejected.addAndGet(localRejected);
+                });
+                workers[t].start();
+            }
+            Thread leaver = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    return;
+                }
+                for (int seat = 1; seat < seats && !room.isFinished(); seat++) {
+                    // A short random spin: parking takes longer than a whole game
+                    for (int spin = rnd.nextInt(5000); spin > 0; spin--) {
+                        Thread.onSpinWait();
+                    }
+                    if (room.removeSeat(seat) < 0) {
+                        synchronized (errors) {
+                            errors.append("removing seat ").append(seat).append(" emptied the room\n");
+                        }
+                    }
+                    removed.incrementAndGet();
+                }
+            });
+            leaver.start();
+            for (Thread w : workers) {
+                w.join();
+            }
+            leaver.join();
+
+            for (int id = 1; id <= pairs; id++) {
+                if (timesMatched.get(id) != 1) {
+                    errors.append("pair ").append(id).append(" matched ").append(timesMatched.get(id)).append(" times\n");
+                }
+            }
+            for (int s = 0; s < seats; s++) {
+                if (room.getScore(s) != expectedScores.get(s)) {
+                    errors.append("seat ").append(s).append(" score ").append(room.getScore(s))
+                        .append(" expected ").append(expectedScores.get(s)).append('\n');
+                }
+            }
+            if (room.getMatchedPairs() != pairs) {
+                errors.append("matchedPairs ").append(room.getMatchedPairs()).append(" expected ").append(pairs).append('\n');
+            }
+            for (int i = 0; i < room.getTotalCards(); i++) {
+                if (room.getCell(i) != RoomState.MATCHED) {
+                    errors.append("card ").append(i).append(" not matched\n");
+                }
+            }
+            if (errors.length() > 0) {
+                failures++;
+                System.err.println("Round " + round + " FAILED:\n" + errors);
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d rounds x %d threads: %d picks (%d rejected), %d seats removed in %.2f s, %d failures%n",
+            rounds, threads, picks.get(), rejected.get(), removed.get(), seconds, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
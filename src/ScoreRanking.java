@@ -0,0 +1,116 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Player rank and percentile per difficulty, maintained incrementally.
+ *
+ * Each difficulty keeps a Fenwick tree counting players by best score (one bucket per point,
+ * scores clamped to [0, MAX_SCORE)). Rank is 1 + the number of players whose best is higher,
+ * which is a prefix-sum query: O(log MAX_SCORE), about 16 array reads, regardless of how many
+ * sessions are stored. A new personal best moves the player from one bucket to another.
+ */
+public class ScoreRanking {
+    public static final int MAX_SCORE = 1 << 16;
+    private static final String ALL = "";
+
+    private final Map<String, Fenwick> trees = new HashMap<>();
+    private final Map<Integer, Map<String, Integer>> bests = new HashMap<>();
+
+    /**
+     * A player's standing on one leaderboard.
+     */
+    public static class PlayerRank {
+        private final int rank;
+        private final int players;
+        private final int bestScore;
+
+        public PlayerRank(int rank, int players, int bestScore) {
+            this.rank = rank;
+            this.players = players;
+            this.bestScore = bestScore;
+        }
+
+        public int getRank() { return rank; }
+        public int getPlayers() { return players; }
+        public int getBestScore() { return bestScore; }
+
+        /**
+         * Share of players at or above this rank, rounded up to a whole percent.
+         */
+        public int getTopPercent() {
+            return (int) Math.max(1, Math.ceil(rank * 100.0 / players));
+        }
+
+        public String getFormatted() {
+            return String.format("You are #%,d (top %d%%)", rank, getTopPercent());
+        }
+    }
+
+    private static final class Fenwick {
+        final int[] tree = new int[MAX_SCORE + 1];
+        int players = 0;
+
+        void add(int bucket, int delta) {
+            for (int i = bucket + 1; i <= MAX_SCORE; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /** Players with best score <= bucket. */
+        int countAtOrBelow(int bucket) {
+            int sum = 0;
+            for (int i = bucket + 1; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Record a finished session. Only a new personal best changes anything.
+     * @param difficulty The difficulty level (null counts towards the all-difficulties ranking only)
+     */
+    public synchronized void record(int playerId, String difficulty, int score) {
+        Map<String, Integer> playerBests = bests.computeIfAbsent(playerId, id -> new HashMap<>(4));
+        update(ALL, score, playerBests);
+        if (difficulty != null && !difficulty.isEmpty()) {
+            update(difficulty, score, playerBests);
+        }
+    }
+
+    private void update(String key, int score, Map<String, Integer> playerBests) {
+        int bucket = bucket(score);
+        Integer previous = playerBests.get(key);
+        if (previous != null && previous >= bucket) {
+            return;
+        }
+        Fenwick tree = trees.computeIfAbsent(key, k -> new Fenwick());
+        if (previous == null) {
+            tree.players++;
+        } else {
+            tree.add(previous, -1);
+        }
+        tree.add(bucket, 1);
+        playerBests.put(key, bucket);
+    }
+
+    /**
+     * @param difficulty The difficulty level (null for all difficulties)
+     * @return The player's standing, or null if they have no sessions there
+     */
+    public synchronized PlayerRank rankOf(int playerId, String difficulty) {
+        String key = difficulty == null || difficulty.isEmpty() ? ALL : difficulty;
+        Map<String, Integer> playerBests = bests.get(playerId);
+        Integer best = playerBests == null ? null : playerBests.get(key);
+        if (best == null) {
+            return null;
+        }
+        Fenwick tree = trees.get(key);
+        int better = tree.players - tree.countAtOrBelow(best);
+        return new PlayerRank(better + 1, tree.players, best);
+    }
+
+    private static int bucket(int score) {
+        return Math.max(0, Math.min(score, MAX_SCORE - 1));
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.List;
+
+/**
+ * Storage SPI for players, game sessions and leaderboards.
+ * DatabaseHelper delegates to the configured implementation, so the rest of the app
+ * never talks to a specific backend.
+ *
+ * Implementations follow DatabaseHelper's conventions: failures are reported on stderr
+ * and surfaced as -1, false or an empty list rather than thrown.
+ */
+public interface ScoreStore {
+
+    /**
+     * Short backend name for logs and reports.
+     */
+    String getName();
+
+    /**
+     * Create schema or open files. Called once before any other method.
+     */
+    void initialize();
+
+    /**
+     * Create a new player or get the existing player by username.
+     * @return The player_id, or -1 if error
+     */
+    int createPlayer(String username);
+
+    /**
+     * Create or look up many players at once, for provisioning.
+     * @return player_ids in the same order as the input, -1 where a name was rejected
+     */
+    int[] createPlayers(List<String> usernames);
+
+    /**
+     * Save a finished game session.
+     * @return true if successful, false otherwise
+     */
+    boolean saveGameSession(int playerId, int score, int timeSeconds, int moves, String difficulty);
+
+    /**
+     * Save a finished session and read back, in the same call, the top of the best-per-player
+     * board for the session's difficulty (all difficulties when null). Backends with a network
+     * hop do this in one round trip. The rank is left null; DatabaseHelper fills it from ScoreRanking.
+     * @return The summary, or null if the session could not be saved
+     */
+    DatabaseHelper.EndGameSummary finishGame(int playerId, int score, int timeSeconds, int moves, String difficulty,
+                                             int topN);
+
+    /**
+     * One game session as moved by bulk import, export and archival.
+     * Import reads playerId; export fills in username as well; archival fills in sessionId.
+     */
+    final class SessionRecord {
+        /** 0 for sessions that have not been saved yet. */
+        public final int sessionId;
+        public final int playerId;
+        public final String username;
+        public final int score;
+        public final int timeSeconds;
+        public final int moves;
+        public final String difficulty;
+        public final long playedAt;
+
+        public SessionRecord(int playerId, String username, int score, int timeSeconds, int moves,
+                             String difficulty, long playedAt) {
+            this(0, playerId, username, score, timeSeconds, moves, difficulty, playedAt);
+        }
+
+        public SessionRecord(int sessionId, int playerId, String username, int score, int timeSeconds, int moves,
+                             String difficulty, long playedAt) {
+            this.sessionId = sessionId;
+            this.playerId = playerId;
+            this.username = username;
+            this.score = score;
+            this.timeSeconds = timeSeconds;
+            this.moves = moves;
+            this.difficulty = difficulty;
+            this.playedAt = playedAt;
+        }
+    }
+
+    /**
+     * Save a batch of sessions, keeping their original played_at, as one unit of work.
+     * @return Number of sessions saved, or -1 if the batch failed
+     */
+    int saveGameSessions(List<SessionRecord> sessions);
+
+    /**
+     * Receives sessions one at a time during an export.
+     */
+    interface SessionVisitor {
+        void visit(SessionRecord session);
+    }
+
+    /**
+     * Stream every session without loading them all into memory.
+     * @param fetchSize Rows per round trip for backends that fetch through a cursor
+     * @return Number of sessions visited, or -1 if the scan failed
+     */
+    long forEachSession(int fetchSize, SessionVisitor visitor);
+
+    /**
+     * Stream the sessions played in [fromMillis, toMillis), with sessionId set and no username.
+     * Used by SessionArchiver to copy one month out of hot storage.
+     * @return Number of sessions visited, or -1 if the scan failed
+     */
+    long forEachSessionBetween(long fromMillis, long toMillis, int fetchSize, SessionVisitor visitor);
+
+    /**
+     * Remove sessions played in [fromMillis, toMillis) from hot storage once they are archived.
+     * player_bests and the period buckets are aggregates and are kept, so best scores, ranks and
+     * best-per-player boards still cover the full history. The range must end before the
+     * current week and month.
+     * @return Number of sessions removed, or -1 if the delete failed
+     */
+    long deleteSessionsBetween(long fromMillis, long toMillis);
+
+    /**
+     * @return played_at of the oldest session in hot storage, or -1 if there are none
+     */
+    long getOldestSessionTime();
+
+    /**
+     * Sessions ordered by score DESC, time ASC, moves ASC.
+     * @param difficulty The difficulty level (null for all difficulties)
+     */
+    List<DatabaseHelper.LeaderboardEntry> getLeaderboard(String difficulty, int limit);
+
+    /**
+     * One row per player: their best session, plus games played. Served from the
+     * player_bests projection, so cost does not grow with a player's history.
+     * @param difficulty The difficulty level (null for all difficulties)
+     */
+    List<DatabaseHelper.LeaderboardEntry> getBestPerPlayerLeaderboard(String difficulty, int limit);
+
+    /**
+     * One row per player: their best session in the current day, week or month, plus games
+     * played in it. Served from per-bucket aggregates, so cost does not grow with history.
+     * ALL_TIME is the same as getBestPerPlayerLeaderboard.
+     * @param difficulty The difficulty level (null for all difficulties)
+     */
+    List<DatabaseHelper.LeaderboardEntry> getPeriodLeaderboard(LeaderboardPeriod period, String difficulty, int limit);
+
+    /**
+     * @param difficulty The difficulty level (null for all difficulties)
+     * @return The best score, or -1 if no records found
+     */
+    int getPlayerBestScore(int playerId, String difficulty);
+
+    /**
+     * Receives one (player, difficulty, best score) row.
+     */
+    interface BestScoreVisitor {
+        void visit(int playerId, String difficulty, int bestScore);
+    }
+
+    /**
+     * Stream every player's best score per difficulty. Used to build ScoreRanking at startup.
+     * @return false if the scan failed part way
+     */
+    boolean forEachPlayerBest(BestScoreVisitor visitor);
+
+    /**
+     * Release connections or file handles.
+     */
+    void close();
+}
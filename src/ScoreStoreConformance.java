@@ -0,0 +1,439 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Conformance and performance suite run against every ScoreStore implementation.
+ * Checks the behaviour DatabaseHelper callers rely on, then measures insert throughput
+ * and leaderboard latency so backends can be compared on the same machine.
+ *
+ * Usage: java ScoreStoreConformance [embedded|mysql|both] [rows]
+ * MySQL runs use the database from -Dmemorygame.dbName (default memorygame_conformance).
+ * Every run uses fresh usernames and difficulty tags, so existing data does not affect the checks.
+ */
+public class ScoreStoreConformance {
+    private static final PrintStream OUT = System.out;
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    private final ScoreStore store;
+    private final String tag = Long.toString(System.nanoTime() % 1_000_000_000L, 36);
+    private int failures = 0;
+
+    private ScoreStoreConformance(ScoreStore store) {
+        this.store = store;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String kind = args.length > 0 ? args[0] : "embedded";
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        if (System.getProperty("memorygame.dbName") == null) {
+            System.setProperty("memorygame.dbName", "memorygame_conformance");
+        }
+
+        int failures = 0;
+        if (kind.equals("embedded") || kind.equals("both")) {
+            Path dir = Files.createTempDirectory("scorestore");
+            failures += run(new EmbeddedScoreStore(dir), rows);
+            failures += checkEmbeddedRecovery(dir);
+        }
+        if (kind.equals("mysql") || kind.equals("both")) {
+            failures += run(DatabaseHelper.createStore("mysql"), rows);
+        }
+        OUT.println(failures == 0 ? "ALL PASSED" : failures + " FAILURE(S)");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static int run(ScoreStore store, int rows) throws IOException {
+        OUT.println("== " + store.getName() + " ==");
+        ScoreStoreConformance suite = new ScoreStoreConformance(store);
+        System.setOut(DISCARD);
+        try {
+            store.initialize();
+            suite.checkPlayers();
+            suite.checkSessions();
+            suite.checkLeaderboard();
+            suite.checkBestScore();
+            suite.checkPeriods();
+            suite.checkFinishGame();
+            suite.checkArchival();
+            suite.benchmark(rows);
+            suite.checkRanking();
+            if (store instanceof EmbeddedScoreStore embedded) {
+                suite.checkRanks(embedded, Math.max(1, rows / 10));
+            }
+        } finally {
+            System.setOut(OUT);
+            store.close();
+        }
+        return suite.failures;
+    }
+
+    private void check(String name, boolean ok) {
+        OUT.printf("  %-48s %s%n", name, ok ? "ok" : "FAIL");
+        if (!ok) {
+            failures++;
+        }
+    }
+
+    private void checkPlayers() {
+        check("empty username rejected", store.createPlayer("  ") == -1 && store.createPlayer(null) == -1);
+        int alice = store.createPlayer("alice-" + tag);
+        check("new player gets positive id", alice > 0);
+        check("existing player returns same id", store.createPlayer("alice-" + tag) == alice);
+        check("username is trimmed", store.createPlayer("  alice-" + tag + " ") == alice);
+        int bob = store.createPlayer("bob-" + tag);
+        check("distinct players get distinct ids", bob > 0 && bob != alice);
+
+        int[] bulk = store.createPlayers(Arrays.asList("alice-" + tag, "gina-" + tag, " ", "gina-" + tag, "hank-" + tag));
+        check("bulk create returns ids in input order", bulk.length == 5 && bulk[0] == alice
+            && bulk[1] > 0 && bulk[2] == -1 && bulk[3] == bulk[1] && bulk[4] > 0 && bulk[4] != bulk[1]);
+        check("bulk-created player found by createPlayer", store.createPlayer("hank-" + tag) == bulk[4]);
+    }
+
+    private void checkSessions() {
+        check("invalid player id rejected", !store.saveGameSession(0, 100, 10, 10, "E-" + tag));
+        int carol = store.createPlayer("carol-" + tag);
+        check("session saved", store.saveGameSession(carol, 500, 30, 12, "E-" + tag));
+    }
+
+    private void checkLeaderboard() {
+        String difficulty = "L-" + tag;
+        int dave = store.createPlayer("dave-" + tag);
+        int erin = store.createPlayer("erin-" + tag);
+        store.saveGameSession(dave, 800, 60, 20, difficulty);
+        store.saveGameSession(erin, 900, 90, 30, difficulty);
+        store.saveGameSession(dave, 800, 45, 25, difficulty);
+        store.saveGameSession(erin, 800, 45, 22, difficulty);
+        store.saveGameSession(dave, 100, 10, 10, "other-" + tag);
+
+        List<DatabaseHelper.LeaderboardEntry> board = store.getLeaderboard(difficulty, 10);
+        int[] scores = board.stream().mapToInt(DatabaseHelper.LeaderboardEntry::getScore).toArray();
+        int[] moves = board.stream().mapToInt(DatabaseHelper.LeaderboardEntry::getMoves).toArray();
+        check("leaderboard filtered by difficulty", board.size() == 4);
+        check("ordered by score, time, moves",
+            Arrays.equals(scores, new int[] {900, 800, 800, 800}) && Arrays.equals(moves, new int[] {30, 22, 25, 20}));
+        check("ranks are 1..n", board.size() == 4 && board.get(0).getRank() == 1 && board.get(3).getRank() == 4);
+        check("entries carry username and timestamp",
+            board.size() > 0 && board.get(0).getUsername().equals("erin-" + tag) && board.get(0).getPlayedAt() != null);
+        check("limit respected", store.getLeaderboard(difficulty, 2).size() == 2);
+        check("unknown difficulty is empty", store.getLeaderboard("none-" + tag, 10).isEmpty());
+
+        List<DatabaseHelper.LeaderboardEntry> best = store.getBestPerPlayerLeaderboard(difficulty, 10);
+        check("best per player: one row each", best.size() == 2);
+        check("best per player: best game and games played", best.size() == 2
+            && best.get(0).getScore() == 900 && best.get(0).getGamesPlayed() == 2
+            && best.get(1).getScore() == 800 && best.get(1).getTimeSeconds() == 45
+            && best.get(1).getMoves() == 25 && best.get(1).getGamesPlayed() == 2);
+        boolean daveOverall = store.getBestPerPlayerLeaderboard(null, Integer.MAX_VALUE).stream()
+            .anyMatch(e -> e.getUsername().equals("dave-" + tag) && e.getScore() == 800 && e.getGamesPlayed() == 3);
+        check("best per player across difficulties", daveOverall);
+
+        List<DatabaseHelper.LeaderboardEntry> all = store.getLeaderboard(null, 50);
+        boolean sorted = true;
+        for (int i = 1; i < all.size(); i++) {
+            sorted &= all.get(i - 1).getScore() >= all.get(i).getScore();
+        }
+        check("all-difficulty leaderboard sorted", !all.isEmpty() && sorted);
+    }
+
+    private void checkBestScore() {
+        int frank = store.createPlayer("frank-" + tag);
+        check("no sessions gives -1", store.getPlayerBestScore(frank, null) == -1);
+        store.saveGameSession(frank, 300, 50, 20, "B1-" + tag);
+        store.saveGameSession(frank, 700, 50, 20, "B2-" + tag);
+        store.saveGameSession(frank, 400, 50, 20, "B1-" + tag);
+        check("best score per difficulty", store.getPlayerBestScore(frank, "B1-" + tag) == 400);
+        check("best score across difficulties", store.getPlayerBestScore(frank, null) == 700);
+        check("difficulty without sessions gives -1", store.getPlayerBestScore(frank, "B3-" + tag) == -1);
+
+        int[] visited = new int[2];
+        boolean scanned = store.forEachPlayerBest((playerId, difficulty, best) -> {
+            if (playerId == frank) {
+                visited[0]++;
+                visited[1] += best;
+            }
+        });
+        check("player bests streamed per difficulty", scanned && visited[0] == 2 && visited[1] == 1100);
+    }
+
+    private void checkPeriods() {
+        String difficulty = "P-" + tag;
+        int ivy = store.createPlayer("ivy-" + tag);
+        int jack = store.createPlayer("jack-" + tag);
+        store.saveGameSession(ivy, 600, 40, 20, difficulty);
+        store.saveGameSession(jack, 700, 40, 20, difficulty);
+        store.saveGameSession(ivy, 650, 40, 20, difficulty);
+        long longAgo = System.currentTimeMillis() - 40L * 24 * 3600 * 1000;
+        store.saveGameSessions(List.of(new ScoreStore.SessionRecord(jack, null, 999, 10, 10, difficulty, longAgo)));
+
+        boolean periodsMatch = true;
+        for (LeaderboardPeriod period : new LeaderboardPeriod[] {
+                LeaderboardPeriod.DAILY, LeaderboardPeriod.WEEKLY, LeaderboardPeriod.MONTHLY}) {
+            List<DatabaseHelper.LeaderboardEntry> board = store.getPeriodLeaderboard(period, difficulty, 10);
+            periodsMatch &= board.size() == 2
+                && board.get(0).getUsername().equals("jack-" + tag) && board.get(0).getScore() == 700
+                && board.get(0).getGamesPlayed() == 1
+                && board.get(1).getScore() == 650 && board.get(1).getGamesPlayed() == 2;
+        }
+        check("period boards: best in current bucket only", periodsMatch);
+        boolean ivyOverall = store.getPeriodLeaderboard(LeaderboardPeriod.DAILY, null, Integer.MAX_VALUE).stream()
+            .anyMatch(e -> e.getUsername().equals("ivy-" + tag) && e.getScore() == 650 && difficulty.equals(e.getDifficulty()));
+        check("period board across difficulties", ivyOverall);
+        List<DatabaseHelper.LeaderboardEntry> allTime = store.getPeriodLeaderboard(LeaderboardPeriod.ALL_TIME, difficulty, 10);
+        check("all-time period includes old sessions", !allTime.isEmpty() && allTime.get(0).getScore() == 999);
+    }
+
+    /**
+     * finishGame saves the session and reports the same top rows as the separate calls, and
+     * ScoreRanking loaded from the store ranks the player as counting better bests would.
+     */
+    private void checkFinishGame() {
+        String difficulty = "F-" + tag;
+        int lea = store.createPlayer("lea-" + tag);
+        int max = store.createPlayer("max-" + tag);
+        int ned = store.createPlayer("ned-" + tag);
+        store.saveGameSession(lea, 900, 30, 20, difficulty);
+        store.saveGameSession(max, 500, 30, 20, difficulty);
+
+        DatabaseHelper.EndGameSummary first = store.finishGame(ned, 700, 40, 25, difficulty, 2);
+        check("finishGame saves the session", first != null && store.getPlayerBestScore(ned, difficulty) == 700);
+        check("finishGame top rows", first != null && first.getTop().size() == 2
+            && first.getTop().get(0).getScore() == 900 && first.getTop().get(1).getUsername().equals("ned-" + tag));
+        ScoreRanking.PlayerRank rank = loadRanking().rankOf(ned, difficulty);
+        check("finishGame rank and best", rank != null && rank.getRank() == 2 && rank.getPlayers() == 3
+            && rank.getBestScore() == 700);
+
+        DatabaseHelper.EndGameSummary second = store.finishGame(ned, 600, 40, 25, difficulty, 2);
+        rank = loadRanking().rankOf(ned, difficulty);
+        check("finishGame keeps the earlier best", second != null && rank != null
+            && rank.getBestScore() == 700 && rank.getRank() == 2
+            && second.getTop().get(1).getGamesPlayed() == 2);
+        DatabaseHelper.EndGameSummary overall = store.finishGame(max, 100, 90, 90, null, 3);
+        rank = loadRanking().rankOf(max, null);
+        check("finishGame across difficulties", overall != null && rank != null && rank.getBestScore() >= 500);
+        check("invalid player", store.finishGame(-1, 1, 1, 1, difficulty, 1) == null);
+    }
+
+    /**
+     * Sessions older than the hot window move to an archive file; aggregates stay.
+     */
+    private void checkArchival() throws IOException {
+        String difficulty = "A-" + tag;
+        int kim = store.createPlayer("kim-" + tag);
+        long fourMonthsAgo = YearMonth.now(ZoneOffset.UTC).minusMonths(4).atDay(10)
+            .atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + 1234_000;
+        store.saveGameSessions(List.of(new ScoreStore.SessionRecord(kim, null, 950, 33, 44, difficulty, fourMonthsAgo)));
+        store.saveGameSession(kim, 400, 50, 60, difficulty);
+
+        Path dir = Files.createTempDirectory("archive");
+        SessionArchiver archiver = new SessionArchiver(store, dir);
+        long archived = archiver.archive(2);
+        check("cold month archived", archived >= 1);
+        List<DatabaseHelper.LeaderboardEntry> hot = store.getLeaderboard(difficulty, 10);
+        check("archived session leaves session leaderboard", hot.size() == 1 && hot.get(0).getScore() == 400);
+        check("best score still covers archived session", store.getPlayerBestScore(kim, difficulty) == 950);
+        List<DatabaseHelper.LeaderboardEntry> best = store.getBestPerPlayerLeaderboard(difficulty, 10);
+        check("best per player still covers archived session", best.size() == 1
+            && best.get(0).getScore() == 950 && best.get(0).getGamesPlayed() == 2);
+
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).minusMonths(4);
+        List<ScoreStore.SessionRecord> found = new ArrayList<>();
+        archiver.forEachArchived(month, month, r -> {
+            if (r.playerId == kim) {
+                found.add(r);
+            }
+        });
+        check("archive round-trips the session", found.size() == 1 && found.get(0).sessionId > 0
+            && found.get(0).score == 950 && found.get(0).timeSeconds == 33 && found.get(0).moves == 44
+            && difficulty.equals(found.get(0).difficulty) && found.get(0).playedAt == fourMonthsAgo);
+        check("second run archives nothing", archiver.archive(2) == 0);
+    }
+
+    private ScoreRanking loadRanking() {
+        ScoreRanking ranking = new ScoreRanking();
+        store.forEachPlayerBest(ranking::record);
+        return ranking;
+    }
+
+    /**
+     * Rank from ScoreRanking must match counting better players by brute force.
+     */
+    private void checkRanking() {
+        String difficulty = "Hard-" + tag;
+        ScoreRanking ranking = new ScoreRanking();
+        Map<Integer, Integer> bests = new HashMap<>();
+        store.forEachPlayerBest((playerId, d, best) -> {
+            ranking.record(playerId, d, best);
+            if (difficulty.equals(d)) {
+                bests.put(playerId, best);
+            }
+        });
+
+        boolean ranksMatch = !bests.isEmpty();
+        long[] latencies = new long[bests.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> entry : bests.entrySet()) {
+            long t = System.nanoTime();
+            ScoreRanking.PlayerRank rank = ranking.rankOf(entry.getKey(), difficulty);
+            latencies[i++] = System.nanoTime() - t;
+            long better = bests.values().stream().filter(b -> b > entry.getValue()).count();
+            ranksMatch &= rank != null && rank.getRank() == better + 1 && rank.getPlayers() == bests.size();
+        }
+        check("player rank matches brute force", ranksMatch);
+        Arrays.sort(latencies);
+        if (latencies.length > 0) {
+            OUT.printf("  player rank lookup: p50 %.4f ms, p99 %.4f ms%n",
+                latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6);
+        }
+    }
+
+    private void benchmark(int rows) {
+        Random random = new Random(42);
+        int playerCount = Math.max(1, rows / 10);
+        List<String> names = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            names.add("p" + i + "-" + tag);
+        }
+        long provisionStart = System.nanoTime();
+        int[] players = store.createPlayers(names);
+        double provisionSeconds = (System.nanoTime() - provisionStart) / 1e9;
+        String[] difficulties = {"Easy-" + tag, "Medium-" + tag, "Hard-" + tag};
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            store.saveGameSession(players[random.nextInt(playerCount)], random.nextInt(2000),
+                10 + random.nextInt(300), 8 + random.nextInt(60), difficulties[i % 3]);
+        }
+        double insertSeconds = (System.nanoTime() - start) / 1e9;
+
+        int queries = 200;
+        long[] latencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long t = System.nanoTime();
+            store.getLeaderboard(i % 4 == 3 ? null : difficulties[i % 4], 10);
+            latencies[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(latencies);
+        long[] periodLatencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            long t = System.nanoTime();
+            store.getPeriodLeaderboard(LeaderboardPeriod.WEEKLY, i % 4 == 3 ? null : difficulties[i % 4], 10);
+            periodLatencies[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(periodLatencies);
+
+        OUT.printf("  bulk createPlayers: %d players in %.3f s (%.0f players/s)%n",
+            playerCount, provisionSeconds, playerCount / provisionSeconds);
+        OUT.printf("  insert: %d rows in %.2f s (%.0f rows/s)%n", rows, insertSeconds, rows / insertSeconds);
+        OUT.printf("  leaderboard top-10: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+            latencies[queries / 2] / 1e6, latencies[queries * 99 / 100] / 1e6, latencies[queries - 1] / 1e6);
+        OUT.printf("  weekly top-10: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n", periodLatencies[queries / 2] / 1e6,
+            periodLatencies[queries * 99 / 100] / 1e6, periodLatencies[queries - 1] / 1e6);
+    }
+
+    /**
+     * Embedded only: rank-of-player must match the position found by scanning the full leaderboard.
+     */
+    private void checkRanks(EmbeddedScoreStore embedded, int players) {
+        String difficulty = "Medium-" + tag;
+        List<DatabaseHelper.LeaderboardEntry> board = embedded.getLeaderboard(difficulty, Integer.MAX_VALUE);
+        boolean ranksMatch = true;
+        long[] latencies = new long[Math.min(players, 500)];
+        for (int i = 0; i < latencies.length; i++) {
+            int playerId = store.createPlayer("p" + i + "-" + tag);
+            long t = System.nanoTime();
+            int rank = embedded.getPlayerRank(playerId, difficulty);
+            latencies[i] = System.nanoTime() - t;
+            int expected = -1;
+            for (DatabaseHelper.LeaderboardEntry e : board) {
+                if (e.getUsername().equals("p" + i + "-" + tag)) {
+                    expected = e.getRank();
+                    break;
+                }
+            }
+            ranksMatch &= rank == expected;
+        }
+        check("rank-of-player matches full scan", ranksMatch);
+        Arrays.sort(latencies);
+        OUT.printf("  rank-of-player: p50 %.3f ms, p99 %.3f ms%n",
+            latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6);
+    }
+
+    /**
+     * Reopen from the snapshot, then check a torn log tail is truncated and that replaying
+     * a log the snapshot already covers does not duplicate sessions.
+     */
+    private static int checkEmbeddedRecovery(Path dir) throws IOException {
+        OUT.println("== embedded recovery ==");
+        ScoreStoreConformance suite = new ScoreStoreConformance(null);
+        System.setOut(DISCARD);
+        try {
+            EmbeddedScoreStore reopened = new EmbeddedScoreStore(dir);
+            reopened.initialize();
+            int before = reopened.getLeaderboard(null, Integer.MAX_VALUE).size();
+            suite.check("sessions survive reopen from snapshot", before > 0);
+
+            // Leave a record in the log, then simulate a crash mid-append
+            int player = reopened.createPlayer("after-snapshot");
+            reopened.saveGameSession(player, 1, 1, 1, "Easy");
+            Path log = dir.resolve(EmbeddedScoreStore.LOG_FILE);
+            long goodSize = Files.size(log);
+            Files.write(log, new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 9, 9}, StandardOpenOption.APPEND);
+
+            EmbeddedScoreStore afterCrash = new EmbeddedScoreStore(dir);
+            afterCrash.initialize();
+            suite.check("torn tail truncated", Files.size(log) == goodSize);
+            suite.check("logged session replayed", afterCrash.getLeaderboard(null, Integer.MAX_VALUE).size() == before + 1);
+
+            // Crash between writing a snapshot and resetting the log
+            byte[] staleLog = Files.readAllBytes(log);
+            afterCrash.compact();
+            Files.write(log, staleLog);
+            afterCrash.close();
+            Files.write(log, staleLog);
+
+            EmbeddedScoreStore afterCompaction = new EmbeddedScoreStore(dir);
+            afterCompaction.initialize();
+            int after = afterCompaction.getLeaderboard(null, Integer.MAX_VALUE).size();
+            int again = afterCompaction.createPlayer("after-snapshot");
+            afterCompaction.close();
+            suite.check("stale log after snapshot not duplicated", after == before + 1 && again == player);
+
+            // Archive, then reopen through the log and again through the snapshot
+            EmbeddedScoreStore archiving = new EmbeddedScoreStore(dir);
+            archiving.initialize();
+            int old = archiving.createPlayer("archived-player");
+            long longAgo = System.currentTimeMillis() - 200L * 24 * 3600 * 1000;
+            archiving.saveGameSessions(List.of(new ScoreStore.SessionRecord(old, null, 777, 10, 10, "Old", longAgo)));
+            new SessionArchiver(archiving, Files.createTempDirectory("archive")).archive(2);
+            int hot = archiving.getLeaderboard(null, Integer.MAX_VALUE).size();
+            EmbeddedScoreStore fromLog = new EmbeddedScoreStore(dir);
+            fromLog.initialize();
+            boolean logOk = fromLog.getLeaderboard(null, Integer.MAX_VALUE).size() == hot
+                && fromLog.getPlayerBestScore(old, "Old") == 777;
+            fromLog.close();
+            EmbeddedScoreStore fromSnapshot = new EmbeddedScoreStore(dir);
+            fromSnapshot.initialize();
+            boolean snapshotOk = fromSnapshot.getLeaderboard(null, Integer.MAX_VALUE).size() == hot
+                && fromSnapshot.getPlayerBestScore(old, "Old") == 777
+                && fromSnapshot.getBestPerPlayerLeaderboard("Old", 10).size() == 1;
+            fromSnapshot.close();
+            suite.check("archival replayed from log", logOk);
+            suite.check("archived bests kept in snapshot", snapshotOk);
+        } finally {
+            System.setOut(OUT);
+        }
+        return suite.failures;
+    }
+}
@@ -0,0 +1,374 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed columnar file holding one month of archived game sessions.
+ *
+ * Rows are sorted by played_at, then each column is encoded on its own: session_id and
+ * played_at (in seconds) as zigzag deltas from the previous row, difficulty as an index into
+ * a dictionary, the rest as varints. Each column is then deflated as a separate block, so a
+ * scan that needs only a few columns (say player_id and score) inflates only those.
+ *
+ * Layout: magic "MMSA", version, row count, difficulty dictionary (length-prefixed UTF-8),
+ * then per column its id, raw length, compressed length and CRC32, followed by the
+ * compressed blocks in that order.
+ */
+public final class SessionArchive {
+    private static final int MAGIC = 0x4D4D5341; // "MMSA"
+    private static final short VERSION = 1;
+
+    /** Column ids, in file order. */
+    public static final int SESSION_ID = 0;
+    public static final int PLAYER_ID = 1;
+    public static final int SCORE = 2;
+    public static final int TIME_SECONDS = 3;
+    public static final int MOVES = 4;
+    public static final int DIFFICULTY = 5;
+    public static final int PLAYED_AT = 6;
+    private static final int COLUMNS = 7;
+
+    private SessionArchive() {
+    }
+
+    /**
+     * Collects rows in primitive arrays, then sorts, encodes and compresses them on write.
+     * Rows with a session_id already present are dropped, so re-archiving a month is harmless.
+     */
+    public static final class Writer {
+        private int[] sessionIds = new int[1024];
+        private int[] playerIds = new int[1024];
+        private int[] scores = new int[1024];
+        private int[] times = new int[1024];
+        private int[] moves = new int[1024];
+        private int[] difficulties = new int[1024];
+        private long[] playedAt = new long[1024];
+        private int rows = 0;
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> dictionaryIndex = new HashMap<>();
+
+        public int size() {
+            return rows;
+        }
+
+        public void add(ScoreStore.SessionRecord r) {
+            if (rows == sessionIds.length) {
+                int capacity = rows * 2;
+                sessionIds = Arrays.copyOf(sessionIds, capacity);
+                playerIds = Arrays.copyOf(playerIds, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                times = Arrays.copyOf(times, capacity);
+                moves = Arrays.copyOf(moves, capacity);
+                difficulties = Arrays.copyOf(difficulties, capacity);
+                playedAt = Arrays.copyOf(playedAt, capacity);
+            }
+            sessionIds[rows] = r.sessionId;
+            playerIds[rows] = r.playerId;
+            scores[rows] = r.score;
+            times[rows] = r.timeSeconds;
+            moves[rows] = r.moves;
+            difficulties[rows] = difficultyCode(r.difficulty);
+            playedAt[rows] = r.playedAt;
+            rows++;
+        }
+
+        /** 0 is null; otherwise 1 + the dictionary index. */
+        private int difficultyCode(String difficulty) {
+            if (difficulty == null) {
+                return 0;
+            }
+            Integer index = dictionaryIndex.get(difficulty);
+            if (index == null) {
+                index = dictionary.size();
+                dictionary.add(difficulty);
+                dictionaryIndex.put(difficulty, index);
+            }
+            return index + 1;
+        }
+
+        /**
+         * Write to a temp file next to the target, force it to disk, then move it into place.
+         * @return Size of the archive in bytes
+         */
+        public long write(Path file) throws IOException {
+            // Drop duplicate session ids, keeping the first added: sort (session id, row) and
+            // keep the first of each run
+            long[] keys = new long[rows];
+            for (int i = 0; i < rows; i++) {
+                keys[i] = (long) sessionIds[i] << 32 | i;
+            }
+            Arrays.sort(keys);
+            int[] bySession = new int[rows];
+            int count = 0;
+            for (int i = 0; i < rows; i++) {
+                if (i == 0 || keys[i] >>> 32 != keys[i - 1] >>> 32) {
+                    bySession[count++] = (int) keys[i];
+                }
+            }
+
+            // Then order by played_at at the file's resolution (seconds), ties by session id:
+            // the low half is the row's place in bySession
+            long first = Long.MAX_VALUE;
+            for (int j = 0; j < count; j++) {
+                first = Math.min(first, playedAt[bySession[j]] / 1000);
+            }
+            for (int j = 0; j < count; j++) {
+                keys[j] = playedAt[bySession[j]] / 1000 - first << 32 | j;
+            }
+            Arrays.sort(keys, 0, count);
+            int[] unique = new int[count];
+            for (int j = 0; j < count; j++) {
+                unique[j] = bySession[(int) keys[j]];
+            }
+
+            byte[][] raw = new byte[COLUMNS][];
+            raw[SESSION_ID] = encodeDeltas(unique, i -> sessionIds[i]);
+            raw[PLAYER_ID] = encode(unique, i -> playerIds[i]);
+            raw[SCORE] = encode(unique, i -> scores[i]);
+            raw[TIME_SECONDS] = encode(unique, i -> times[i]);
+            raw[MOVES] = encode(unique, i -> moves[i]);
+            raw[DIFFICULTY] = encode(unique, i -> difficulties[i]);
+            raw[PLAYED_AT] = encodeDeltas(unique, i -> playedAt[i] / 1000);
+
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(unique.length);
+                out.writeShort(dictionary.size());
+                for (String d : dictionary) {
+                    byte[] bytes = d.getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                }
+                byte[][] compressed = new byte[COLUMNS][];
+                for (int c = 0; c < COLUMNS; c++) {
+                    compressed[c] = deflate(raw[c]);
+                    CRC32 crc = new CRC32();
+                    crc.update(compressed[c]);
+                    out.writeByte(c);
+                    out.writeInt(raw[c].length);
+                    out.writeInt(compressed[c].length);
+                    out.writeInt((int) crc.getValue());
+                }
+                for (byte[] block : compressed) {
+                    out.write(block);
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return Files.size(file);
+        }
+    }
+
+    private interface ColumnValue {
+        long get(int row);
+    }
+
+    private static byte[] encode(int[] rows, ColumnValue column) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows.length * 2);
+        for (int row : rows) {
+            writeVarLong(out, zigzag(column.get(row)));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeDeltas(int[] rows, ColumnValue column) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows.length * 2);
+        long previous = 0;
+        for (int row : rows) {
+            long value = column.get(row);
+            writeVarLong(out, zigzag(value - previous));
+            previous = value;
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[1 << 16];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) {
+        try {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream does not throw
+        }
+    }
+
+    /**
+     * Reads the header eagerly and columns on demand.
+     */
+    public static final class Reader {
+        private final Path file;
+        private final int rows;
+        private final String[] dictionary;
+        private final int[] rawLengths = new int[COLUMNS];
+        private final int[] compressedLengths = new int[COLUMNS];
+        private final int[] checksums = new int[COLUMNS];
+        private final long[] offsets = new long[COLUMNS];
+
+        public Reader(Path file) throws IOException {
+            this.file = file;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                    throw new IOException("Not a session archive: " + file);
+                }
+                rows = in.readInt();
+                dictionary = new String[in.readShort()];
+                long headerBytes = 12;
+                for (int i = 0; i < dictionary.length; i++) {
+                    byte[] bytes = new byte[in.readShort()];
+                    in.readFully(bytes);
+                    dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+                    headerBytes += 2 + bytes.length;
+                }
+                for (int c = 0; c < COLUMNS; c++) {
+                    if (in.readByte() != c) {
+                        throw new IOException("Unexpected column order in " + file);
+                    }
+                    rawLengths[c] = in.readInt();
+                    compressedLengths[c] = in.readInt();
+                    checksums[c] = in.readInt();
+                }
+                long offset = headerBytes + COLUMNS * 13L;
+                for (int c = 0; c < COLUMNS; c++) {
+                    offsets[c] = offset;
+                    offset += compressedLengths[c];
+                }
+            }
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Inflate and decode one column. played_at comes back in milliseconds.
+         */
+        public long[] column(int column) throws IOException {
+            byte[] compressed = new byte[compressedLengths[column]];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.wrap(compressed);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offsets[column] + buffer.position()) < 0) {
+                        throw new IOException("Truncated session archive: " + file);
+                    }
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(compressed);
+            if ((int) crc.getValue() != checksums[column]) {
+                throw new IOException("Session archive checksum mismatch: " + file);
+            }
+            byte[] raw = new byte[rawLengths[column]];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                int read = 0;
+                while (read < raw.length && !inflater.finished()) {
+                    read += inflater.inflate(raw, read, raw.length - read);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt session archive: " + file, e);
+            } finally {
+                inflater.end();
+            }
+
+            boolean deltas = column == SESSION_ID || column == PLAYED_AT;
+            long[] values = new long[rows];
+            long previous = 0;
+            int position = 0;
+            for (int row = 0; row < rows; row++) {
+                long value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = raw[position++];
+                    value |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value = unzigzag(value);
+                if (deltas) {
+                    value += previous;
+                    previous = value;
+                }
+                values[row] = column == PLAYED_AT ? value * 1000 : value;
+            }
+            return values;
+        }
+
+        /**
+         * @param code A value of the DIFFICULTY column
+         */
+        public String difficulty(long code) {
+            return code == 0 ? null : dictionary[(int) code - 1];
+        }
+
+        /**
+         * Decode every column and hand back whole rows in played_at order.
+         */
+        public void forEach(ScoreStore.SessionVisitor visitor) throws IOException {
+            long[] sessionIds = column(SESSION_ID);
+            long[] playerIds = column(PLAYER_ID);
+            long[] scores = column(SCORE);
+            long[] times = column(TIME_SECONDS);
+            long[] moves = column(MOVES);
+            long[] difficulties = column(DIFFICULTY);
+            long[] playedAt = column(PLAYED_AT);
+            for (int i = 0; i < rows; i++) {
+                visitor.visit(new ScoreStore.SessionRecord((int) sessionIds[i], (int) playerIds[i], null,
+                    (int) scores[i], (int) times[i], (int) moves[i], difficulty(difficulties[i]), playedAt[i]));
+            }
+        }
+    }
+}
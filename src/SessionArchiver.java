@@ -0,0 +1,215 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Retention for game_sessions: moves cold months out of the score store into monthly
+ * SessionArchive files on local disk.
+ *
+ * The newest {@code hotMonths} calendar months (UTC) stay in the store, where the session
+ * leaderboard reads them. player_bests and the period buckets are aggregates and keep covering
+ * archived games, so best scores, ranks and best-per-player boards are unaffected. Each older
+ * month is copied to DIR/sessions-YYYY-MM.mma and forced to disk, and only then deleted from
+ * the store, oldest month first. A crash between the two steps just means the month is archived
+ * again on the next run; the writer merges with the existing file and drops duplicate session ids.
+ *
+ * Usage: java SessionArchiver archive [--hot-months N] [--dir DIR]
+ *        java SessionArchiver list [--dir DIR]
+ *        java SessionArchiver scan FROM TO [--dir DIR]    (months as YYYY-MM, inclusive)
+ */
+public class SessionArchiver {
+    public static final int DEFAULT_HOT_MONTHS = 12;
+    public static final String DEFAULT_DIRECTORY = "archive";
+    private static final int FETCH_SIZE = 10_000;
+
+    private final ScoreStore store;
+    private final Path directory;
+
+    public SessionArchiver(ScoreStore store, Path directory) {
+        this.store = store;
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public static Path fileFor(Path directory, YearMonth month) {
+        return directory.resolve("sessions-" + month + ".mma");
+    }
+
+    /**
+     * Archive every month older than the newest hotMonths. The month holding the start of the
+     * current week is always kept too, so the period leaderboards never lose a hot session.
+     * @param hotMonths Months kept in the store, at least 1
+     * @return Number of sessions archived, or -1 if a month failed (months before it stay archived)
+     */
+    public long archive(int hotMonths) {
+        if (hotMonths < 1) {
+            // At least one month must stay hot
+            Log.error("archive.invalidHotMonths").field("hotMonths", hotMonths).log();
+            return -1;
+        }
+        YearMonth firstHot = YearMonth.now(ZoneOffset.UTC).minusMonths(hotMonths - 1);
+        YearMonth weekStart = YearMonth.from(LeaderboardPeriod.WEEKLY.currentBucket());
+        if (weekStart.isBefore(firstHot)) {
+            firstHot = weekStart;
+        }
+
+        long oldest = store.getOldestSessionTime();
+        if (oldest < 0) {
+            return 0;
+        }
+        long archived = 0;
+        try {
+            Files.createDirectories(directory);
+            for (YearMonth month = YearMonth.from(Instant.ofEpochMilli(oldest).atZone(ZoneOffset.UTC));
+                    month.isBefore(firstHot); month = month.plusMonths(1)) {
+                long rows = archiveMonth(month);
+                if (rows < 0) {
+                    return -1;
+                }
+                archived += rows;
+            }
+        } catch (IOException e) {
+            Log.error("archive.failed").field("directory", directory).error(e).log();
+            return -1;
+        }
+        return archived;
+    }
+
+    private long archiveMonth(YearMonth month) throws IOException {
+        long from = startOf(month);
+        long to = startOf(month.plusMonths(1));
+        Path file = fileFor(directory, month);
+
+        SessionArchive.Writer writer = new SessionArchive.Writer();
+        if (Files.exists(file)) {
+            new SessionArchive.Reader(file).forEach(writer::add);
+        }
+        long copied = store.forEachSessionBetween(from, to, FETCH_SIZE, writer::add);
+        if (copied <= 0) {
+            return copied;
+        }
+        long bytes = writer.write(file);
+        long deleted = store.deleteSessionsBetween(from, to);
+        if (deleted < 0) {
+            return -1;
+        }
+        Log.info("archive.month").field("month", month).field("sessions", copied).field("bytes", bytes)
+            .field("bytesPerSession", (double) bytes / writer.size()).log();
+        return copied;
+    }
+
+    /**
+     * Visit archived sessions of the given months, oldest first. Usernames are not set.
+     * @return Number of sessions visited, or -1 if an archive could not be read
+     */
+    public long forEachArchived(YearMonth from, YearMonth to, ScoreStore.SessionVisitor visitor) {
+        long visited = 0;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            Path file = fileFor(directory, month);
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try {
+                SessionArchive.Reader reader = new SessionArchive.Reader(file);
+                reader.forEach(visitor);
+                visited += reader.getRows();
+            } catch (IOException e) {
+                Log.error("archive.fileReadFailed").field("file", file).error(e).log();
+                return -1;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * @return Archived months, oldest first
+     */
+    public List<YearMonth> months() {
+        List<YearMonth> months = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return months;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                .filter(name -> name.startsWith("sessions-") && name.endsWith(".mma"))
+                .map(name -> YearMonth.parse(name.substring("sessions-".length(), name.length() - ".mma".length())))
+                .sorted()
+                .forEach(months::add);
+        } catch (IOException e) {
+            Log.error("archive.listFailed").field("directory", directory).error(e).log();
+        }
+        return months;
+    }
+
+    private static long startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java SessionArchiver archive [--hot-months N] [--dir DIR]");
+            System.err.println("       java SessionArchiver list [--dir DIR]");
+            System.err.println("       java SessionArchiver scan FROM TO [--dir DIR]");
+            System.exit(2);
+        }
+        int hotMonths = DEFAULT_HOT_MONTHS;
+        Path directory = Paths.get(GameConfig.get(GameConfig.ARCHIVE_DIR));
+        List<String> positional = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--hot-months")) {
+                hotMonths = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--dir")) {
+                directory = Paths.get(args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+
+        switch (args[0]) {
+            case "archive": {
+                DatabaseHelper.initializeDatabase();
+                long start = System.nanoTime();
+                long rows = DatabaseHelper.archiveSessions(directory, hotMonths);
+                DatabaseHelper.close();
+                if (rows < 0) {
+                    System.exit(1);
+                }
+                System.out.printf("archive: %,d sessions in %.1f s%n", rows, (System.nanoTime() - start) / 1e9);
+                break;
+            }
+            case "list": {
+                SessionArchiver archiver = new SessionArchiver(null, directory);
+                for (YearMonth month : archiver.months()) {
+                    Path file = fileFor(directory, month);
+                    System.out.printf("%s  %,12d sessions  %,14d bytes%n",
+                        month, new SessionArchive.Reader(file).getRows(), Files.size(file));
+                }
+                break;
+            }
+            case "scan": {
+                long start = System.nanoTime();
+                long[] totalScore = new long[1];
+                long rows = new SessionArchiver(null, directory).forEachArchived(
+                    YearMonth.parse(positional.get(0)), YearMonth.parse(positional.get(1)),
+                    r -> totalScore[0] += r.score);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("scan: %,d sessions in %.2f s (%,.0f rows/s), mean score %.1f%n",
+                    rows, seconds, rows / seconds, rows > 0 ? (double) totalScore[0] / rows : 0.0);
+                break;
+            }
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Bulk import and export of game sessions, for consolidating sessions from many kiosks.
+ *
+ * Rows carry the username rather than the player_id (ids differ between kiosks) and keep
+ * their original played_at. Files ending in .csv are CSV with a header line; anything else
+ * uses the compact binary format (magic "MMSB", then one record per session).
+ *
+ * Import streams the file in chunks: each chunk resolves its usernames with one bulk
+ * createPlayers call and saves its sessions with one batched insert and one commit, so
+ * memory stays flat for 10M+ rows. Export streams through a cursor with a configurable
+ * fetch size. The store is selected as in the game (-Dmemorygame.store=mysql|embedded).
+ *
+ * Usage:
+ *   java SessionTransferTool import FILE [--chunk N] [--skip N]
+ *   java SessionTransferTool export FILE [--fetch N]
+ *   java SessionTransferTool generate FILE ROWS [--players N]
+ */
+public class SessionTransferTool {
+    private static final String CSV_HEADER = "username,score,time_seconds,moves,difficulty,played_at";
+    private static final int BINARY_MAGIC = 0x4D4D5342; // "MMSB"
+    private static final int BINARY_VERSION = 1;
+    private static final long PROGRESS_EVERY = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            usage();
+        }
+        Path file = Paths.get(args[1]);
+        switch (args[0]) {
+            case "import" -> {
+                DatabaseHelper.initializeDatabase();
+                long rows = importSessions(file, option(args, "--chunk", 5000), option(args, "--skip", 0));
+                DatabaseHelper.close();
+                System.exit(rows < 0 ? 1 : 0);
+            }
+            case "export" -> {
+                DatabaseHelper.initializeDatabase();
+                long rows = exportSessions(file, option(args, "--fetch", 1000));
+                DatabaseHelper.close();
+                System.exit(rows < 0 ? 1 : 0);
+            }
+            case "generate" -> {
+                if (args.length < 3) {
+                    usage();
+                }
+                generate(file, Long.parseLong(args[2]), option(args, "--players", 10_000));
+            }
+            default -> usage();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java SessionTransferTool import FILE [--chunk N] [--skip N]");
+        System.err.println("       java SessionTransferTool export FILE [--fetch N]");
+        System.err.println("       java SessionTransferTool generate FILE ROWS [--players N]");
+        System.exit(2);
+    }
+
+    private static int option(String[] args, String name, int defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return Integer.parseInt(args[i + 1]);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @return Rows imported, or -1 if a chunk failed (earlier chunks stay committed)
+     */
+    static long importSessions(Path file, int chunkSize, long skip) throws IOException {
+        PlayerIdCache playerIds = new PlayerIdCache(Math.max(PlayerIdCache.DEFAULT_CAPACITY, chunkSize * 4));
+        Progress progress = new Progress("import");
+        List<ScoreStore.SessionRecord> chunk = new ArrayList<>(chunkSize);
+
+        try (SessionReader reader = openReader(file)) {
+            long skipped = 0;
+            while (skipped < skip && reader.next() != null) {
+                skipped++;
+            }
+            ScoreStore.SessionRecord row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    if (!importChunk(chunk, playerIds)) {
+                        return failed(progress, skip);
+                    }
+                    progress.add(chunk.size());
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                if (!importChunk(chunk, playerIds)) {
+                    return failed(progress, skip);
+                }
+                progress.add(chunk.size());
+            }
+        }
+        progress.finish();
+        return progress.rows;
+    }
+
+    private static long failed(Progress progress, long skip) {
+        System.err.println("Import stopped after " + progress.rows + " committed rows; rerun with --skip "
+            + (skip + progress.rows) + " to resume.");
+        return -1;
+    }
+
+    /**
+     * Resolve the chunk's usernames in one bulk call, then save it as one batch.
+     */
+    private static boolean importChunk(List<ScoreStore.SessionRecord> chunk, PlayerIdCache playerIds) {
+        Set<String> unknown = new LinkedHashSet<>();
+        for (ScoreStore.SessionRecord row : chunk) {
+            if (playerIds.get(row.username) < 0) {
+                unknown.add(row.username);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            List<String> names = new ArrayList<>(unknown);
+            int[] ids = DatabaseHelper.createPlayers(names);
+            for (int i = 0; i < ids.length; i++) {
+                playerIds.put(names.get(i), ids[i]);
+            }
+        }
+
+        List<ScoreStore.SessionRecord> resolved = new ArrayList<>(chunk.size());
+        for (ScoreStore.SessionRecord row : chunk) {
+            int playerId = playerIds.get(row.username);
+            if (playerId <= 0) {
+                System.err.println("Rejected username: '" + row.username + "'");
+                return false;
+            }
+            resolved.add(new ScoreStore.SessionRecord(playerId, row.username, row.score, row.timeSeconds,
+                row.moves, row.difficulty, row.playedAt));
+        }
+        return DatabaseHelper.saveGameSessions(resolved) == resolved.size();
+    }
+
+    /**
+     * @return Rows exported, or -1 if the scan failed
+     */
+    static long exportSessions(Path file, int fetchSize) throws IOException {
+        Progress progress = new Progress("export");
+        long rows;
+        try (SessionWriter writer = openWriter(file)) {
+            rows = DatabaseHelper.exportSessions(fetchSize, row -> {
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                progress.add(1);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (rows < 0) {
+            System.err.println("Export failed after " + progress.rows + " rows.");
+            return -1;
+        }
+        progress.finish();
+        return rows;
+    }
+
+    /**
+     * Write synthetic sessions for load testing.
+     */
+    static void generate(Path file, long rows, int players) throws IOException {
+        Random random = new Random(7);
+        String[] difficulties = {"EASY", "MEDIUM", "HARD"};
+        long now = System.currentTimeMillis();
+        Progress progress = new Progress("generate");
+        try (SessionWriter writer = openWriter(file)) {
+            for (long i = 0; i < rows; i++) {
+                writer.write(new ScoreStore.SessionRecord(0, "player" + random.nextInt(players),
+                    random.nextInt(2000), 10 + random.nextInt(300), 8 + random.nextInt(60),
+                    difficulties[random.nextInt(3)], now - random.nextInt(365 * 24 * 3600) * 1000L));
+                progress.add(1);
+            }
+        }
+        progress.finish();
+    }
+
+    /**
+     * Counts rows and prints throughput every million rows and at the end.
+     */
+    private static final class Progress {
+        private final String label;
+        private final long start = System.nanoTime();
+        private long rows = 0;
+        private long nextReport = PROGRESS_EVERY;
+
+        Progress(String label) {
+            this.label = label;
+        }
+
+        void add(long count) {
+            rows += count;
+            if (rows >= nextReport) {
+                nextReport += PROGRESS_EVERY;
+                report();
+            }
+        }
+
+        void finish() {
+            if (rows + PROGRESS_EVERY != nextReport || rows == 0) {
+                report();
+            }
+        }
+
+        private void report() {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%s: %,d rows in %.1f s (%,.0f rows/s)%n", label, rows, seconds, rows / seconds);
+        }
+    }
+
+    // ----- File formats -----
+
+    interface SessionReader extends Closeable {
+        /** @return The next row (playerId 0), or null at end of file */
+        ScoreStore.SessionRecord next() throws IOException;
+    }
+
+    interface SessionWriter extends Closeable {
+        void write(ScoreStore.SessionRecord row) throws IOException;
+    }
+
+    private static boolean isCsv(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".csv");
+    }
+
+    static SessionReader openReader(Path file) throws IOException {
+        return isCsv(file) ? new CsvReader(file) : new BinaryReader(file);
+    }
+
+    static SessionWriter openWriter(Path file) throws IOException {
+        return isCsv(file) ? new CsvWriter(file) : new BinaryWriter(file);
+    }
+
+    private static final class CsvWriter implements SessionWriter {
+        private final BufferedWriter out;
+
+        CsvWriter(Path file) throws IOException {
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            out.write(CSV_HEADER);
+            out.newLine();
+        }
+
+        @Override
+        public void write(ScoreStore.SessionRecord row) throws IOException {
+            out.write(quote(row.username));
+            out.write(',');
+            out.write(Integer.toString(row.score));
+            out.write(',');
+            out.write(Integer.toString(row.timeSeconds));
+            out.write(',');
+            out.write(Integer.toString(row.moves));
+            out.write(',');
+            out.write(row.difficulty == null ? "" : quote(row.difficulty));
+            out.write(',');
+            out.write(Instant.ofEpochMilli(row.playedAt).toString());
+            out.newLine();
+        }
+
+        private static String quote(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class CsvReader implements SessionReader {
+        private final BufferedReader in;
+        private final List<String> fields = new ArrayList<>(6);
+        private final StringBuilder field = new StringBuilder();
+        private long lineNumber = 1;
+
+        CsvReader(Path file) throws IOException {
+            in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            String header = in.readLine();
+            if (header == null || !header.trim().equalsIgnoreCase(CSV_HEADER)) {
+                throw new IOException("Expected CSV header: " + CSV_HEADER);
+            }
+        }
+
+        @Override
+        public ScoreStore.SessionRecord next() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                lineNumber++;
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            split(line);
+            if (fields.size() != 6) {
+                throw new IOException("Line " + lineNumber + ": expected 6 fields, got " + fields.size());
+            }
+            try {
+                return new ScoreStore.SessionRecord(0, fields.get(0).trim(),
+                    Integer.parseInt(fields.get(1).trim()),
+                    Integer.parseInt(fields.get(2).trim()),
+                    Integer.parseInt(fields.get(3).trim()),
+                    fields.get(4).isEmpty() ? null : fields.get(4),
+                    Instant.parse(fields.get(5).trim()).toEpochMilli());
+            } catch (RuntimeException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+
+        private void split(String line) {
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class BinaryWriter implements SessionWriter {
+        private final DataOutputStream out;
+
+        BinaryWriter(Path file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+            out.writeInt(BINARY_MAGIC);
+            out.writeByte(BINARY_VERSION);
+        }
+
+        @Override
+        public void write(ScoreStore.SessionRecord row) throws IOException {
+            out.writeUTF(row.username);
+            out.writeInt(row.score);
+            out.writeInt(row.timeSeconds);
+            out.writeInt(row.moves);
+            out.writeBoolean(row.difficulty != null);
+            if (row.difficulty != null) {
+                out.writeUTF(row.difficulty);
+            }
+            out.writeLong(row.playedAt);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class BinaryReader implements SessionReader {
+        private final DataInputStream in;
+
+        BinaryReader(Path file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+            if (in.readInt() != BINARY_MAGIC || in.readByte() != BINARY_VERSION) {
+                in.close();
+                throw new IOException("Not a session transfer file: " + file);
+            }
+        }
+
+        @Override
+        public ScoreStore.SessionRecord next() throws IOException {
+            String username;
+            try {
+                username = in.readUTF();
+            } catch (EOFException e) {
+                return null;
+            }
+            int score = in.readInt();
+            int timeSeconds = in.readInt();
+            int moves = in.readInt();
+            String difficulty = in.readBoolean() ? in.readUTF() : null;
+            return new ScoreStore.SessionRecord(0, username, score, timeSeconds, moves, difficulty, in.readLong());
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -2,49 +2,85 @@ import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import java.io.*;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntBinaryOperator;
 
 /**
  * Sound manager for handling sound effects using Freesound API.
  * Downloads and caches audio files for efficient playback.
+ *
+ * Safe to call from any thread. Triggers only set a bit in a pending-command mask, which a single
+ * "sound" thread drains; that thread loads the sounds (so the first trigger never waits on the
+ * network) and is the only one that touches the MediaPlayers. A sound triggered several times
+ * within one frame plays once.
  */
 public class SoundManager {
-    private static final String FREESOUND_API_TOKEN = "xdm75dXQxsq5WMtg79spmL0cKc17ufoelBwD1KgP";
     private static final String FREESOUND_API_BASE = "https://freesound.org/apiv2";
-    private static final String CACHE_DIR = "sounds_cache";
     
-    private static SoundManager instance;
+    private final String cacheDir = GameConfig.get(GameConfig.SOUND_CACHE_DIR);
+    
+    // Pending command bits
+    private static final int FLIP = 1;
+    private static final int MATCH = 1 << 1;
+    private static final int MISMATCH = 1 << 2;
+    private static final int VOLUME = 1 << 3;
+    private static final int SHUTDOWN = 1 << 4;
+    private static final IntBinaryOperator OR = (a, b) -> a | b;
+    private static final IntBinaryOperator AND = (a, b) -> a & b;
+    private static final long FRAME_NANOS = 16_666_667L;
+    
+    // Owned by the audio thread
     private MediaPlayer flipSoundPlayer;
     private MediaPlayer matchSoundPlayer;
     private MediaPlayer mismatchSoundPlayer;
-    private boolean soundsEnabled = true;
+    
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread audioThread;
+    private volatile boolean soundsEnabled = true;
+    private volatile double volume = GameConfig.get(GameConfig.SOUND_VOLUME);
+    
+    private static final Metrics.Histogram TRIGGER_LATENCY = Metrics.histogram("sound.trigger");
+    private static final Metrics.Histogram PLAY_LATENCY = Metrics.histogram("sound.play");
+    private static final Metrics.Counter COALESCED = Metrics.counter("sound.coalesced");
+    
+    private static final class Holder {
+        static final SoundManager INSTANCE = new SoundManager();
+    }
     
     private SoundManager() {
         // Create cache directory if it doesn't exist
         try {
-            Files.createDirectories(Paths.get(CACHE_DIR));
+            Files.createDirectories(Paths.get(cacheDir));
         } catch (IOException e) {
-            System.err.println("Could not create sounds cache directory: " + e.getMessage());
+            Log.warn("sound.cacheDirFailed").field("directory", cacheDir).error(e).log();
         }
         
-        // Initialize sounds
-        initializeSounds();
+        // Sounds are fetched and played on the audio thread
+        audioThread = new Thread(this::runAudio, "sound");
+        audioThread.setDaemon(true);
+        audioThread.start();
+        GameConfig.addListener(GameConfig.SOUND_VOLUME, this::setVolume);
     }
     
     public static SoundManager getInstance() {
-        if (instance == null) {
-            instance = new SoundManager();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
     
     /**
      * Initialize sound effects by fetching from Freesound API or using cached files.
      */
     private void initializeSounds() {
+        if (GameConfig.get(GameConfig.FREESOUND_TOKEN).isEmpty()) {
+            Log.warn("sound.noToken")
+                .field("reason", "freesoundToken not set; only sounds cached in " + cacheDir + " play")
+                .log();
+        }
         try {
             // Get piano sound for card flip
             String flipSoundUrl = getSoundUrl("piano", "flip");
@@ -76,8 +112,7 @@ public class SoundManager {
                 mismatchSoundPlayer = createMediaPlayer(mismatchSoundUrl);
             }
         } catch (Exception e) {
-            System.err.println("Error initializing sounds: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("sound.initFailed").error(e).log();
             // Continue without sounds if API fails
             soundsEnabled = false;
         }
@@ -90,18 +125,22 @@ public class SoundManager {
     private String getSoundUrl(String query, String soundType) {
         try {
             // Check cache first
-            String cacheFile = CACHE_DIR + File.separator + soundType + ".mp3";
+            String cacheFile = cacheDir + File.separator + soundType + ".mp3";
             if (Files.exists(Paths.get(cacheFile))) {
                 return new File(cacheFile).toURI().toString();
             }
+            String token = GameConfig.get(GameConfig.FREESOUND_TOKEN);
+            if (token.isEmpty()) {
+                return null;
+            }
             
             // Search Freesound API
             String searchUrl = FREESOUND_API_BASE + "/search/text/?query=" + 
                               query.replace(" ", "%20") + 
-                              "&token=" + FREESOUND_API_TOKEN + 
+                              "&token=" + token + 
                               "&fields=id,name,previews&page_size=1";
             
-            URL url = new URL(searchUrl);
+            URL url = URI.create(searchUrl).toURL();
             HttpURLConnection conn = (HttpURLConnection) url.openConnection();
             conn.setRequestMethod("GET");
             conn.setConnectTimeout(5000);
@@ -128,10 +167,10 @@ public class SoundManager {
                     return new File(cacheFile).toURI().toString();
                 }
             } else {
-                System.err.println("Freesound API returned error code: " + responseCode);
+                Log.warn("sound.apiError").field("sound", soundType).field("status", responseCode).log();
             }
         } catch (Exception e) {
-            System.err.println("Error fetching sound from Freesound API for " + soundType + ": " + e.getMessage());
+            Log.warn("sound.fetchFailed").field("sound", soundType).error(e).log();
         }
         return null;
     }
@@ -164,7 +203,7 @@ public class SoundManager {
                 }
             }
         } catch (Exception e) {
-            System.err.println("Error parsing JSON: " + e.getMessage());
+            Log.warn("sound.parseFailed").error(e).log();
         }
         return null;
     }
@@ -174,13 +213,13 @@ public class SoundManager {
      */
     private void downloadAndCache(String urlString, String cacheFile) {
         try {
-            URL url = new URL(urlString);
+            URL url = URI.create(urlString).toURL();
             try (InputStream in = url.openStream()) {
                 Files.copy(in, Paths.get(cacheFile), StandardCopyOption.REPLACE_EXISTING);
-                System.out.println("✓ Cached sound file: " + cacheFile);
+                Log.info("sound.cached").field("file", cacheFile).log();
             }
         } catch (Exception e) {
-            System.err.println("Error downloading sound file: " + e.getMessage());
+            Log.warn("sound.downloadFailed").field("url", urlString).error(e).log();
         }
     }
     
@@ -191,59 +230,121 @@ public class SoundManager {
         try {
             Media media = new Media(soundUrl);
             MediaPlayer player = new MediaPlayer(media);
-            player.setVolume(0.5); // Set volume to 50%
+            player.setVolume(volume);
             return player;
         } catch (Exception e) {
-            System.err.println("Error creating MediaPlayer: " + e.getMessage());
+            Log.warn("sound.playerFailed").field("url", soundUrl).error(e).log();
             return null;
         }
     }
     
     /**
-     * Play card flip sound.
+     * Apply a new volume to all loaded sounds.
      */
-    public void playFlipSound() {
-        if (soundsEnabled && flipSoundPlayer != null) {
-            try {
-                flipSoundPlayer.stop();
-                flipSoundPlayer.seek(javafx.util.Duration.ZERO);
-                flipSoundPlayer.play();
-            } catch (Exception e) {
-                // Silently fail if sound can't play
+    private void setVolume(double volume) {
+        this.volume = volume;
+        trigger(VOLUME);
+    }
+    
+    private void applyVolume(double volume) {
+        for (MediaPlayer player : new MediaPlayer[]{flipSoundPlayer, matchSoundPlayer, mismatchSoundPlayer}) {
+            if (player != null) {
+                player.setVolume(volume);
             }
         }
     }
     
+    /**
+     * Play card flip sound.
+     */
+    public void playFlipSound() {
+        trigger(FLIP);
+    }
+    
     /**
      * Play match sound.
      */
     public void playMatchSound() {
-        if (soundsEnabled && matchSoundPlayer != null) {
-            try {
-                matchSoundPlayer.stop();
-                matchSoundPlayer.seek(javafx.util.Duration.ZERO);
-                matchSoundPlayer.play();
-            } catch (Exception e) {
-                // Silently fail if sound can't play
-            }
-        }
+        trigger(MATCH);
     }
     
     /**
      * Play mismatch sound.
      */
     public void playMismatchSound() {
-        if (soundsEnabled && mismatchSoundPlayer != null) {
-            try {
-                mismatchSoundPlayer.stop();
-                mismatchSoundPlayer.seek(javafx.util.Duration.ZERO);
-                mismatchSoundPlayer.play();
-            } catch (Exception e) {
-                // Silently fail if sound can't play
+        trigger(MISMATCH);
+    }
+    
+    /**
+     * Post a command for the audio thread: one atomic OR and at most one unpark, from any thread.
+     * A command already pending (e.g. a second flip in the same frame) is coalesced into it.
+     */
+    private void trigger(int command) {
+        long start = System.nanoTime();
+        int before = pending.getAndAccumulate(command, OR);
+        if ((before & command) != 0) {
+            COALESCED.increment();
+        } else if (before == 0) {
+            LockSupport.unpark(audioThread);
+        }
+        TRIGGER_LATENCY.recordSince(start);
+    }
+    
+    /**
+     * Audio thread: load the sounds, then drain commands at most once per frame so that repeats
+     * arriving within a frame play once. Only this thread touches the MediaPlayers.
+     */
+    private void runAudio() {
+        initializeSounds();
+        // Sounds triggered while loading are stale by now
+        pending.getAndAccumulate(SHUTDOWN | VOLUME, AND);
+        while (true) {
+            int commands = pending.getAndSet(0);
+            if (commands == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+            long frameStart = System.nanoTime();
+            if ((commands & SHUTDOWN) != 0) {
+                disposePlayers();
+                return;
+            }
+            if ((commands & VOLUME) != 0) {
+                applyVolume(volume);
+            }
+            if (soundsEnabled) {
+                if ((commands & FLIP) != 0) {
+                    play(flipSoundPlayer);
+                }
+                if ((commands & MATCH) != 0) {
+                    play(matchSoundPlayer);
+                }
+                if ((commands & MISMATCH) != 0) {
+                    play(mismatchSoundPlayer);
+                }
+            }
+            PLAY_LATENCY.recordSince(frameStart);
+            // Wait out the frame; triggers arriving meanwhile accumulate in pending
+            long remaining;
+            while ((remaining = FRAME_NANOS - (System.nanoTime() - frameStart)) > 0) {
+                LockSupport.parkNanos(this, remaining);
             }
         }
     }
     
+    private void play(MediaPlayer player) {
+        if (player == null) {
+            return;
+        }
+        try {
+            player.stop();
+            player.seek(javafx.util.Duration.ZERO);
+            player.play();
+        } catch (Exception e) {
+            Log.debug("sound.playFailed").error(e).log();
+        }
+    }
+    
     /**
      * Enable or disable sounds.
      */
@@ -259,9 +360,13 @@ public class SoundManager {
     }
     
     /**
-     * Clean up resources.
+     * Clean up resources. Returns at once; the audio thread disposes the players and exits.
      */
     public void cleanup() {
+        trigger(SHUTDOWN);
+    }
+    
+    private void disposePlayers() {
         if (flipSoundPlayer != null) {
             flipSoundPlayer.dispose();
         }
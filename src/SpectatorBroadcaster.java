@@ -0,0 +1,214 @@
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans out one game's event stream to many spectators.
+ *
+ * The producer (the FX thread, via GameEventListener) appends encoded frames to a
+ * single-writer ring. A flusher thread wakes every few milliseconds and hands each
+ * subscriber one batch covering everything it has not seen. Subscribers at the same
+ * position share the same batch, so a flush costs one copy per distinct position,
+ * not one per spectator. A subscriber that refuses batches keeps its position; once it
+ * falls a whole ring behind it is resynced from the latest keyframe instead of
+ * replaying every delta.
+ */
+public class SpectatorBroadcaster implements GameEventListener {
+
+    /**
+     * A spectator endpoint. Must not block.
+     */
+    public interface Subscriber {
+        /**
+         * Offer a batch of frames, prefixed by its length as a u32.
+         * @return false if the subscriber is backed up; the batch will be offered again later
+         */
+        boolean offer(ByteBuffer batch);
+    }
+
+    private static final int DEFAULT_RING_SIZE = 1024;
+    private static final int KEYFRAME_EVERY_DELTAS = 64;
+    private static final int KEYFRAME_EVERY_TICKS = 5;
+
+    private final BoardDeltaCodec codec = new BoardDeltaCodec();
+    private final byte[][] ring;
+    private final int mask;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService flusher;
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    // Written only by the producer thread
+    private volatile long published;
+    private volatile long lastKeyframe = -1;
+    private int deltasSinceKeyframe;
+    private int ticksSinceKeyframe;
+
+    public SpectatorBroadcaster(long flushMillis) {
+        this(DEFAULT_RING_SIZE, flushMillis);
+    }
+
+    public SpectatorBroadcaster(int ringSize, long flushMillis) {
+        int size = Integer.highestOneBit(Math.max(16, ringSize - 1) << 1);
+        this.ring = new byte[size][];
+        this.mask = size - 1;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "spectator-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleAtFixedRate(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Producer side (single thread)
+
+    @Override
+    public void onReset(int totalCards, int cols) {
+        publish(codec.reset(totalCards, cols));
+        publishKeyframe();
+    }
+
+    @Override
+    public void onFlip(int index, int cardId) {
+        publishDelta(codec.flip(index, cardId));
+    }
+
+    @Override
+    public void onHide(int index) {
+        publishDelta(codec.hide(index));
+    }
+
+    @Override
+    public void onMatch(int a, int b) {
+        publishDelta(codec.match(a, b));
+    }
+
+    @Override
+    public void onScore(int score, int moves) {
+        publishDelta(codec.score(score, moves));
+    }
+
+    @Override
+    public void onTick(int timeSeconds) {
+        publish(codec.tick(timeSeconds));
+        if (++ticksSinceKeyframe >= KEYFRAME_EVERY_TICKS) {
+            publishKeyframe();
+        }
+    }
+
+    private void publishDelta(byte[] frame) {
+        publish(frame);
+        if (++deltasSinceKeyframe >= KEYFRAME_EVERY_DELTAS) {
+            publishKeyframe();
+        }
+    }
+
+    private void publishKeyframe() {
+        long seq = published;
+        publish(codec.keyframe());
+        lastKeyframe = seq;
+        deltasSinceKeyframe = 0;
+        ticksSinceKeyframe = 0;
+    }
+
+    private void publish(byte[] frame) {
+        long seq = published;
+        ring[(int) (seq & mask)] = frame;
+        published = seq + 1;
+    }
+
+    // Subscriber side
+
+    /**
+     * Register a spectator. It starts from the most recent keyframe.
+     * @return Run it to unsubscribe
+     */
+    public Runnable subscribe(Subscriber subscriber) {
+        long keyframe = lastKeyframe;
+        Subscription s = new Subscription(subscriber, keyframe >= 0 ? keyframe : published);
+        subscriptions.add(s);
+        return () -> subscriptions.remove(s);
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getResyncCount() {
+        return resyncs.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    private void flush() {
+        long end = published;
+        Map<Long, ByteBuffer> batches = new HashMap<>();
+        for (Subscription s : subscriptions) {
+            long from = s.cursor;
+            if (from >= end) {
+                continue;
+            }
+            if (end - from > ring.length) {
+                long key = lastKeyframe;
+                if (key < 0) {
+                    continue;
+                }
+                from = key;
+                resyncs.incrementAndGet();
+            }
+            long start = from;
+            ByteBuffer batch = batches.computeIfAbsent(start, k -> buildBatch(k, end));
+            if (batch == null) {
+                continue;
+            }
+            if (s.subscriber.offer(batch.duplicate())) {
+                s.cursor = end;
+                bytesSent.addAndGet(batch.remaining());
+            } else {
+                s.cursor = from;
+            }
+        }
+    }
+
+    private ByteBuffer buildBatch(long from, long end) {
+        int size = 0;
+        for (long seq = from; seq < end; seq++) {
+            size += ring[(int) (seq & mask)].length;
+        }
+        ByteBuffer batch = ByteBuffer.allocate(4 + size);
+        batch.putInt(size);
+        for (long seq = from; seq < end; seq++) {
+            batch.put(ring[(int) (seq & mask)]);
+        }
+        // The producer may have lapped us while copying
+        if (published - from > ring.length) {
+            return null;
+        }
+        return batch.flip();
+    }
+
+    /**
+     * Stop flushing and drop all subscribers.
+     */
+    public void shutdown() {
+        flusher.shutdownNow();
+        subscriptions.clear();
+    }
+
+    private static final class Subscription {
+        final Subscriber subscriber;
+        long cursor;
+
+        Subscription(Subscriber subscriber, long cursor) {
+            this.subscriber = subscriber;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command-line spectator for a SpectatorServer stream.
+ *
+ * Usage:
+ *   java SpectatorClient host port [spectators]
+ *   java SpectatorClient --simulate [spectators] [cards] [seconds]
+ *
+ * The simulate mode runs a synthetic producer, a broadcaster and the given number of
+ * spectators in one process and reports per-spectator bandwidth and resyncs.
+ */
+public class SpectatorClient {
+    private final BoardDeltaCodec.Mirror mirror = new BoardDeltaCodec.Mirror();
+    private final AtomicLong bytesReceived;
+
+    public SpectatorClient(AtomicLong bytesReceived) {
+        this.bytesReceived = bytesReceived;
+    }
+
+    /**
+     * Read batches until the connection closes.
+     */
+    public void run(SocketChannel channel) {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        ByteBuffer body = ByteBuffer.allocate(64 * 1024);
+        try {
+            while (true) {
+                header.clear();
+                readFully(channel, header);
+                int size = header.flip().getInt();
+                if (body.capacity() < size) {
+                    body = ByteBuffer.allocate(size);
+                }
+                body.clear().limit(size);
+                readFully(channel, body);
+                body.flip();
+                synchronized (mirror) {
+                    mirror.apply(body);
+                }
+                bytesReceived.addAndGet(4 + size);
+            }
+        } catch (IOException e) {
+            // Stream ended
+        }
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    public String describe() {
+        synchronized (mirror) {
+            if (!mirror.isSynced()) {
+                return "waiting for keyframe";
+            }
+            int up = 0;
+            int matched = 0;
+            for (int i = 0; i < mirror.getTotalCards(); i++) {
+                if (mirror.getState(i) == BoardDeltaCodec.STATE_UP) up++;
+                if (mirror.getState(i) == BoardDeltaCodec.STATE_MATCHED) matched++;
+            }
+            return String.format("seq=%d time=%ds score=%d moves=%d up=%d matched=%d/%d",
+                mirror.getLastSeq(), mirror.getTimeSeconds(), mirror.getScore(), mirror.getMoves(),
+                up, matched, mirror.getTotalCards());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            int spectators = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+            int cards = args.length > 2 ? Integer.parseInt(args[2]) : 24;
+            int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+            simulate(spectators, cards, seconds);
+            return;
+        }
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = Integer.parseInt(args.length > 1 ? args[1] : "7778");
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        AtomicLong bytes = new AtomicLong();
+        List<SpectatorClient> clients = connectAll(host, port, count, bytes);
+        while (true) {
+            Thread.sleep(2000);
+            System.out.println(clients.get(0).describe() + "  total bytes=" + bytes.get());
+        }
+    }
+
+    private static List<SpectatorClient> connectAll(String host, int port, int count, AtomicLong bytes)
+            throws IOException {
+        List<SpectatorClient> clients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+            SpectatorClient client = new SpectatorClient(bytes);
+            Thread.ofVirtual().start(() -> client.run(channel));
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    private static void simulate(int spectators, int cards, int seconds) throws Exception {
+        SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(50);
+        SpectatorServer server = new SpectatorServer(broadcaster);
+        int port = server.start(0);
+        AtomicLong bytes = new AtomicLong();
+        List<SpectatorClient> clients = connectAll("localhost", port, spectators, bytes);
+
+        // Synthetic producer: ~40 board events per second plus a tick every second
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        broadcaster.onReset(cards, 6);
+        long events = 0;
+        long end = System.currentTimeMillis() + seconds * 1000L;
+        int tick = 0;
+        long nextTick = System.currentTimeMillis() + 1000;
+        while (System.currentTimeMillis() < end) {
+            int a = rnd.nextInt(cards);
+            broadcaster.onFlip(a, a / 2 + 1);
+            broadcaster.onHide(a);
+            broadcaster.onScore(rnd.nextInt(2000), (int) events);
+            events += 3;
+            if (System.currentTimeMillis() >= nextTick) {
+                broadcaster.onTick(++tick);
+                nextTick += 1000;
+            }
+            Thread.sleep(75);
+        }
+        Thread.sleep(500);
+
+        int synced = 0;
+        for (SpectatorClient c : clients) {
+            synchronized (c.mirror) {
+                if (c.mirror.isSynced()) synced++;
+            }
+        }
+        System.out.printf("%d spectators, %d cards, %d events over %ds%n", spectators, cards, events, seconds);
+        System.out.printf("Received %.1f KB/s per spectator, %d resyncs, %d/%d synced%n",
+            bytes.get() / 1024.0 / seconds / spectators, broadcaster.getResyncCount(), synced, spectators);
+        System.out.println("Sample: " + clients.get(0).describe());
+        server.stop();
+        broadcaster.shutdown();
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a SpectatorBroadcaster stream over TCP.
+ * Each spectator gets a small bounded outbound queue drained by its own virtual thread;
+ * a full queue pushes back on the broadcaster instead of buffering without limit.
+ */
+public class SpectatorServer {
+    private static final int QUEUE_CAPACITY = 8;
+
+    private final SpectatorBroadcaster broadcaster;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocketChannel serverChannel;
+
+    public SpectatorServer(SpectatorBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Bind and start accepting spectators in the background.
+     * @return The bound port
+     */
+    public int start(int port) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 512);
+        Thread.ofVirtual().name("spectator-accept").start(this::acceptLoop);
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    private void acceptLoop() {
+        try {
+            while (serverChannel.isOpen()) {
+                SocketChannel channel = serverChannel.accept();
+                connections.submit(() -> serve(channel));
+            }
+        } catch (ClosedChannelException e) {
+            // Stopped
+        } catch (IOException e) {
+            System.err.println("Spectator accept failed: " + e.getMessage());
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        BlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        Runnable unsubscribe = broadcaster.subscribe(queue::offer);
+        try (channel) {
+            while (true) {
+                ByteBuffer batch = queue.take();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Spectator disconnected or server stopped
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+    public void stop() {
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing spectator server: " + e.getMessage());
+        }
+        connections.shutdownNow();
+    }
+}
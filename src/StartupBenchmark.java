@@ -0,0 +1,95 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time from process launch to the first frame of the main menu.
+ *
+ * Starts the given command RUNS times with --startupProbe=true appended, so MemoryGameApp skips
+ * the name dialog, prints READY_LINE once the main menu is laid out and exits. Each run is timed
+ * with a wall clock from process start to that line, which is what a kiosk user waits through.
+ *
+ * Usage: java StartupBenchmark [--runs N] [--warmup N] COMMAND [ARGS...]
+ * Before (what run.bat does, minus the compile):
+ *   java StartupBenchmark java --module-path lib/javafx-sdk-25.0.1/lib
+ *       --add-modules javafx.controls,javafx.media -cp out;lib/mysql-connector-j-9.5.0.jar MemoryGameApp
+ * After (package.bat / package.sh output):
+ *   java StartupBenchmark dist/memorygame
+ */
+public class StartupBenchmark {
+    public static final String READY_LINE = "startup: main menu shown";
+    private static final long TIMEOUT_NANOS = 120_000_000_000L;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = 10;
+        int warmup = 1;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            if (args[first].equals("--runs")) {
+                runs = Integer.parseInt(args[first + 1]);
+            } else if (args[first].equals("--warmup")) {
+                warmup = Integer.parseInt(args[first + 1]);
+            } else {
+                break;
+            }
+            first += 2;
+        }
+        if (first >= args.length) {
+            System.err.println("Usage: java StartupBenchmark [--runs N] [--warmup N] COMMAND [ARGS...]");
+            System.exit(2);
+        }
+        List<String> command = new ArrayList<>(Arrays.asList(args).subList(first, args.length));
+        command.add("--startupProbe=true");
+
+        // Warm-up runs fill the OS file cache, so every timed run is a warm boot
+        for (int i = 0; i < warmup; i++) {
+            if (launch(command) < 0) {
+                System.exit(1);
+            }
+        }
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long nanos = launch(command);
+            if (nanos < 0) {
+                System.exit(1);
+            }
+            millis[i] = nanos / 1_000_000;
+            System.out.printf("  run %2d: %,6d ms%n", i + 1, millis[i]);
+        }
+        Arrays.sort(millis);
+        System.out.printf("time to main menu over %d runs: min %,d ms, median %,d ms, p90 %,d ms, max %,d ms%n",
+            runs, millis[0], millis[runs / 2], millis[Math.min(runs - 1, runs * 9 / 10)], millis[runs - 1]);
+    }
+
+    /**
+     * @return Nanoseconds from launch to READY_LINE, or -1 if the app never printed it
+     */
+    private static long launch(List<String> command) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        long ready = -1;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (ready < 0 && line.startsWith(READY_LINE)) {
+                    ready = System.nanoTime() - start;
+                }
+                if (System.nanoTime() - start > TIMEOUT_NANOS) {
+                    break;
+                }
+            }
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+        if (ready < 0) {
+            System.err.println("App exited with code " + process.exitValue() + " without printing \""
+                + READY_LINE + "\"");
+        }
+        return ready;
+    }
+}
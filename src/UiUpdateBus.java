@@ -0,0 +1,92 @@
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces UI updates to at most one per target per JavaFX pulse.
+ *
+ * A model change only marks its Target dirty; the target redraws itself once, at the start of the
+ * next pulse (before CSS and layout), however many changes arrived in between. There is a single
+ * AnimationTimer for the whole app, started on the first markDirty and stopped after the flush,
+ * so the hook count does not grow with the number of boards on screen and nothing runs while
+ * the UI is idle.
+ */
+public final class UiUpdateBus {
+    private static final Metrics.Histogram FLUSH_LATENCY = Metrics.histogram("fx.uiFlush");
+    private static final Metrics.Counter FLUSHED = Metrics.counter("fx.uiFlush.targets");
+
+    private static ArrayList<Target> dirty = new ArrayList<>();
+    private static ArrayList<Target> flushing = new ArrayList<>();
+    private static boolean running = false;
+
+    private static final AnimationTimer PULSE = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+        }
+    };
+
+    private UiUpdateBus() {
+    }
+
+    /**
+     * Something drawn from model state. Subclasses read the model in flush(), not when it changes.
+     */
+    public abstract static class Target {
+        private final AtomicBoolean queued = new AtomicBoolean();
+
+        /**
+         * Redraw from current state. Runs on the FX thread, at most once per pulse.
+         */
+        protected abstract void flush();
+
+        /**
+         * Schedule a redraw for the next pulse. Cheap and idempotent, so models call it on every
+         * change. Safe from any thread; off the FX thread it costs one runLater per flush.
+         */
+        public final void markDirty() {
+            if (!queued.compareAndSet(false, true)) {
+                return;
+            }
+            if (Platform.isFxApplicationThread()) {
+                enqueue(this);
+            } else {
+                Platform.runLater(() -> enqueue(this));
+            }
+        }
+    }
+
+    private static void enqueue(Target target) {
+        dirty.add(target);
+        if (!running) {
+            running = true;
+            PULSE.start();
+        }
+    }
+
+    private static void flush() {
+        long start = System.nanoTime();
+        // Swap lists so targets marked during a flush wait for the next pulse
+        ArrayList<Target> batch = dirty;
+        dirty = flushing;
+        flushing = batch;
+        for (int i = 0; i < batch.size(); i++) {
+            Target target = batch.get(i);
+            target.queued.set(false);
+            try {
+                target.flush();
+            } catch (RuntimeException e) {
+                System.err.println("Error updating UI: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        FLUSHED.add(batch.size());
+        batch.clear();
+        if (dirty.isEmpty()) {
+            running = false;
+            PULSE.stop();
+        }
+        FLUSH_LATENCY.recordSince(start);
+    }
+}